@@ -17,11 +17,37 @@
 package com.google.googleinterns.gscribe;
 
 import com.codahale.metrics.servlets.HealthCheckServlet;
+import com.google.googleinterns.gscribe.commands.BackfillQuestionDataCommand;
+import com.google.googleinterns.gscribe.commands.BenchmarkExamInsertCommand;
+import com.google.googleinterns.gscribe.commands.BenchmarkSimilarityCommand;
+import com.google.googleinterns.gscribe.commands.ExplainQueriesCommand;
+import com.google.googleinterns.gscribe.commands.RebalanceExamCommand;
+import com.google.googleinterns.gscribe.dao.routing.CallerFilter;
+import com.google.googleinterns.gscribe.dao.routing.ReadYourWritesTracker;
+import com.google.googleinterns.gscribe.dao.routing.ReplicaPool;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.migrations.SchemaMigrator;
 import com.google.googleinterns.gscribe.modules.DBConnectorModule;
 import com.google.googleinterns.gscribe.modules.DaoModule;
 import com.google.googleinterns.gscribe.modules.ServicesModule;
+import com.google.googleinterns.gscribe.resources.AnalyticsResource;
 import com.google.googleinterns.gscribe.resources.AuthenticationResource;
+import com.google.googleinterns.gscribe.resources.ExamEventServlet;
+import com.google.googleinterns.gscribe.resources.ExamInstanceResource;
 import com.google.googleinterns.gscribe.resources.ExamResource;
+import com.google.googleinterns.gscribe.resources.ExportResource;
+import com.google.googleinterns.gscribe.resources.GradingResource;
+import com.google.googleinterns.gscribe.resources.RosterResource;
+import com.google.googleinterns.gscribe.resources.RubricResource;
+import com.google.googleinterns.gscribe.resources.SimilarityResource;
+import com.google.googleinterns.gscribe.services.AnswerIngestionService;
+import com.google.googleinterns.gscribe.services.ExamArchiveService;
+import com.google.googleinterns.gscribe.services.ExamSessionService;
+import com.google.googleinterns.gscribe.services.admission.AdmissionController;
+import com.google.googleinterns.gscribe.services.analytics.ExamAnalytics;
+import com.google.googleinterns.gscribe.services.events.ExamEventHub;
+import com.google.googleinterns.gscribe.services.idempotency.IdempotencyStore;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import io.dropwizard.Application;
@@ -29,6 +55,9 @@ import io.dropwizard.assets.AssetsBundle;
 import io.dropwizard.configuration.ResourceConfigurationSourceProvider;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import org.skife.jdbi.v2.DBI;
+
+import javax.servlet.ServletRegistration;
 
 public class GScribeApplication extends Application<GScribeConfiguration> {
 
@@ -45,15 +74,48 @@ public class GScribeApplication extends Application<GScribeConfiguration> {
     public void initialize(Bootstrap<GScribeConfiguration> bootstrap) {
         bootstrap.setConfigurationSourceProvider(new ResourceConfigurationSourceProvider());
         bootstrap.addBundle(new AssetsBundle("/assets", "/", "index.html"));
+        bootstrap.addCommand(new BackfillQuestionDataCommand());
+        bootstrap.addCommand(new BenchmarkExamInsertCommand());
+        bootstrap.addCommand(new BenchmarkSimilarityCommand());
+        bootstrap.addCommand(new ExplainQueriesCommand());
+        bootstrap.addCommand(new RebalanceExamCommand());
     }
 
     public void run(GScribeConfiguration configuration, Environment environment) {
-        Injector injector = Guice.createInjector(new DBConnectorModule(configuration.getMySQLConfig()), new DaoModule(), new ServicesModule());
+        Injector injector = Guice.createInjector(new DBConnectorModule(configuration.getMySQLConfig(), configuration.getReadReplicaConfig(),
+                configuration.getShardConfig(), environment.metrics()), new DaoModule(),
+                new ServicesModule(configuration.getAnswerIngestionConfig(), configuration.getArchiveConfig(),
+                        configuration.getExamSessionConfig(), configuration.getExamEventsConfig(),
+                        configuration.getIdempotencyConfig(), configuration.getAdmissionConfig(), configuration.getAnalyticsConfig(),
+                        configuration.getSearchConfig(), environment.metrics()));
+        new SchemaMigrator(injector.getInstance(DBI.class)).migrate();
+        for (Shard shard : injector.getInstance(ShardRouter.class).getShards()) {
+            if (shard.getIndex() > 0) new SchemaMigrator(shard.getDbi()).migrate();
+        }
+        environment.lifecycle().manage(injector.getInstance(ReplicaPool.class));
+        environment.lifecycle().manage(injector.getInstance(ExamAnalytics.class));
+        environment.lifecycle().manage(injector.getInstance(AnswerIngestionService.class));
+        environment.lifecycle().manage(injector.getInstance(ExamArchiveService.class));
+        environment.lifecycle().manage(injector.getInstance(ExamSessionService.class));
+        environment.lifecycle().manage(injector.getInstance(ExamEventHub.class));
+        environment.lifecycle().manage(injector.getInstance(IdempotencyStore.class));
+        injector.getInstance(AdmissionController.class).registerMetrics(environment.metrics());
+        environment.jersey().register(new CallerFilter(injector.getInstance(ReadYourWritesTracker.class)));
         environment.jersey().register(injector.getInstance(AuthenticationResource.class));
         environment.jersey().register(injector.getInstance(ExamResource.class));
+        environment.jersey().register(injector.getInstance(ExamInstanceResource.class));
+        environment.jersey().register(injector.getInstance(RosterResource.class));
+        environment.jersey().register(injector.getInstance(GradingResource.class));
+        environment.jersey().register(injector.getInstance(AnalyticsResource.class));
+        environment.jersey().register(injector.getInstance(ExportResource.class));
+        environment.jersey().register(injector.getInstance(SimilarityResource.class));
+        environment.jersey().register(injector.getInstance(RubricResource.class));
         environment.jersey().setUrlPattern("/api/*");
         environment.servlets()
                 .addServlet("healthcheck", new HealthCheckServlet(environment.healthChecks()))
                 .addMapping("/_ah/health");
+        ServletRegistration.Dynamic examEvents = environment.servlets().addServlet("exam-events", injector.getInstance(ExamEventServlet.class));
+        examEvents.setAsyncSupported(true);
+        examEvents.addMapping("/events/*");
     }
 }
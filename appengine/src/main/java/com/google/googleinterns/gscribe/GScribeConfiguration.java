@@ -17,7 +17,17 @@
 package com.google.googleinterns.gscribe;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.googleinterns.gscribe.config.AdmissionConfig;
+import com.google.googleinterns.gscribe.config.AnalyticsConfig;
+import com.google.googleinterns.gscribe.config.AnswerIngestionConfig;
+import com.google.googleinterns.gscribe.config.ArchiveConfig;
+import com.google.googleinterns.gscribe.config.ExamEventsConfig;
+import com.google.googleinterns.gscribe.config.ExamSessionConfig;
+import com.google.googleinterns.gscribe.config.IdempotencyConfig;
 import com.google.googleinterns.gscribe.config.MySQLConfig;
+import com.google.googleinterns.gscribe.config.ReadReplicaConfig;
+import com.google.googleinterns.gscribe.config.SearchConfig;
+import com.google.googleinterns.gscribe.config.ShardConfig;
 import io.dropwizard.Configuration;
 
 import javax.validation.Valid;
@@ -37,6 +47,86 @@ public class GScribeConfiguration extends Configuration {
     @NotNull
     private Environment environment;
 
+    /**
+     * Reads the answer ingestion configuration from the yaml file
+     * Optional - queue capacity, batch size, flush interval and timeouts have defaults
+     */
+    @Valid
+    @NotNull
+    private AnswerIngestionConfig answerIngestionConfig = new AnswerIngestionConfig();
+
+    /**
+     * Reads the read replica configuration from the yaml file
+     * Optional - with no replicas all queries run on the primary database
+     */
+    @Valid
+    @NotNull
+    private ReadReplicaConfig readReplicaConfig = new ReadReplicaConfig();
+
+    /**
+     * Reads the shard configuration from the yaml file
+     * Optional - with no shards exam instances and answers are stored on the primary database
+     */
+    @Valid
+    @NotNull
+    private ShardConfig shardConfig = new ShardConfig();
+
+    /**
+     * Reads the archive configuration from the yaml file
+     * Optional - archive directory, retained terms and maintenance interval have defaults
+     */
+    @Valid
+    @NotNull
+    private ArchiveConfig archiveConfig = new ArchiveConfig();
+
+    /**
+     * Reads the exam session configuration from the yaml file
+     * Optional - timing wheel resolution and grace period have defaults
+     */
+    @Valid
+    @NotNull
+    private ExamSessionConfig examSessionConfig = new ExamSessionConfig();
+
+    /**
+     * Reads the exam event stream configuration from the yaml file
+     * Optional - writer threads, connection cap and event intervals have defaults
+     */
+    @Valid
+    @NotNull
+    private ExamEventsConfig examEventsConfig = new ExamEventsConfig();
+
+    /**
+     * Reads the idempotency key configuration from the yaml file
+     * Optional - cache size, retention and cleanup interval have defaults
+     */
+    @Valid
+    @NotNull
+    private IdempotencyConfig idempotencyConfig = new IdempotencyConfig();
+
+    /**
+     * Reads the exam start admission configuration from the yaml file
+     * Optional - limits, target latency and waiting room size have defaults
+     */
+    @Valid
+    @NotNull
+    private AdmissionConfig admissionConfig = new AdmissionConfig();
+
+    /**
+     * Reads the exam analytics configuration from the yaml file
+     * Optional - queue capacity, snapshot interval and idle time have defaults
+     */
+    @Valid
+    @NotNull
+    private AnalyticsConfig analyticsConfig = new AnalyticsConfig();
+
+    /**
+     * Reads the question bank search configuration from the yaml file
+     * Optional - index size and rebuild age have defaults
+     */
+    @Valid
+    @NotNull
+    private SearchConfig searchConfig = new SearchConfig();
+
     @JsonProperty("database")
     public MySQLConfig getMySQLConfig() {
         return mySQLConfig;
@@ -56,4 +146,104 @@ public class GScribeConfiguration extends Configuration {
     public void setEnvironment(Environment environment) {
         this.environment = environment;
     }
+
+    @JsonProperty("answerIngestion")
+    public AnswerIngestionConfig getAnswerIngestionConfig() {
+        return answerIngestionConfig;
+    }
+
+    @JsonProperty("answerIngestion")
+    public void setAnswerIngestionConfig(AnswerIngestionConfig answerIngestionConfig) {
+        this.answerIngestionConfig = answerIngestionConfig;
+    }
+
+    @JsonProperty("readReplicas")
+    public ReadReplicaConfig getReadReplicaConfig() {
+        return readReplicaConfig;
+    }
+
+    @JsonProperty("readReplicas")
+    public void setReadReplicaConfig(ReadReplicaConfig readReplicaConfig) {
+        this.readReplicaConfig = readReplicaConfig;
+    }
+
+    @JsonProperty("sharding")
+    public ShardConfig getShardConfig() {
+        return shardConfig;
+    }
+
+    @JsonProperty("sharding")
+    public void setShardConfig(ShardConfig shardConfig) {
+        this.shardConfig = shardConfig;
+    }
+
+    @JsonProperty("archive")
+    public ArchiveConfig getArchiveConfig() {
+        return archiveConfig;
+    }
+
+    @JsonProperty("archive")
+    public void setArchiveConfig(ArchiveConfig archiveConfig) {
+        this.archiveConfig = archiveConfig;
+    }
+
+    @JsonProperty("examSession")
+    public ExamSessionConfig getExamSessionConfig() {
+        return examSessionConfig;
+    }
+
+    @JsonProperty("examSession")
+    public void setExamSessionConfig(ExamSessionConfig examSessionConfig) {
+        this.examSessionConfig = examSessionConfig;
+    }
+
+    @JsonProperty("examEvents")
+    public ExamEventsConfig getExamEventsConfig() {
+        return examEventsConfig;
+    }
+
+    @JsonProperty("examEvents")
+    public void setExamEventsConfig(ExamEventsConfig examEventsConfig) {
+        this.examEventsConfig = examEventsConfig;
+    }
+
+    @JsonProperty("idempotency")
+    public IdempotencyConfig getIdempotencyConfig() {
+        return idempotencyConfig;
+    }
+
+    @JsonProperty("idempotency")
+    public void setIdempotencyConfig(IdempotencyConfig idempotencyConfig) {
+        this.idempotencyConfig = idempotencyConfig;
+    }
+
+    @JsonProperty("admission")
+    public AdmissionConfig getAdmissionConfig() {
+        return admissionConfig;
+    }
+
+    @JsonProperty("admission")
+    public void setAdmissionConfig(AdmissionConfig admissionConfig) {
+        this.admissionConfig = admissionConfig;
+    }
+
+    @JsonProperty("analytics")
+    public AnalyticsConfig getAnalyticsConfig() {
+        return analyticsConfig;
+    }
+
+    @JsonProperty("analytics")
+    public void setAnalyticsConfig(AnalyticsConfig analyticsConfig) {
+        this.analyticsConfig = analyticsConfig;
+    }
+
+    @JsonProperty("search")
+    public SearchConfig getSearchConfig() {
+        return searchConfig;
+    }
+
+    @JsonProperty("search")
+    public void setSearchConfig(SearchConfig searchConfig) {
+        this.searchConfig = searchConfig;
+    }
 }
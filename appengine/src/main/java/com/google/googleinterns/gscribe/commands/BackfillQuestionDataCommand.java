@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.commands;
+
+import com.google.googleinterns.gscribe.GScribeConfiguration;
+import com.google.googleinterns.gscribe.config.MySQLConfig;
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
+import com.google.googleinterns.gscribe.dao.codec.QuestionCodec;
+import com.google.googleinterns.gscribe.migrations.SchemaMigrator;
+import com.google.googleinterns.gscribe.models.Question;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.PreparedBatch;
+import org.skife.jdbi.v2.StatementContext;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Migrates questions stored as JSON to the compact binary encoding
+ * Runs schema migrations so question_content table exists, then re-encodes rows in batches walking the primary key
+ * Encoded questions are stored in question_content and the row is linked to them by hash
+ * The JSON copy is cleared once a row is linked, rows whose JSON is missing or can not be parsed are skipped and left untouched
+ * Safe to run while the application is serving, as the read path accepts both formats
+ */
+public class BackfillQuestionDataCommand extends ConfiguredCommand<GScribeConfiguration> {
+
+    private static final int BATCH_SIZE = 500;
+
+    public BackfillQuestionDataCommand() {
+        super("backfill-questions", "Re-encodes JSON questions into content addressed binary questions");
+    }
+
+    @Override
+    protected void run(Bootstrap<GScribeConfiguration> bootstrap, Namespace namespace, GScribeConfiguration configuration) {
+        MySQLConfig config = configuration.getMySQLConfig();
+        DBI dbi = new DBI(config.getUrl(), config.getUserName(), config.getPassword());
+        new SchemaMigrator(dbi).migrate();
+        try (Handle handle = dbi.open()) {
+            int examID = -1, questionNum = -1, encoded = 0, skipped = 0;
+            while (true) {
+                List<LegacyRow> rows = handle.createQuery("SELECT exam_id, question_num, question, question_data FROM questions " +
+                        "WHERE question_data IS NULL AND question_hash IS NULL AND ( exam_id > :exam_id OR ( exam_id = :exam_id AND question_num > :question_num ) ) " +
+                        "ORDER BY exam_id, question_num LIMIT :limit")
+                        .bind("exam_id", examID)
+                        .bind("question_num", questionNum)
+                        .bind("limit", BATCH_SIZE)
+                        .map((index, resultSet, context) -> new LegacyRow(
+                                resultSet.getInt("exam_id"),
+                                resultSet.getInt("question_num"),
+                                parse(index, resultSet, context)))
+                        .list();
+                if (rows.isEmpty()) break;
+
+                Map<ByteBuffer, byte[]> contents = new TreeMap<>();
+                PreparedBatch batch = handle.prepareBatch("UPDATE questions SET question_hash = :question_hash, question = NULL " +
+                        "WHERE exam_id = :exam_id AND question_num = :question_num");
+                for (LegacyRow row : rows) {
+                    if (row.question == null) {
+                        System.err.println("Skipped question " + row.questionNum + " of exam " + row.examID + ", its JSON could not be parsed");
+                        skipped++;
+                        continue;
+                    }
+                    byte[] questionData = QuestionCodec.encode(row.question);
+                    byte[] hash = QuestionCodec.hash(questionData);
+                    contents.putIfAbsent(ByteBuffer.wrap(hash), questionData);
+                    batch.add()
+                            .bind("question_hash", hash)
+                            .bind("exam_id", row.examID)
+                            .bind("question_num", row.questionNum);
+                }
+                if (batch.size() > 0) {
+                    PreparedBatch contentBatch = handle.prepareBatch("INSERT INTO question_content( hash, question_data ) " +
+                            "VALUES ( :hash, :question_data ) ON DUPLICATE KEY UPDATE hash = hash");
+                    for (Map.Entry<ByteBuffer, byte[]> content : contents.entrySet()) {
+                        contentBatch.add().bind("hash", content.getKey().array()).bind("question_data", content.getValue());
+                    }
+                    handle.inTransaction((transactionHandle, status) -> {
+                        contentBatch.execute();
+                        return batch.execute();
+                    });
+                }
+                encoded += batch.size();
+
+                LegacyRow last = rows.get(rows.size() - 1);
+                examID = last.examID;
+                questionNum = last.questionNum;
+            }
+            System.out.println("Encoded " + encoded + " questions, skipped " + skipped);
+        }
+    }
+
+    /**
+     * @return question of the row, null if its JSON is missing or can not be parsed
+     */
+    private Question parse(int index, ResultSet resultSet, StatementContext context) throws SQLException {
+        try {
+            return new QuestionsDao.ExamMapper().map(index, resultSet, context);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static class LegacyRow {
+        private final int examID;
+        private final int questionNum;
+        private final Question question;
+
+        LegacyRow(int examID, int questionNum, Question question) {
+            this.examID = examID;
+            this.questionNum = questionNum;
+            this.question = question;
+        }
+    }
+}
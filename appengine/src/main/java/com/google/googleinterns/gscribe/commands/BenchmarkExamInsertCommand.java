@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.commands;
+
+import com.google.googleinterns.gscribe.GScribeConfiguration;
+import com.google.googleinterns.gscribe.config.MySQLConfig;
+import com.google.googleinterns.gscribe.dao.ExamCreationDao;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
+import com.google.googleinterns.gscribe.dao.codec.QuestionCodec;
+import com.google.googleinterns.gscribe.models.*;
+import com.google.googleinterns.gscribe.modules.DBConnectorModule;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Measures time taken to create exams of 10, 100 and 1000 questions
+ * "before" is the previous path, metadata and questions as separate auto-commit statements sent row by row
+ * "after" is ExamCreationDao, a single transaction with questions sent as rewritten multi-row batches
+ * Unlike the original path, which inserted one JSON row per question into questions, "before" writes the binary encoding
+ * to question_content and a hash row to questions, two rows per question, so its times are not those of the original path
+ * Every exam carries a random token in its statements, so no question content is shared with earlier exams or runs
+ * All exams are created for a throwaway benchmark user which is removed along with its exams and question content at the end
+ */
+public class BenchmarkExamInsertCommand extends ConfiguredCommand<GScribeConfiguration> {
+
+    private static final String BENCHMARK_USER = "gscribe-benchmark";
+    private static final int[] EXAM_SIZES = {10, 100, 1000};
+
+    public BenchmarkExamInsertCommand() {
+        super("benchmark-exam-insert", "Compares exam creation time of row by row and transactional batched inserts");
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("--iterations").type(Integer.class).setDefault(5).help("runs per exam size");
+    }
+
+    @Override
+    protected void run(Bootstrap<GScribeConfiguration> bootstrap, Namespace namespace, GScribeConfiguration configuration) {
+        MySQLConfig config = configuration.getMySQLConfig();
+        int iterations = namespace.getInt("iterations");
+        DBI rowByRowDBI = new DBI(config.getUrl(), config.getUserName(), config.getPassword());
+        DBI batchedDBI = new DBConnectorModule(config).dBIProvider();
+        ExamMetadataDao examMetadataDao = rowByRowDBI.onDemand(ExamMetadataDao.class);
+        QuestionsDao questionsDao = rowByRowDBI.onDemand(QuestionsDao.class);
+        ExamCreationDao examCreationDao = batchedDBI.onDemand(ExamCreationDao.class);
+
+        try (Handle handle = rowByRowDBI.open()) {
+            handle.execute("INSERT IGNORE INTO user( id, access_token, refresh_token ) VALUES ( ?, '', '' )", BENCHMARK_USER);
+        }
+        try {
+            System.out.println(String.format("%10s %12s %12s", "questions", "before (ms)", "after (ms)"));
+            for (int size : EXAM_SIZES) {
+                long before = 0, after = 0;
+                for (int i = 0; i < iterations; i++) {
+                    Exam exam = syntheticExam(size);
+                    long start = System.nanoTime();
+                    int examID = examMetadataDao.insertExamMetadata(exam.getExamMetadata());
+                    List<byte[]> questionData = new ArrayList<>();
+                    List<byte[]> questionHash = new ArrayList<>();
+                    List<Integer> questionNum = new ArrayList<>();
+                    for (Question question : exam.getQuestions()) {
+                        byte[] data = QuestionCodec.encode(question);
+                        questionData.add(data);
+                        questionHash.add(QuestionCodec.hash(data));
+                        questionNum.add(question.getQuestionNumber());
+                    }
+                    questionsDao.insertQuestionContent(questionHash, questionData, questionData.size());
+                    questionsDao.insertExamQuestions(questionHash, examID, questionNum, questionData.size());
+                    before += System.nanoTime() - start;
+
+                    exam = syntheticExam(size);
+                    start = System.nanoTime();
+                    examCreationDao.insertExam(exam, id -> 0, config.getBatchSize());
+                    after += System.nanoTime() - start;
+                }
+                System.out.println(String.format("%10d %12.2f %12.2f", size, before / 1e6 / iterations, after / 1e6 / iterations));
+            }
+        } finally {
+            try (Handle handle = rowByRowDBI.open()) {
+                handle.execute("DELETE question_content FROM question_content INNER JOIN questions ON questions.question_hash = question_content.hash " +
+                        "INNER JOIN exam ON exam.id = questions.exam_id WHERE exam.created_by = ?", BENCHMARK_USER);
+                handle.execute("DELETE questions FROM questions INNER JOIN exam ON exam.id = questions.exam_id WHERE exam.created_by = ?", BENCHMARK_USER);
+                handle.execute("DELETE exam_shard FROM exam_shard INNER JOIN exam ON exam.id = exam_shard.exam_id WHERE exam.created_by = ?", BENCHMARK_USER);
+                handle.execute("DELETE FROM exam WHERE created_by = ?", BENCHMARK_USER);
+                handle.execute("DELETE FROM user WHERE id = ?", BENCHMARK_USER);
+            }
+        }
+    }
+
+    private Exam syntheticExam(int size) {
+        List<Question> questions = new ArrayList<>(size);
+        String token = UUID.randomUUID().toString();
+        for (int i = 1; i <= size; i++) {
+            questions.add(new MultipleChoiceQuestion("Benchmark question statement number " + i + " of " + token, 5, i,
+                    Arrays.asList("Option A", "Option B", "Option C", "Option D")));
+        }
+        return new Exam(new ExamMetadata("benchmark", "Sheet1", BENCHMARK_USER, 60), questions);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.commands;
+
+import com.google.googleinterns.gscribe.services.similarity.LshIndex;
+import com.google.googleinterns.gscribe.services.similarity.MinHash;
+import com.google.googleinterns.gscribe.services.similarity.SimilarPair;
+import io.dropwizard.cli.Command;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+import java.util.*;
+
+/**
+ * Measures near-duplicate detection over synthetic answers to one question, no database is needed
+ * Answers are random words, some are planted as copies of others with a few words replaced and some as exact copies
+ * "pairwise" compares the signatures of every pair of answers, "lsh" is LshIndex as used by the similarity endpoint
+ * Reports time to sign the answers, time to find pairs both ways and how many planted copies LSH found
+ */
+public class BenchmarkSimilarityCommand extends Command {
+
+    private static final int VOCABULARY = 5000;
+    private static final int WORD_LENGTH = 6;
+
+    public BenchmarkSimilarityCommand() {
+        super("benchmark-similarity", "Compares pairwise and LSH near-duplicate detection over synthetic answers");
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        subparser.addArgument("--answers").type(Integer.class).setDefault(10000).help("answers to the question");
+        subparser.addArgument("--words").type(Integer.class).setDefault(80).help("words per answer");
+        subparser.addArgument("--edited").type(Integer.class).setDefault(50).help("planted copies with words replaced");
+        subparser.addArgument("--edits").type(Integer.class).setDefault(2).help("words replaced in each edited copy");
+        subparser.addArgument("--copies").type(Integer.class).setDefault(20).help("planted exact copies");
+        subparser.addArgument("--threshold").type(Double.class).setDefault(0.7).help("lowest similarity of pairs to be found");
+        subparser.addArgument("--seed").type(Long.class).setDefault(42L).help("seed of the synthetic answers");
+    }
+
+    @Override
+    public void run(Bootstrap<?> bootstrap, Namespace namespace) {
+        int count = namespace.getInt("answers");
+        int edited = namespace.getInt("edited");
+        int copies = namespace.getInt("copies");
+        double threshold = namespace.getDouble("threshold");
+        if (2 * (edited + copies) > count) throw new IllegalArgumentException("Too many planted copies for " + count + " answers");
+        Random random = new Random(namespace.getLong("seed"));
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) vocabulary[i] = randomWord(random);
+
+        List<String[]> answers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] words = new String[namespace.getInt("words")];
+            for (int j = 0; j < words.length; j++) words[j] = vocabulary[random.nextInt(VOCABULARY)];
+            answers.add(words);
+        }
+        Set<Long> planted = new HashSet<>();
+        for (int i = 0; i < edited + copies; i++) {
+            String[] copy = answers.get(i).clone();
+            if (i < edited) {
+                for (int j = 0; j < namespace.getInt("edits"); j++) copy[random.nextInt(copy.length)] = vocabulary[random.nextInt(VOCABULARY)];
+            }
+            answers.set(count - 1 - i, copy);
+            planted.add(pairKey(i, count - 1 - i));
+        }
+
+        long start = System.nanoTime();
+        List<int[]> signatures = new ArrayList<>(count);
+        for (String[] words : answers) signatures.add(MinHash.signatureOf(String.join(" ", words)));
+        long signing = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int pairwiseFound = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                if (MinHash.similarity(signatures.get(i), signatures.get(j)) >= threshold) pairwiseFound++;
+            }
+        }
+        long pairwise = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        LshIndex index = new LshIndex(threshold);
+        for (int i = 0; i < count; i++) index.add(i, signatures.get(i));
+        List<SimilarPair> pairs = index.findPairs(threshold, Integer.MAX_VALUE);
+        long lsh = System.nanoTime() - start;
+
+        int editedFound = 0, copiesFound = 0;
+        for (SimilarPair pair : pairs) {
+            int first = Math.min(pair.getFirst(), pair.getSecond());
+            if (!planted.contains(pairKey(first, Math.max(pair.getFirst(), pair.getSecond())))) continue;
+            if (first < edited) editedFound++;
+            else copiesFound++;
+        }
+
+        System.out.println(String.format("%10s %12s %14s %12s", "answers", "signing (ms)", "pairwise (ms)", "lsh (ms)"));
+        System.out.println(String.format("%10d %12.2f %14.2f %12.2f", count, signing / 1e6, pairwise / 1e6, lsh / 1e6));
+        System.out.println(String.format("pairwise found %d pairs, lsh found %d pairs, %d/%d edited copies and %d/%d exact copies",
+                pairwiseFound, pairs.size(), editedFound, edited, copiesFound, copies));
+    }
+
+    private long pairKey(int first, int second) {
+        return ((long) first << 32) | second;
+    }
+
+    private String randomWord(Random random) {
+        char[] letters = new char[WORD_LENGTH];
+        for (int i = 0; i < WORD_LENGTH; i++) letters[i] = (char) ('a' + random.nextInt(26));
+        return new String(letters);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.commands;
+
+import com.google.googleinterns.gscribe.GScribeConfiguration;
+import com.google.googleinterns.gscribe.dao.*;
+import com.google.googleinterns.gscribe.migrations.SchemaMigrator;
+import com.google.googleinterns.gscribe.modules.DBConnectorModule;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the query plan of every DAO statement against a local MySQL
+ * Migrates the configured database, then runs EXPLAIN on each @SqlQuery, @SqlUpdate and @SqlBatch statement with sample values bound
+ * Fails ( non zero exit ) if any statement reads a table with a full table scan or a full index scan
+ * Plans depend on table statistics, so the database should hold data representative of production
+ */
+public class ExplainQueriesCommand extends ConfiguredCommand<GScribeConfiguration> {
+
+    private static final List<Class<?>> DAOS = Arrays.asList(UserTokenDao.class, ExamMetadataDao.class, QuestionsDao.class,
+            ExamInstanceDao.class, AnswerDao.class, ExamShardDao.class, ExamArchiveDao.class, IdSequenceDao.class,
+            IdempotencyKeyDao.class, ExamAnalyticsDao.class);
+    private static final Set<String> FULL_SCANS = new HashSet<>(Arrays.asList("ALL", "index"));
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+
+    public ExplainQueriesCommand() {
+        super("explain-queries", "Fails if any DAO statement does a full scan");
+    }
+
+    @Override
+    protected void run(Bootstrap<GScribeConfiguration> bootstrap, Namespace namespace, GScribeConfiguration configuration) {
+        DBI dbi = new DBConnectorModule(configuration.getMySQLConfig()).dBIProvider();
+        new SchemaMigrator(dbi).migrate();
+
+        List<String> failures = new ArrayList<>();
+        try (Handle handle = dbi.open()) {
+            for (Class<?> dao : DAOS) {
+                for (Method method : dao.getMethods()) {
+                    String sql = statementOf(method);
+                    if (sql == null) continue;
+                    String name = dao.getSimpleName() + "." + method.getName();
+                    for (Map<String, Object> row : handle.select("EXPLAIN " + withSampleValues(sql, method))) {
+                        String selectType = String.valueOf(row.get("select_type"));
+                        if (selectType.equals("INSERT") || selectType.equals("REPLACE")) continue;
+                        if (FULL_SCANS.contains(String.valueOf(row.get("type")))) {
+                            failures.add(name + " scans " + row.get("table") + " ( type " + row.get("type") + " )");
+                        }
+                    }
+                    System.out.println("checked " + name);
+                }
+            }
+        }
+        if (!failures.isEmpty()) {
+            failures.forEach(System.err::println);
+            throw new IllegalStateException(failures.size() + " DAO statements do a full scan");
+        }
+        System.out.println("No DAO statement does a full scan");
+    }
+
+    private String statementOf(Method method) {
+        if (method.isAnnotationPresent(SqlQuery.class)) return method.getAnnotation(SqlQuery.class).value();
+        if (method.isAnnotationPresent(SqlUpdate.class)) return method.getAnnotation(SqlUpdate.class).value();
+        if (method.isAnnotationPresent(SqlBatch.class)) return method.getAnnotation(SqlBatch.class).value();
+        return null;
+    }
+
+    /**
+     * Replaces named parameters with literals of the bound parameter type, parameters bound from beans get literals of the bean property type
+     * Parameters with no known type are replaced with NULL
+     *
+     * @param sql    ( statement of the DAO method )
+     * @param method ( DAO method )
+     * @return statement with literals
+     */
+    private String withSampleValues(String sql, Method method) {
+        Map<String, String> samples = new HashMap<>();
+        Annotation[][] annotations = method.getParameterAnnotations();
+        Type[] types = method.getGenericParameterTypes();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof Bind) samples.put(((Bind) annotation).value(), sampleOf(types[i]));
+                if (annotation instanceof BindBean) samples.putAll(beanSamplesOf(method.getParameterTypes()[i]));
+            }
+        }
+        Matcher matcher = NAMED_PARAMETER.matcher(sql);
+        StringBuffer out = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(out, Matcher.quoteReplacement(samples.getOrDefault(matcher.group(1), "NULL")));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+
+    /**
+     * @param bean ( class of a parameter bound with @BindBean, bound without prefix )
+     * @return sample literal of each bean property by property name
+     */
+    private Map<String, String> beanSamplesOf(Class<?> bean) {
+        Map<String, String> samples = new HashMap<>();
+        try {
+            for (PropertyDescriptor property : Introspector.getBeanInfo(bean).getPropertyDescriptors()) {
+                if (property.getReadMethod() != null) samples.put(property.getName(), sampleOf(property.getReadMethod().getGenericReturnType()));
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException("Unable to read properties of " + bean.getName(), e);
+        }
+        return samples;
+    }
+
+    private String sampleOf(Type type) {
+        if (type instanceof ParameterizedType) type = ((ParameterizedType) type).getActualTypeArguments()[0];
+        if (type == int.class || type == Integer.class || type == long.class || type == Long.class) return "1";
+        if (type == String.class) return "'sample'";
+        if (type == Timestamp.class) return "CURRENT_TIMESTAMP";
+        if (type == byte[].class) return "x'00'";
+        return "NULL";
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.commands;
+
+import com.google.googleinterns.gscribe.GScribeConfiguration;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.migrations.SchemaMigrator;
+import com.google.googleinterns.gscribe.modules.DBConnectorModule;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.PreparedBatch;
+import org.skife.jdbi.v2.PreparedBatchPart;
+import org.skife.jdbi.v2.ResultIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Moves exam instances and answers of an exam to another shard
+ * Rows are copied to the target shard, the shard map is switched, and after running servers have dropped their cached
+ * mapping the copy is repeated to merge in rows written to the source meanwhile, then the rows are deleted from the source shard
+ * Refuses to move an exam with exam instances in progress, as their answers could be written to either shard during the switch
+ * Instances started during the switch are found after the second copy, the source rows are then kept and running
+ * the command again once they are submitted finishes the move
+ */
+public class RebalanceExamCommand extends ConfiguredCommand<GScribeConfiguration> {
+
+    private static final List<String> INSTANCE_KEYS = Arrays.asList("id", "exam_id");
+    private static final List<String> ANSWER_KEYS = Arrays.asList("exam_instance_id", "question_num", "exam_id");
+    private static final String VERSION = "version";
+
+    public RebalanceExamCommand() {
+        super("rebalance-exam", "Moves exam instances and answers of an exam to another shard");
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("--exam-id").dest("examID").type(Integer.class).required(true).help("exam to move");
+        subparser.addArgument("--to-shard").dest("toShard").type(Integer.class).required(true).help("index of target shard, 0 is the primary");
+    }
+
+    @Override
+    protected void run(Bootstrap<GScribeConfiguration> bootstrap, Namespace namespace, GScribeConfiguration configuration) throws Exception {
+        int examID = namespace.getInt("examID");
+        int toShard = namespace.getInt("toShard");
+        int batchSize = configuration.getMySQLConfig().getBatchSize();
+        DBConnectorModule module = new DBConnectorModule(configuration.getMySQLConfig(), configuration.getReadReplicaConfig(),
+                configuration.getShardConfig());
+        DBI dbi = module.dBIProvider();
+        new SchemaMigrator(dbi).migrate();
+        ShardRouter shardRouter = module.shardRouterProvider(dbi);
+        if (toShard < 0 || toShard >= shardRouter.getShards().size())
+            throw new IllegalArgumentException("Shard " + toShard + " is not configured");
+
+        Shard source = shardRouter.forExam(examID);
+        Shard target = shardRouter.getShards().get(toShard);
+        if (source == target) {
+            source = leftoverShard(shardRouter, target, examID);
+            if (source == null) {
+                System.out.println("Exam " + examID + " is already on shard " + toShard);
+                return;
+            }
+            System.out.println("Finishing move of exam " + examID + " from shard " + source.getIndex());
+        } else {
+            new SchemaMigrator(target.getDbi()).migrate();
+            if (activeInstances(source, examID) > 0)
+                throw new IllegalStateException("Exam " + examID + " has exam instances in progress");
+
+            int copied = copy(source, target, examID, batchSize);
+            shardRouter.moveExam(examID, toShard);
+            System.out.println("Copied " + copied + " exam instances, waiting for servers to pick up the new shard");
+            TimeUnit.SECONDS.sleep(configuration.getShardConfig().getShardMapCacheSeconds());
+        }
+
+        int copied = copy(source, target, examID, batchSize);
+        if (activeInstances(target, examID) > 0)
+            throw new IllegalStateException("Exam " + examID + " has exam instances started during the move, its rows on shard " +
+                    source.getIndex() + " are kept, run again once they are submitted");
+        try (Handle handle = source.getDbi().open()) {
+            handle.inTransaction((transactionHandle, status) -> {
+                transactionHandle.execute("DELETE FROM answers WHERE exam_id = ?", examID);
+                transactionHandle.execute("DELETE FROM exam_instance WHERE exam_id = ?", examID);
+                return null;
+            });
+        }
+        System.out.println("Moved " + copied + " exam instances of exam " + examID + " from shard " + source.getIndex() + " to shard " + toShard);
+    }
+
+    /**
+     * Called when the exam is already mapped to the target, finds the source shard of an earlier run which stopped before deleting
+     *
+     * @return shard other than the target holding exam instances of the exam, null if there is none
+     */
+    private Shard leftoverShard(ShardRouter shardRouter, Shard target, int examID) {
+        for (Shard shard : shardRouter.getShards()) {
+            if (shard == target) continue;
+            try (Handle handle = shard.getDbi().open()) {
+                Integer found = handle.createQuery("SELECT 1 FROM exam_instance WHERE exam_id = :exam_id LIMIT 1")
+                        .bind("exam_id", examID)
+                        .mapTo(Integer.class)
+                        .first();
+                if (found != null) return shard;
+            }
+        }
+        return null;
+    }
+
+    private int activeInstances(Shard shard, int examID) {
+        try (Handle handle = shard.getDbi().open()) {
+            return handle.createQuery("SELECT COUNT(*) FROM exam_instance WHERE exam_id = :exam_id AND start_time IS NOT NULL AND end_time IS NULL")
+                    .bind("exam_id", examID)
+                    .mapTo(Integer.class)
+                    .first();
+        }
+    }
+
+    /**
+     * Copies exam instances and their answers in one transaction on the target, merging into rows already on the target
+     * An exam instance keeps the start, end and score set on either shard, an answer keeps the highest version
+     * Rows are read by exam id, so only the exam's partition is scanned, and streamed to the target in batches
+     *
+     * @return number of exam instances of the exam on the source
+     */
+    private int copy(Shard source, Shard target, int examID, int batchSize) {
+        try (Handle sourceHandle = source.getDbi().open(); Handle targetHandle = target.getDbi().open()) {
+            return targetHandle.inTransaction((transactionHandle, status) -> {
+                int instances = copyRows(sourceHandle, transactionHandle, "exam_instance", INSTANCE_KEYS, examID, batchSize);
+                copyRows(sourceHandle, transactionHandle, "answers", ANSWER_KEYS, examID, batchSize);
+                return instances;
+            });
+        }
+    }
+
+    /**
+     * @return number of rows copied
+     */
+    private int copyRows(Handle source, Handle target, String table, List<String> keys, int examID, int batchSize) {
+        int copied = 0;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (ResultIterator<Map<String, Object>> iterator = source.createQuery("SELECT * FROM " + table + " WHERE exam_id = :exam_id")
+                .bind("exam_id", examID)
+                .setFetchSize(Integer.MIN_VALUE)
+                .iterator()) {
+            while (iterator.hasNext()) {
+                rows.add(iterator.next());
+                if (rows.size() < batchSize) continue;
+                upsertRows(target, table, rows, keys);
+                copied += rows.size();
+                rows.clear();
+            }
+        }
+        upsertRows(target, table, rows, keys);
+        return copied + rows.size();
+    }
+
+    /**
+     * Inserts rows, a row whose key is already present is merged as described on copy
+     * Answers are merged like AnswerDao.UPSERT_ANSWER, version is assigned last so the comparisons use the stored version
+     *
+     * @param keys ( primary key columns of the table )
+     */
+    private void upsertRows(Handle handle, String table, List<Map<String, Object>> rows, List<String> keys) {
+        if (rows.isEmpty()) return;
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        List<String> updates = new ArrayList<>();
+        for (String column : columns) {
+            if (keys.contains(column) || column.equals(VERSION)) continue;
+            updates.add(columns.contains(VERSION) ?
+                    column + " = IF(VALUES(" + VERSION + ") >= " + VERSION + ", VALUES(" + column + "), " + column + ")" :
+                    column + " = COALESCE(" + column + ", VALUES(" + column + "))");
+        }
+        if (columns.contains(VERSION)) updates.add(VERSION + " = GREATEST(" + VERSION + ", VALUES(" + VERSION + "))");
+        PreparedBatch batch = handle.prepareBatch("INSERT INTO " + table + " ( " + String.join(", ", columns) + " ) VALUES ( " +
+                columns.stream().map(column -> ":" + column).collect(Collectors.joining(", ")) + " ) " +
+                "ON DUPLICATE KEY UPDATE " + String.join(", ", updates));
+        for (Map<String, Object> row : rows) {
+            PreparedBatchPart part = batch.add();
+            for (String column : columns) part.bind(column, row.get(column));
+        }
+        batch.execute();
+    }
+}
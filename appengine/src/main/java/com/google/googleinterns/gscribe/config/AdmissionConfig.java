@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+public class AdmissionConfig {
+    private int initialLimit = 50;
+    private int minLimit = 5;
+    private int maxLimit = 500;
+    private long targetLatencyMillis = 250;
+    private double backoffRatio = 0.9;
+    private int maxQueueSize = 20000;
+    private int ticketTimeoutSeconds = 30;
+    private int pollIntervalMillis = 1000;
+
+    public AdmissionConfig() {
+    }
+
+    /**
+     * Number of exam starts allowed in flight before any latency is observed
+     */
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Latency of an exam start above which the limit is lowered, below it the limit grows
+     */
+    public long getTargetLatencyMillis() {
+        return targetLatencyMillis;
+    }
+
+    /**
+     * Factor the limit is multiplied with when latency is above target
+     */
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * Maximum number of waiting clients, further clients are refused with 503
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Time a waiting client may go without polling before it loses its place, also the time an admitted client has to claim its slot
+     */
+    public int getTicketTimeoutSeconds() {
+        return ticketTimeoutSeconds;
+    }
+
+    /**
+     * Interval waiting clients are told to poll at
+     */
+    public int getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+public class AnalyticsConfig {
+    private int queueCapacity = 10000;
+    private int snapshotIntervalSeconds = 60;
+    private int idleMinutes = 120;
+
+    public AnalyticsConfig() {
+    }
+
+    /**
+     * Number of submissions waiting to be counted, past it a submission is dropped and its exam is recounted on next use
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+
+    /**
+     * Time after which statistics of an exam with no submissions or reads are dropped from memory, once saved
+     */
+    public int getIdleMinutes() {
+        return idleMinutes;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+public class AnswerIngestionConfig {
+    private int queueCapacity = 10000;
+    private int maxBatchSize = 200;
+    private long flushIntervalMillis = 20;
+    private long enqueueTimeoutMillis = 100;
+    private long commitTimeoutMillis = 10000;
+
+    public AnswerIngestionConfig() {
+    }
+
+    /**
+     * Maximum number of submissions waiting to be written to a shard, callers are pushed back once it is reached
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Maximum number of submissions written in one transaction
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Maximum time the first submission of a batch waits for more submissions to join it
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * Time a caller waits for space in a full queue before the submission is rejected
+     */
+    public long getEnqueueTimeoutMillis() {
+        return enqueueTimeoutMillis;
+    }
+
+    /**
+     * Time a caller waits for its submission to be committed
+     */
+    public long getCommitTimeoutMillis() {
+        return commitTimeoutMillis;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+public class ArchiveConfig {
+    private String directory = "archive";
+    private int retainTerms = 6;
+    private int maintenanceIntervalMinutes = 60;
+    private int reservedExamIDs = 1000000;
+
+    public ArchiveConfig() {
+    }
+
+    /**
+     * Directory archive files are written to and read from, has to be shared by all servers
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Number of ended terms kept in the database besides the current one, older terms are archived
+     */
+    public int getRetainTerms() {
+        return retainTerms;
+    }
+
+    public int getMaintenanceIntervalMinutes() {
+        return maintenanceIntervalMinutes;
+    }
+
+    /**
+     * Number of exam ids reserved for each term, exams created beyond it land in pmax and are moved when the next term is split
+     */
+    public int getReservedExamIDs() {
+        return reservedExamIDs;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+public class ExamEventsConfig {
+    private int writerThreads = 2;
+    private int maxConnections = 5000;
+    private int heartbeatSeconds = 15;
+    private int remainingTimeSeconds = 10;
+    private int maxPendingEvents = 64;
+
+    public ExamEventsConfig() {
+    }
+
+    /**
+     * Threads writing events to all streams, writes never block so a few threads serve every connection
+     */
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    /**
+     * Maximum number of open event streams on this server, further connections are refused with 503
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Interval of comment lines sent on every stream, keeps proxies and load balancers from closing idle streams
+     */
+    public int getHeartbeatSeconds() {
+        return heartbeatSeconds;
+    }
+
+    /**
+     * Interval of remaining time events, clients count down locally between them
+     */
+    public int getRemainingTimeSeconds() {
+        return remainingTimeSeconds;
+    }
+
+    /**
+     * Maximum number of events waiting to be written to one stream, a stream whose client falls further behind is closed
+     */
+    public int getMaxPendingEvents() {
+        return maxPendingEvents;
+    }
+}
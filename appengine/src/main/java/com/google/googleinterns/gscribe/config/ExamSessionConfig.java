@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+public class ExamSessionConfig {
+    private long tickMillis = 100;
+    private int wheelSize = 64;
+    private int wheelLevels = 4;
+    private int gracePeriodSeconds = 30;
+
+    public ExamSessionConfig() {
+    }
+
+    /**
+     * Resolution of exam deadlines, an exam instance is submitted within one tick after its deadline
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Slots per level of the timing wheel, with defaults 4 levels reach 64^4 ticks, about 19 days
+     */
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public int getWheelLevels() {
+        return wheelLevels;
+    }
+
+    /**
+     * Time after the deadline answers are still accepted, covers network delay of the last autosave
+     */
+    public int getGracePeriodSeconds() {
+        return gracePeriodSeconds;
+    }
+}
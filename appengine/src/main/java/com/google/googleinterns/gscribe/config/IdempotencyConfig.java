@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+public class IdempotencyConfig {
+    private int cacheSize = 100000;
+    private int retentionHours = 24;
+    private int cleanupIntervalMinutes = 30;
+
+    public IdempotencyConfig() {
+    }
+
+    /**
+     * Number of recent keys held in memory, older keys are read from the database
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Time a key is kept, a retry after it runs the request again
+     */
+    public int getRetentionHours() {
+        return retentionHours;
+    }
+
+    public int getCleanupIntervalMinutes() {
+        return cleanupIntervalMinutes;
+    }
+}
@@ -20,6 +20,8 @@ public class MySQLConfig {
     private String url;
     private String userName;
     private String password;
+    private int batchSize = 500;
+    private int idBlockSize = 1000;
 
     public MySQLConfig() {
     }
@@ -35,4 +37,18 @@ public class MySQLConfig {
     public String getPassword() {
         return password;
     }
+
+    /**
+     * Maximum number of rows sent in one batch, batches are rewritten into multi-row inserts by the driver
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Number of ids a server reserves from an id sequence at a time
+     */
+    public int getIdBlockSize() {
+        return idBlockSize;
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReadReplicaConfig {
+    @Valid
+    private List<MySQLConfig> replicas = new ArrayList<>();
+    private int maxLagSeconds = 5;
+    private int lagCheckIntervalSeconds = 5;
+    private int readYourWritesSeconds = 10;
+
+    public ReadReplicaConfig() {
+    }
+
+    /**
+     * Replicas of the primary database serving reads, reads go to the primary when empty
+     */
+    public List<MySQLConfig> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * A replica lagging behind the primary by more than this is taken out of rotation till it catches up
+     */
+    public int getMaxLagSeconds() {
+        return maxLagSeconds;
+    }
+
+    public int getLagCheckIntervalSeconds() {
+        return lagCheckIntervalSeconds;
+    }
+
+    /**
+     * For this long after a caller writes, its reads go to the primary so it sees its own writes
+     */
+    public int getReadYourWritesSeconds() {
+        return readYourWritesSeconds;
+    }
+}
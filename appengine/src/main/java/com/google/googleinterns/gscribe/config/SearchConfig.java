@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+public class SearchConfig {
+    private int maxIndexedQuestions = 2_000_000;
+    private int rebuildMinutes = 30;
+
+    public SearchConfig() {
+    }
+
+    /**
+     * Number of questions kept in question bank indexes over all users, indexes of users not searching recently are dropped past it
+     */
+    public int getMaxIndexedQuestions() {
+        return maxIndexedQuestions;
+    }
+
+    /**
+     * Age after which an index is rebuilt from the database on next search, so exams created through other servers are found
+     */
+    public int getRebuildMinutes() {
+        return rebuildMinutes;
+    }
+}
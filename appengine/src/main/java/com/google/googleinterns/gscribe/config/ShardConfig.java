@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.config;
+
+import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShardConfig {
+    @Valid
+    private List<MySQLConfig> shards = new ArrayList<>();
+    private int shardMapCacheSeconds = 60;
+
+    public ShardConfig() {
+    }
+
+    /**
+     * Databases holding exam instances and answers besides the primary, which is always shard 0
+     * Exam instance ids are kept unique across shards through per shard auto increment offsets,
+     * so shards are only appended to this list and existing entries are never reordered
+     */
+    public List<MySQLConfig> getShards() {
+        return shards;
+    }
+
+    /**
+     * How long a server keeps an exam to shard mapping before reading it again, rebalancing waits this long before cleanup
+     */
+    public int getShardMapCacheSeconds() {
+        return shardMapCacheSeconds;
+    }
+}
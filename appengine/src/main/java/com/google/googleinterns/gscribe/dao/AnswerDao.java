@@ -22,6 +22,7 @@ import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.customizers.BatchChunkSize;
 import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
@@ -31,26 +32,55 @@ import java.util.List;
 
 public interface AnswerDao {
 
+    /* answer and signature are assigned before version, so the comparison is made against the stored version */
+    String UPSERT_ANSWER = "INSERT INTO answers ( exam_id, exam_instance_id, question_num, answer, signature, version ) " +
+            "VALUES ( :exam_id, :exam_instance_id, :question_num, :answer, :signature, :version ) " +
+            "ON DUPLICATE KEY UPDATE answer = IF(VALUES(version) >= version, VALUES(answer), answer), " +
+            "signature = IF(VALUES(version) >= version, VALUES(signature), signature), version = GREATEST(version, VALUES(version))";
+
     /**
      * Queries list of all answers for a particular exam instance identified by an exam instance id examInstanceID
+     * Exam id is the partitioning key of answers, so only the partition of the exam is read
      *
+     * @param examID         ( to identify the exam of the exam instance )
      * @param examInstanceID ( to identify particular exam instance )
      * @return List of answers
      */
     @Mapper(AnswerDao.AnswerMapper.class)
-    @SqlQuery("SELECT * from answers where exam_instance_id = :exam_instance_id")
-    List<Answer> getAnswersByExamInstanceID(@Bind("exam_instance_id") int examInstanceID);
+    @SqlQuery("SELECT question_num, answer, version from answers where exam_id = :exam_id and exam_instance_id = :exam_instance_id")
+    List<Answer> getAnswersByExamInstanceID(@Bind("exam_id") int examID, @Bind("exam_instance_id") int examInstanceID);
 
     /**
-     * Called to insert answers into the database for an exam instance ID
-     * Inserts All responses for a corresponding exam instance
+     * Called to save answers of an exam instance
+     * One row is kept per ( exam instance, question ), an answer replaces the stored one only if its version is not older
+     * so a delayed autosave can not overwrite a newer answer for the same question
      *
+     * @param examID         ( to identify the exam of the exam instance )
      * @param examInstanceID ( to identify particular exam instance )
      * @param questionNumber ( question number of corresponding answer )
      * @param answers        ( answer JSON )
+     * @param signatures     ( MinHash signature of corresponding answer text, null if the text is too short )
+     * @param versions       ( client version of corresponding answer )
+     */
+    @SqlBatch(UPSERT_ANSWER)
+    void upsertAnswers(@Bind("exam_id") int examID, @Bind("exam_instance_id") int examInstanceID, @Bind("question_num") List<Integer> questionNumber, @Bind("answer") List<String> answers,
+                       @Bind("signature") List<byte[]> signatures, @Bind("version") List<Integer> versions);
+
+    /**
+     * Called by answer ingestion to save answers of many exam instances together, with same semantics as upsertAnswers
+     * The lists are parallel, each index is one answer row
+     *
+     * @param examIDs         ( exam id of each answer )
+     * @param examInstanceIDs ( exam instance id of each answer )
+     * @param questionNumbers ( question number of each answer )
+     * @param answers         ( answer JSON of each answer )
+     * @param signatures      ( MinHash signature of each answer text, null if the text is too short )
+     * @param versions        ( client version of each answer )
+     * @param batchSize       ( number of rows sent to the database per batch )
      */
-    @SqlBatch("INSERT INTO answers ( exam_instance_id, answer, question_num ) VALUES ( :exam_instance_id, :answer, :question_num )")
-    void insertAnswers(@Bind("exam_instance_id") int examInstanceID, @Bind("question_num") List<Integer> questionNumber, @Bind("answer") List<String> answers);
+    @SqlBatch(UPSERT_ANSWER)
+    void upsertAnswerBatch(@Bind("exam_id") List<Integer> examIDs, @Bind("exam_instance_id") List<Integer> examInstanceIDs, @Bind("question_num") List<Integer> questionNumbers, @Bind("answer") List<String> answers,
+                           @Bind("signature") List<byte[]> signatures, @Bind("version") List<Integer> versions, @BatchChunkSize int batchSize);
 
     /**
      * A Mapper class to map answer JSON object from MySQL database to Answer class
@@ -58,7 +88,10 @@ public interface AnswerDao {
     class AnswerMapper implements ResultSetMapper<Answer> {
         @Override
         public Answer map(int i, ResultSet resultSet, StatementContext statementContext) throws SQLException {
-            return new Gson().fromJson(resultSet.getString("answer"), Answer.class);
+            Answer answer = new Gson().fromJson(resultSet.getString("answer"), Answer.class);
+            answer.setQuestionNum(resultSet.getInt("question_num"));
+            answer.setVersion(resultSet.getInt("version"));
+            return answer;
         }
     }
 
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao;
+
+import com.google.googleinterns.gscribe.models.AnalyticsSnapshot;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public interface ExamAnalyticsDao {
+
+    /**
+     * Called periodically for exams whose statistics changed since they were last saved
+     *
+     * @param snapshot ( analytics snapshot object )
+     */
+    @SqlUpdate("INSERT INTO exam_analytics( exam_id, submissions, snapshot ) VALUES ( :examID, :submissions, :snapshot ) " +
+            "ON DUPLICATE KEY UPDATE submissions = VALUES(submissions), snapshot = VALUES(snapshot)")
+    void upsertSnapshot(@BindBean AnalyticsSnapshot snapshot);
+
+    /**
+     * Called when statistics of an exam are not in memory, which is the case after a restart or on another server
+     *
+     * @param examID ( to identify particular exam )
+     * @return saved statistics, null if none were saved
+     */
+    @Mapper(ExamAnalyticsDao.AnalyticsSnapshotMapper.class)
+    @SqlQuery("SELECT exam_id, submissions, snapshot from exam_analytics where exam_id = :exam_id")
+    AnalyticsSnapshot getSnapshot(@Bind("exam_id") int examID);
+
+    /**
+     * A mapper class to map exam analytics responses to analytics snapshot object
+     */
+    class AnalyticsSnapshotMapper implements ResultSetMapper<AnalyticsSnapshot> {
+        @Override
+        public AnalyticsSnapshot map(int i, ResultSet resultSet, StatementContext statementContext) throws SQLException {
+            return new AnalyticsSnapshot(
+                    resultSet.getInt("exam_id"),
+                    resultSet.getInt("submissions"),
+                    resultSet.getString("snapshot")
+            );
+        }
+    }
+
+}
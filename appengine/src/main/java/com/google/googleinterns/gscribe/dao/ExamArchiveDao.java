@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao;
+
+import com.google.googleinterns.gscribe.models.ExamArchive;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+public interface ExamArchiveDao {
+
+    /**
+     * Called once a term partition is written to archive files, before the partition is dropped
+     * Ignored if the partition was archived before, which happens when an earlier run failed before dropping it
+     *
+     * @param examArchive ( exam archive object )
+     */
+    @SqlUpdate("INSERT IGNORE INTO exam_archive( shard, term, first_exam_id, end_exam_id, instance_count, answer_count ) " +
+            "VALUES ( :shard, :term, :firstExamID, :endExamID, :instanceCount, :answerCount )")
+    void insertExamArchive(@BindBean ExamArchive examArchive);
+
+    /**
+     * Called when a partition changed while it was being archived, the partition is kept and archived again on a later run
+     *
+     * @param shard ( index of the shard )
+     * @param term  ( term as yyyymm )
+     */
+    @SqlUpdate("DELETE from exam_archive where shard = :shard and term = :term")
+    void deleteExamArchive(@Bind("shard") int shard, @Bind("term") int term);
+
+    /**
+     * Called to find archives which may hold exam instances of an exam
+     * Partitions are by exam id, so exactly one archive of each shard covers an exam, the one of the shard the exam was on holds its instances
+     *
+     * @param examID ( to identify particular exam )
+     * @return list of archives covering the exam, one per shard which archived its term
+     */
+    @Mapper(ExamArchiveDao.ExamArchiveMapper.class)
+    @SqlQuery("SELECT * from exam_archive where end_exam_id > :exam_id and first_exam_id <= :exam_id order by shard")
+    List<ExamArchive> getExamArchives(@Bind("exam_id") int examID);
+
+    /**
+     * Called before archiving partitions of a shard, the first exam id of the next archive is the end exam id of the last one
+     * Served by the primary key on ( shard, term )
+     *
+     * @param shard ( index of the shard )
+     * @return end exam id of the last archive of the shard, 0 if it has none
+     */
+    @SqlQuery("SELECT COALESCE(MAX(end_exam_id), 0) from exam_archive where shard = :shard")
+    int getArchivedExamIDBoundary(@Bind("shard") int shard);
+
+    /**
+     * A mapper class to map exam archive responses to exam archive object
+     */
+    class ExamArchiveMapper implements ResultSetMapper<ExamArchive> {
+        @Override
+        public ExamArchive map(int i, ResultSet resultSet, StatementContext statementContext) throws SQLException {
+            return new ExamArchive(
+                    resultSet.getInt("shard"),
+                    resultSet.getInt("term"),
+                    resultSet.getInt("first_exam_id"),
+                    resultSet.getInt("end_exam_id"),
+                    resultSet.getInt("instance_count"),
+                    resultSet.getInt("answer_count")
+            );
+        }
+    }
+
+}
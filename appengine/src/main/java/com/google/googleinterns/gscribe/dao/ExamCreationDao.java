@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao;
+
+import com.google.googleinterns.gscribe.dao.codec.QuestionCodec;
+import com.google.googleinterns.gscribe.models.Exam;
+import com.google.googleinterns.gscribe.models.Question;
+import org.skife.jdbi.v2.sqlobject.CreateSqlObject;
+import org.skife.jdbi.v2.sqlobject.Transaction;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntUnaryOperator;
+
+public abstract class ExamCreationDao {
+
+    @CreateSqlObject
+    public abstract ExamMetadataDao examMetadataDao();
+
+    @CreateSqlObject
+    public abstract QuestionsDao questionsDao();
+
+    @CreateSqlObject
+    public abstract ExamShardDao examShardDao();
+
+    /**
+     * Called for creation of new exam when paper setter submits question paper
+     * Inserts exam metadata, all questions of the exam and its shard placement in a single transaction
+     * So either the exam is created with all its questions or nothing is written
+     * Questions are sent in batches of batchSize rows which the driver rewrites into multi-row inserts
+     * Each distinct question is stored once by its hash, questions repeated within the exam or used by earlier exams are only linked
+     *
+     * @param exam       ( exam object, exam id is set on its metadata )
+     * @param placement  ( shard of the exam given its id )
+     * @param batchSize  ( number of question rows sent to the database per batch )
+     * @return exam id for newly created exam
+     */
+    @Transaction
+    public int insertExam(Exam exam, IntUnaryOperator placement, int batchSize) {
+        int examID = examMetadataDao().insertExamMetadata(exam.getExamMetadata());
+        exam.getExamMetadata().setId(examID);
+        examShardDao().insertShard(examID, placement.applyAsInt(examID));
+
+        Map<ByteBuffer, byte[]> contents = new TreeMap<>();
+        List<byte[]> questionHash = new ArrayList<>(exam.getQuestions().size());
+        List<Integer> questionNum = new ArrayList<>(exam.getQuestions().size());
+        for (Question question : exam.getQuestions()) {
+            byte[] questionData = QuestionCodec.encode(question);
+            byte[] hash = QuestionCodec.hash(questionData);
+            contents.putIfAbsent(ByteBuffer.wrap(hash), questionData);
+            questionHash.add(hash);
+            questionNum.add(question.getQuestionNumber());
+        }
+        if (questionHash.isEmpty()) return examID;
+
+        List<byte[]> hashes = new ArrayList<>(contents.size());
+        for (ByteBuffer hash : contents.keySet()) hashes.add(hash.array());
+        questionsDao().insertQuestionContent(hashes, new ArrayList<>(contents.values()), batchSize);
+        questionsDao().insertExamQuestions(questionHash, examID, questionNum, batchSize);
+        return examID;
+    }
+
+}
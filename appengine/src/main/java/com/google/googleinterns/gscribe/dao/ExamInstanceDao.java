@@ -19,36 +19,89 @@ package com.google.googleinterns.gscribe.dao;
 import com.google.googleinterns.gscribe.models.ExamInstance;
 import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.sqlobject.*;
+import org.skife.jdbi.v2.sqlobject.customizers.BatchChunkSize;
 import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
 
 public interface ExamInstanceDao {
 
     /**
-     * Called for creation of exam instance using ( exam id, user id, student roll number )
+     * Called for creation of exam instance using ( id, exam id, user id, student roll number, start time ) when the examinee is not on the roster
      * User id represents the unique user id of the gmail account used by the user to give exam
-     * Sets the start time to current timestamp automatically and creates a new exam instance id
+     * Exam instance id is taken from the id allocator, so no generated key has to be read back
      *
      * @param examInstance ( exam instance object )
-     * @return exam instance id
      */
-    @SqlUpdate("INSERT into exam_instance(exam_id,user_id,student_roll_num) values (:examID,:userID,:studentRollNum) ")
+    @SqlUpdate("INSERT into exam_instance(id,exam_id,user_id,student_roll_num,start_time) values (:id,:examID,:userID,:studentRollNum,:startTime) ")
+    void insertExamInstance(@BindBean ExamInstance examInstance);
+
+    /**
+     * Called on startup so that the exam instance id sequence starts above ids generated before it was used
+     *
+     * @return largest exam instance id, 0 if there is none
+     */
+    @SqlQuery("SELECT COALESCE(MAX(id), 0) from exam_instance")
+    int getMaxExamInstanceID();
+
+    /**
+     * Called on roster import through RosterDao, before the exam opens, to create exam instances which are not started yet
+     * Rows already on the roster are skipped, so a roster can be imported again with more students
+     * The lists are parallel, each index is one examinee
+     * Counts are not returned, rewritten multi-row batches report SUCCESS_NO_INFO for every row
+     *
+     * @param ids         ( exam instance id of each examinee, from the id allocator )
+     * @param examID      ( to identify particular exam )
+     * @param rollNumbers ( roll number of each examinee )
+     * @param emailIDs    ( email id of each examinee, may be null )
+     * @param batchSize   ( number of rows sent to the database per batch )
+     */
+    @SqlBatch("INSERT IGNORE into exam_instance(id,exam_id,student_roll_num,student_email_id) values (:id,:exam_id,:student_roll_num,:student_email_id)")
+    void insertRoster(@Bind("id") List<Integer> ids, @Bind("exam_id") int examID, @Bind("student_roll_num") List<Integer> rollNumbers,
+                       @Bind("student_email_id") List<String> emailIDs, @BatchChunkSize int batchSize);
+
+    /**
+     * Called on roster import to count examinees added, served by the unique key on ( exam id, roll number )
+     *
+     * @param examID ( to identify particular exam )
+     * @return number of exam instances of the exam, started or not
+     */
+    @SqlQuery("SELECT COUNT(*) from exam_instance where exam_id = :exam_id")
+    int countExamInstances(@Bind("exam_id") int examID);
+
+    /**
+     * Called when an examinee on the roster starts the exam
+     * Stamps start time and user id on the roster row of the roll number if it is not started yet
+     * LAST_INSERT_ID(id) makes the driver return id of the updated row as generated key, so no query is needed to read it
+     *
+     * @param examID     ( to identify particular exam )
+     * @param rollNumber ( roll number of examinee )
+     * @param userID     ( unique user id of user, here examinee )
+     * @param startTime  ( start time of the exam instance )
+     * @return exam instance id, null if roll number is not on the roster or already started
+     */
+    @SqlUpdate("UPDATE exam_instance set start_time = :start_time, user_id = :user_id, id = LAST_INSERT_ID(id) " +
+            "where exam_id = :exam_id and student_roll_num = :student_roll_num and start_time IS NULL")
     @GetGeneratedKeys
-    int insertExamInstance(@BindBean ExamInstance examInstance);
+    Integer startRosteredExamInstance(@Bind("exam_id") int examID, @Bind("student_roll_num") int rollNumber, @Bind("user_id") String userID,
+                                      @Bind("start_time") Timestamp startTime);
 
     /**
      * Called to get exam instance object to verify exam instance metadata received on submission of exam by examinee
      * Queries exam instance for exam instance identified by exam instance id examInstanceID
+     * Exam id is the partitioning key of exam instances, so only the partition of the exam is read
      *
+     * @param examID         ( to identify the exam of the exam instance )
      * @param examInstanceID ( to identify particular exam instance )
-     * @return exam instance object
+     * @return exam instance object, null if it does not belong to the exam
      */
     @Mapper(ExamInstanceDao.ExamInstanceMapper.class)
-    @SqlQuery("SELECT * from exam_instance where id = :exam_instance_id")
-    ExamInstance getExamInstanceByExamInstanceID(@Bind("exam_instance_id") int examInstanceID);
+    @SqlQuery("SELECT * from exam_instance where exam_id = :exam_id and id = :exam_instance_id")
+    ExamInstance getExamInstanceByExamInstanceID(@Bind("exam_id") int examID, @Bind("exam_instance_id") int examInstanceID);
 
     /**
      * Called to check if a examinee identified by roll number rollNumber already attempted the exam represented by examID
@@ -63,13 +116,67 @@ public interface ExamInstanceDao {
     ExamInstance getExamInstanceByUserDetails(@Bind("exam_id") int examID, @Bind("student_roll_num") int rollNumber);
 
     /**
-     * Called to set end time of the exam instance
+     * Called when an exam is first started on a server, to know which roll numbers already attempted it
+     * Queries roll numbers of started exam instances of the exam identified by examID, roster rows not started are left out
+     *
+     * @param examID ( to identify particular exam )
+     * @return list of roll numbers
+     */
+    @SqlQuery("SELECT student_roll_num from exam_instance where exam_id = :exam_id and start_time IS NOT NULL")
+    List<Integer> getAttemptedRollNumbers(@Bind("exam_id") int examID);
+
+    /**
+     * Called on grading to lay out exam instances of the exam as rows of the answer matrix
+     * Queries ids of submitted exam instances of the exam identified by examID in increasing order
+     *
+     * @param examID ( to identify particular exam )
+     * @return list of exam instance ids
+     */
+    @SqlQuery("SELECT id from exam_instance where exam_id = :exam_id and end_time IS NOT NULL order by id")
+    List<Integer> getSubmittedExamInstanceIDs(@Bind("exam_id") int examID);
+
+    /**
+     * Called on grading to write back scores, the driver sends each chunk as one multi statement round trip
+     * The lists are parallel, each index is one exam instance
+     *
+     * @param examID          ( to identify particular exam )
+     * @param examInstanceIDs ( to identify exam instances )
+     * @param scores          ( score of each exam instance )
+     * @param batchSize       ( number of rows sent to the database per batch )
+     */
+    @SqlBatch("UPDATE exam_instance set score = :score where exam_id = :exam_id and id = :exam_instance_id")
+    void updateScores(@Bind("exam_id") int examID, @Bind("exam_instance_id") List<Integer> examInstanceIDs, @Bind("score") List<Integer> scores,
+                      @BatchChunkSize int batchSize);
+
+    /**
+     * Called on startup to rebuild the registry of exam sessions in progress
+     * Queries exam instances which are started and not submitted yet
+     *
+     * @return list of exam instance objects
+     */
+    @Mapper(ExamInstanceDao.ExamInstanceMapper.class)
+    @SqlQuery("SELECT * from exam_instance where end_time IS NULL and start_time IS NOT NULL")
+    List<ExamInstance> getActiveExamInstances();
+
+    /**
+     * Called to set end time of the exam instance, an end time already set is kept
      * Updates end time of the exam instance identified by exam instance id examInstanceID
      *
+     * @param examID         ( to identify the exam of the exam instance )
      * @param examInstanceID ( to identify particular exam instance )
      */
-    @SqlUpdate("UPDATE exam_instance set end_time=CURRENT_TIMESTAMP where id=:exam_instance_id")
-    void updateExamInstanceEndTime(@Bind("exam_instance_id") int examInstanceID);
+    @SqlUpdate("UPDATE exam_instance set end_time=COALESCE(end_time, CURRENT_TIMESTAMP) where exam_id=:exam_id and id=:exam_instance_id")
+    void updateExamInstanceEndTime(@Bind("exam_id") int examID, @Bind("exam_instance_id") int examInstanceID);
+
+    /**
+     * Called to set end time of many exam instances in one batch, an end time already set is kept
+     * The lists are parallel, each index is one exam instance
+     *
+     * @param examIDs         ( exam id of each exam instance )
+     * @param examInstanceIDs ( to identify exam instances )
+     */
+    @SqlBatch("UPDATE exam_instance set end_time=COALESCE(end_time, CURRENT_TIMESTAMP) where exam_id=:exam_id and id=:exam_instance_id")
+    void updateExamInstanceEndTimes(@Bind("exam_id") List<Integer> examIDs, @Bind("exam_instance_id") List<Integer> examInstanceIDs);
 
     /**
      * A mapper class to map exam instance responses to exam instance object
@@ -77,7 +184,7 @@ public interface ExamInstanceDao {
     class ExamInstanceMapper implements ResultSetMapper<ExamInstance> {
         @Override
         public ExamInstance map(int i, ResultSet resultSet, StatementContext statementContext) throws SQLException {
-            return new ExamInstance(
+            ExamInstance examInstance = new ExamInstance(
                     resultSet.getInt("id"),
                     resultSet.getInt("exam_id"),
                     resultSet.getString("user_id"),
@@ -85,6 +192,9 @@ public interface ExamInstanceDao {
                     resultSet.getTimestamp("start_time"),
                     resultSet.getTimestamp("end_time")
             );
+            int score = resultSet.getInt("score");
+            if (!resultSet.wasNull()) examInstance.setScore(score);
+            return examInstance;
         }
     }
 
@@ -24,6 +24,7 @@ import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.List;
 
 public interface ExamMetadataDao {
@@ -56,15 +57,53 @@ public interface ExamMetadataDao {
     ExamMetadata getExamMetadataByExamId(@Bind("exam_id") int examID);
 
     /**
-     * Called to populate exam metadata table on paper setter dashboard
-     * Queries list of exam metadata of exams created by user identified by userID
+     * Called to populate the first page of exam metadata table on paper setter dashboard
+     * Queries at most limit exams created by user identified by userID, newest first
+     * Only the columns shown in the listing are projected and the scan is served by index on ( created_by, created_on, id )
      *
      * @param userID ( unique user id of user, here paper setter )
+     * @param limit  ( maximum number of exams to be returned )
      * @return list of exam metadata
      */
     @Mapper(ExamMetadataDao.ExamMetadataMapper.class)
-    @SqlQuery("SELECT * from exam where created_by = :user_id")
-    List<ExamMetadata> getExamMetadataListByUser(@Bind("user_id") String userID);
+    @SqlQuery("SELECT id, spreadsheet_id, duration, created_on from exam where created_by = :user_id " +
+            "order by created_on desc, id desc limit :limit")
+    List<ExamMetadata> getFirstExamMetadataPageByUser(@Bind("user_id") String userID, @Bind("limit") int limit);
+
+    /**
+     * Called to populate the following pages of exam metadata table on paper setter dashboard
+     * Queries at most limit exams created by user identified by userID which come after the cursor ( createdOn, examID ) in ( created_on, id ) descending order
+     * Seeking on the index instead of using an offset keeps the cost of a page constant irrespective of the number of exams of the user
+     *
+     * @param userID    ( unique user id of user, here paper setter )
+     * @param createdOn ( creation time of last exam of previous page )
+     * @param examID    ( exam id of last exam of previous page )
+     * @param limit     ( maximum number of exams to be returned )
+     * @return list of exam metadata
+     */
+    @Mapper(ExamMetadataDao.ExamMetadataMapper.class)
+    @SqlQuery("SELECT id, spreadsheet_id, duration, created_on from exam where created_by = :user_id " +
+            "and ( created_on < :created_on or ( created_on = :created_on and id < :exam_id ) ) " +
+            "order by created_on desc, id desc limit :limit")
+    List<ExamMetadata> getExamMetadataPageByUser(@Bind("user_id") String userID, @Bind("created_on") Timestamp createdOn, @Bind("exam_id") int examID, @Bind("limit") int limit);
+
+    /**
+     * Called to find where exams of a term end, used as upper bound of the term's partition of exam instances and answers
+     * Exam ids increase with creation time, so every exam created before createdBefore has an id below the result
+     *
+     * @param createdBefore ( start of the next term )
+     * @return one more than the largest id of exams created before createdBefore, 1 if there are none
+     */
+    @SqlQuery("SELECT COALESCE(MAX(id), 0) + 1 from exam where created_on < :created_on")
+    int getExamIDBoundary(@Bind("created_on") Timestamp createdBefore);
+
+    /**
+     * Called when reserving the exam id range of a term, served by the primary key
+     *
+     * @return one more than the largest exam id, 1 if there are no exams
+     */
+    @SqlQuery("SELECT COALESCE(MAX(id), 0) + 1 from exam")
+    int getNextExamID();
 
     /**
      * Called for creation of new exam
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao;
+
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+
+public interface ExamShardDao {
+
+    /**
+     * Called to find the shard holding exam instances and answers of an exam
+     *
+     * @param examID ( to identify particular exam )
+     * @return shard index, null if exam does not exist
+     */
+    @SqlQuery("SELECT shard from exam_shard where exam_id = :exam_id")
+    Integer getShard(@Bind("exam_id") int examID);
+
+    /**
+     * Called to place an exam on a shard when it is created
+     *
+     * @param examID ( to identify particular exam )
+     * @param shard  ( shard index )
+     */
+    @SqlUpdate("INSERT into exam_shard(exam_id, shard) values (:exam_id, :shard)")
+    void insertShard(@Bind("exam_id") int examID, @Bind("shard") int shard);
+
+    /**
+     * Called when an exam is moved to another shard
+     *
+     * @param examID ( to identify particular exam )
+     * @param shard  ( shard index )
+     */
+    @SqlUpdate("UPDATE exam_shard set shard = :shard where exam_id = :exam_id")
+    void updateShard(@Bind("exam_id") int examID, @Bind("shard") int shard);
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao;
+
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.Transaction;
+
+public abstract class IdSequenceDao {
+
+    /**
+     * Called while reserving a block of ids, locks the sequence row till the transaction ends
+     *
+     * @param name ( name of the sequence )
+     * @return next id of the sequence, null if sequence does not exist
+     */
+    @SqlQuery("SELECT next_id from id_sequence where name = :name FOR UPDATE")
+    public abstract Long getNextID(@Bind("name") String name);
+
+    /**
+     * Called while reserving a block of ids, moves the sequence past the reserved block
+     *
+     * @param name   ( name of the sequence )
+     * @param nextID ( first id after the reserved block )
+     */
+    @SqlUpdate("UPDATE id_sequence set next_id = :next_id where name = :name")
+    public abstract void updateNextID(@Bind("name") String name, @Bind("next_id") long nextID);
+
+    /**
+     * Called on startup to make sure the sequence does not hand out ids already used by rows
+     * The sequence is created if it does not exist and is only ever moved forward
+     *
+     * @param name   ( name of the sequence )
+     * @param nextID ( lowest next id for the sequence )
+     */
+    @SqlUpdate("INSERT into id_sequence(name,next_id) values (:name,:next_id) ON DUPLICATE KEY UPDATE next_id = GREATEST(next_id, VALUES(next_id))")
+    public abstract void raiseNextID(@Bind("name") String name, @Bind("next_id") long nextID);
+
+    /**
+     * Called by id allocators to reserve a block of ids
+     * The sequence row is locked while it is read and moved, so servers reserving at the same time get disjoint blocks
+     *
+     * @param name      ( name of the sequence )
+     * @param blockSize ( number of ids to reserve )
+     * @return first id of the reserved block
+     * @throws IllegalStateException ( if sequence does not exist )
+     */
+    @Transaction
+    public long reserveBlock(String name, int blockSize) {
+        Long nextID = getNextID(name);
+        if (nextID == null) throw new IllegalStateException("Sequence " + name + " not found");
+        updateNextID(name, nextID + blockSize);
+        return nextID;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao;
+
+import com.google.googleinterns.gscribe.models.IdempotencyKey;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+public interface IdempotencyKeyDao {
+
+    /**
+     * Called once a request sent with an idempotency key has succeeded
+     * Ignored if the key was stored before, the first stored result is kept
+     *
+     * @param idempotencyKey ( idempotency key object )
+     */
+    @SqlUpdate("INSERT IGNORE INTO idempotency_key( exam_instance_id, idempotency_key, user_id, response ) " +
+            "VALUES ( :examInstanceID, :key, :userID, :response )")
+    void insertIdempotencyKey(@BindBean IdempotencyKey idempotencyKey);
+
+    /**
+     * Called when an idempotency key is not among the recent keys held in memory, which is the case after a restart or on another server
+     *
+     * @param examInstanceID ( to identify particular exam instance )
+     * @param key            ( idempotency key sent by client )
+     * @return stored result, null if key was not stored
+     */
+    @Mapper(IdempotencyKeyDao.IdempotencyKeyMapper.class)
+    @SqlQuery("SELECT * from idempotency_key where exam_instance_id = :exam_instance_id and idempotency_key = :idempotency_key")
+    IdempotencyKey getIdempotencyKey(@Bind("exam_instance_id") int examInstanceID, @Bind("idempotency_key") String key);
+
+    /**
+     * Called periodically to remove keys older than the retention period, in chunks so no long lock is held
+     *
+     * @param before ( keys created before this are removed )
+     * @param limit  ( maximum number of keys removed )
+     * @return number of keys removed
+     */
+    @SqlUpdate("DELETE from idempotency_key where created_on < :before LIMIT :limit")
+    int deleteIdempotencyKeys(@Bind("before") Timestamp before, @Bind("limit") int limit);
+
+    /**
+     * A mapper class to map idempotency key responses to idempotency key object
+     */
+    class IdempotencyKeyMapper implements ResultSetMapper<IdempotencyKey> {
+        @Override
+        public IdempotencyKey map(int i, ResultSet resultSet, StatementContext statementContext) throws SQLException {
+            return new IdempotencyKey(
+                    resultSet.getInt("exam_instance_id"),
+                    resultSet.getString("idempotency_key"),
+                    resultSet.getString("user_id"),
+                    resultSet.getString("response")
+            );
+        }
+    }
+
+}
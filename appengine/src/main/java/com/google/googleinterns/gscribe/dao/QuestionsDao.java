@@ -16,6 +16,7 @@
 
 package com.google.googleinterns.gscribe.dao;
 
+import com.google.googleinterns.gscribe.dao.codec.QuestionCodec;
 import com.google.googleinterns.gscribe.models.MultipleChoiceQuestion;
 import com.google.googleinterns.gscribe.models.Question;
 import com.google.googleinterns.gscribe.models.QuestionType;
@@ -25,6 +26,7 @@ import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.customizers.BatchChunkSize;
 import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
@@ -34,36 +36,53 @@ import java.util.List;
 
 public interface QuestionsDao {
 
+    /**
+     * Called before questions of an exam are linked to it, stores questions which no exam of any user has stored yet
+     * Questions are stored in their compact binary encoding ( see QuestionCodec ) keyed by the hash of the encoding
+     * A question already stored is left untouched, so rows written grow with unique questions and not with exams
+     *
+     * @param hash         ( hash of encoded question, callers pass hashes in sorted order so concurrent inserts lock rows in the same order )
+     * @param questionData ( encoded question )
+     * @param batchSize    ( number of rows sent to the database per batch )
+     */
+    @SqlBatch("insert into question_content( hash, question_data ) values ( :hash, :question_data ) on duplicate key update hash = hash")
+    void insertQuestionContent(@Bind("hash") List<byte[]> hash, @Bind("question_data") List<byte[]> questionData, @BatchChunkSize int batchSize);
+
     /**
      * Called to insert all questions for exam into the database when paper setter submits question paper
-     * Inserts a list of all questions of a particular exam to the database
-     * A JSON object of the question is inserted for the question
+     * Links every question of a particular exam to its stored encoding by hash
      *
-     * @param question    ( question JSON string )
-     * @param examID      ( to identify particular exam )
-     * @param questionNum ( question number of corresponding question )
+     * @param questionHash ( hash of encoded question, stored by insertQuestionContent )
+     * @param examID       ( to identify particular exam )
+     * @param questionNum  ( question number of corresponding question )
+     * @param batchSize    ( number of rows sent to the database per batch )
      */
-    @SqlBatch("insert into questions( exam_id, question, question_num ) values ( :exam_id, :question, :question_num )")
-    void insertExamQuestions(@Bind("question") List<String> question, @Bind("exam_id") int examID, @Bind("question_num") List<Integer> questionNum);
+    @SqlBatch("insert into questions( exam_id, question_hash, question_num ) values ( :exam_id, :question_hash, :question_num )")
+    void insertExamQuestions(@Bind("question_hash") List<byte[]> questionHash, @Bind("exam_id") int examID, @Bind("question_num") List<Integer> questionNum, @BatchChunkSize int batchSize);
 
     /**
      * Called whenever exam object is requested, so questions need to be queried
      * Queries all the questions of the exam identified by exam id examID
+     * Linked questions take their encoding from question_content, rows written before questions were content addressed carry their own
      *
      * @param examID ( to identify particular exam )
      * @return list of question objects
      */
     @Mapper(QuestionsDao.ExamMapper.class)
-    @SqlQuery("SELECT * from questions where exam_id = :exam_id")
+    @SqlQuery("SELECT q.question_num, q.question, COALESCE(c.question_data, q.question_data) AS question_data from questions q " +
+            "left join question_content c on c.hash = q.question_hash where q.exam_id = :exam_id")
     List<Question> getExamQuestions(@Bind("exam_id") int examID);
 
     /**
      * A Mapper class to map a question response to question object
-     * Mapping is done based on the question type
+     * Rows having question_data are decoded from the binary encoding
+     * Rows written before the binary encoding was introduced only have the question JSON, for them mapping is done based on the question type
      */
     class ExamMapper implements ResultSetMapper<Question> {
         @Override
         public Question map(int i, ResultSet resultSet, StatementContext statementContext) throws SQLException {
+            byte[] questionData = resultSet.getBytes("question_data");
+            if (questionData != null) return QuestionCodec.decode(questionData, resultSet.getInt("question_num"));
             Question question = new Gson().fromJson(resultSet.getString("question"), Question.class);
             if (question.getType().equals(QuestionType.MCQ)) {
                 return new Gson().fromJson(resultSet.getString("question"), MultipleChoiceQuestion.class);
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao;
+
+import org.skife.jdbi.v2.sqlobject.CreateSqlObject;
+import org.skife.jdbi.v2.sqlobject.Transaction;
+
+import java.util.List;
+
+public abstract class RosterDao {
+
+    @CreateSqlObject
+    public abstract ExamInstanceDao examInstanceDao();
+
+    /**
+     * Called on roster import, before the exam opens, to create exam instances which are not started yet
+     * Examinees already on the roster are skipped, so a roster can be imported again with more students
+     * The driver rewrites batches into multi-row inserts which report no per row counts, so rows of the exam are counted
+     * before and after the insert in the same transaction instead
+     *
+     * @param ids         ( exam instance id of each examinee, from the id allocator )
+     * @param examID      ( to identify particular exam )
+     * @param rollNumbers ( roll number of each examinee )
+     * @param emailIDs    ( email id of each examinee, may be null )
+     * @param batchSize   ( number of rows sent to the database per batch )
+     * @return number of examinees added
+     */
+    @Transaction
+    public int insertRoster(List<Integer> ids, int examID, List<Integer> rollNumbers, List<String> emailIDs, int batchSize) {
+        int before = examInstanceDao().countExamInstances(examID);
+        examInstanceDao().insertRoster(ids, examID, rollNumbers, emailIDs, batchSize);
+        return examInstanceDao().countExamInstances(examID) - before;
+    }
+
+}
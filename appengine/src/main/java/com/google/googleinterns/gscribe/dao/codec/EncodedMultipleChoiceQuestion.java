@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.codec;
+
+import com.google.googleinterns.gscribe.models.MultipleChoiceQuestion;
+
+import java.util.List;
+
+/**
+ * MultipleChoiceQuestion backed by its binary encoding
+ * Statement and options are decoded on first access
+ */
+class EncodedMultipleChoiceQuestion extends MultipleChoiceQuestion {
+
+    private final byte[] data;
+    private final int statementOffset;
+    private volatile String statement;
+    private volatile List<String> options;
+    private volatile Integer correctOptions;
+
+    EncodedMultipleChoiceQuestion(byte[] data, int statementOffset, int points, int questionNumber) {
+        super(null, points, questionNumber, null);
+        this.data = data;
+        this.statementOffset = statementOffset;
+    }
+
+    @Override
+    public String getStatement() {
+        if (statement == null) statement = QuestionCodec.readStatement(data, statementOffset);
+        return statement;
+    }
+
+    @Override
+    public List<String> getOptions() {
+        if (options == null) options = QuestionCodec.readOptions(data, statementOffset);
+        return options;
+    }
+
+    @Override
+    public void setOptions(List<String> options) {
+        this.options = options;
+    }
+
+    @Override
+    public int getCorrectOptions() {
+        if (correctOptions == null) correctOptions = QuestionCodec.readCorrectOptions(data, statementOffset);
+        return correctOptions;
+    }
+
+    @Override
+    public void setCorrectOptions(int correctOptions) {
+        this.correctOptions = correctOptions;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.codec;
+
+import com.google.googleinterns.gscribe.models.RubricTerm;
+import com.google.googleinterns.gscribe.models.SubjectiveQuestion;
+
+import java.util.List;
+
+/**
+ * SubjectiveQuestion backed by its binary encoding
+ * Statement and rubric are decoded on first access
+ */
+class EncodedSubjectiveQuestion extends SubjectiveQuestion {
+
+    private final byte[] data;
+    private final int statementOffset;
+    private volatile String statement;
+    private volatile List<RubricTerm> rubric;
+
+    EncodedSubjectiveQuestion(byte[] data, int statementOffset, int points, int questionNumber) {
+        super(null, points, questionNumber, null);
+        this.data = data;
+        this.statementOffset = statementOffset;
+    }
+
+    @Override
+    public String getStatement() {
+        if (statement == null) statement = QuestionCodec.readStatement(data, statementOffset);
+        return statement;
+    }
+
+    @Override
+    public List<RubricTerm> getRubric() {
+        if (rubric == null) rubric = QuestionCodec.readRubric(data, statementOffset);
+        return rubric;
+    }
+
+    @Override
+    public void setRubric(List<RubricTerm> rubric) {
+        this.rubric = rubric;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.codec;
+
+import com.google.googleinterns.gscribe.models.MultipleChoiceQuestion;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.models.QuestionType;
+import com.google.googleinterns.gscribe.models.RubricTerm;
+import com.google.googleinterns.gscribe.models.SubjectiveQuestion;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a question stored in the question_data column of question_content table, keyed by SHA-256 of the encoding
+ * Layout ( all integers are unsigned varints ):
+ * [ version byte ][ type byte ][ points ][ statement length ][ statement UTF-8 ][ option count ][ ( option length )( option UTF-8 ) ... ][ correct options ]
+ * Option count, options and correct options ( bitmask, bit i set if option i is correct ) are only present for MCQ questions
+ * SUBJECTIVE questions follow the statement with [ term count ][ ( phrase length )( phrase UTF-8 )( weight ) ... ] of their rubric
+ * Version 1 has no correct options, its MCQ questions decode with no answer key
+ * Versions 1 and 2 have no rubric, their SUBJECTIVE questions decode with an empty rubric
+ * The question number is not part of the encoding, it is stored in question_num column of the questions row linking the question to its exam,
+ * so a question is stored once however many exams and positions it is used in
+ */
+public final class QuestionCodec {
+
+    public static final byte VERSION_1 = 1;
+    public static final byte VERSION_2 = 2;
+    public static final byte VERSION_3 = 3;
+
+    static final byte TYPE_MCQ = 0;
+    static final byte TYPE_SUBJECTIVE = 1;
+
+    private static final int HEADER_LENGTH = 2;
+
+    private QuestionCodec() {
+    }
+
+    /**
+     * Encodes question into the current version of binary format
+     *
+     * @param question ( question object )
+     * @return encoded bytes
+     */
+    public static byte[] encode(Question question) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION_3);
+        out.write(question.getType().equals(QuestionType.MCQ) ? TYPE_MCQ : TYPE_SUBJECTIVE);
+        writeVarint(out, question.getPoints());
+        writeString(out, question.getStatement());
+        if (question.getType().equals(QuestionType.MCQ)) {
+            List<String> options = ((MultipleChoiceQuestion) question).getOptions();
+            writeVarint(out, options.size());
+            for (String option : options) writeString(out, option);
+            writeVarint(out, ((MultipleChoiceQuestion) question).getCorrectOptions());
+        } else {
+            List<RubricTerm> rubric = ((SubjectiveQuestion) question).getRubric();
+            writeVarint(out, rubric.size());
+            for (RubricTerm term : rubric) {
+                writeString(out, term.getPhrase());
+                writeVarint(out, term.getWeight());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Content address of an encoded question, questions with equal encodings share one question_content row
+     *
+     * @param data ( encoded question )
+     * @return SHA-256 of the encoding, 32 bytes
+     */
+    public static byte[] hash(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes header of the encoded question ( type and points ) eagerly
+     * Statement and options are decoded lazily on first access
+     *
+     * @param data           ( encoded question )
+     * @param questionNumber ( question number of corresponding question )
+     * @return question object
+     * @throws IllegalArgumentException ( if the version or type byte is not recognised )
+     */
+    public static Question decode(byte[] data, int questionNumber) {
+        if (data.length < HEADER_LENGTH || data[0] < VERSION_1 || data[0] > VERSION_3)
+            throw new IllegalArgumentException("Unsupported question encoding version");
+        Cursor cursor = new Cursor(data, HEADER_LENGTH);
+        int points = cursor.readVarint();
+        if (data[1] == TYPE_MCQ) return new EncodedMultipleChoiceQuestion(data, cursor.position, points, questionNumber);
+        if (data[1] == TYPE_SUBJECTIVE) return new EncodedSubjectiveQuestion(data, cursor.position, points, questionNumber);
+        throw new IllegalArgumentException("Unsupported question type in encoding");
+    }
+
+    /**
+     * Decodes the statement which starts at offset
+     *
+     * @param data   ( encoded question )
+     * @param offset ( offset of statement length )
+     * @return statement
+     */
+    static String readStatement(byte[] data, int offset) {
+        return new Cursor(data, offset).readString();
+    }
+
+    /**
+     * Skips the statement which starts at offset and decodes the options following it
+     *
+     * @param data   ( encoded question )
+     * @param offset ( offset of statement length )
+     * @return list of options
+     */
+    static List<String> readOptions(byte[] data, int offset) {
+        Cursor cursor = new Cursor(data, offset);
+        cursor.skipString();
+        int count = cursor.readVarint();
+        List<String> options = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) options.add(cursor.readString());
+        return options;
+    }
+
+    /**
+     * Skips the statement and options which start at offset and decodes the correct options following them
+     *
+     * @param data   ( encoded question )
+     * @param offset ( offset of statement length )
+     * @return bitmask of correct options, 0 for version 1 encoding
+     */
+    static int readCorrectOptions(byte[] data, int offset) {
+        if (data[0] == VERSION_1) return 0;
+        Cursor cursor = new Cursor(data, offset);
+        cursor.skipString();
+        int count = cursor.readVarint();
+        for (int i = 0; i < count; i++) cursor.skipString();
+        return cursor.readVarint();
+    }
+
+    /**
+     * Skips the statement which starts at offset and decodes the rubric following it
+     *
+     * @param data   ( encoded question )
+     * @param offset ( offset of statement length )
+     * @return rubric terms, empty for version 1 and 2 encodings
+     */
+    static List<RubricTerm> readRubric(byte[] data, int offset) {
+        if (data[0] < VERSION_3) return Collections.emptyList();
+        Cursor cursor = new Cursor(data, offset);
+        cursor.skipString();
+        int count = cursor.readVarint();
+        List<RubricTerm> rubric = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) rubric.add(new RubricTerm(cursor.readString(), cursor.readVarint()));
+        return rubric;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Read position over an encoded question
+     */
+    private static class Cursor {
+        private final byte[] data;
+        private int position;
+
+        Cursor(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint in question encoding");
+        }
+
+        String readString() {
+            int length = readVarint();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skipString() {
+            int length = readVarint();
+            position += length;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.routing;
+
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Creates DAOs whose @SqlQuery methods run on read replicas and all other methods on the primary
+ * Reads of a caller who wrote within the read your writes window run on the primary as well
+ */
+public class ReadWriteRouter {
+
+    private final DBI primary;
+    private final DBI replica;
+    private final ReadYourWritesTracker tracker;
+
+    public ReadWriteRouter(DBI primary, DBI replica, ReadYourWritesTracker tracker) {
+        this.primary = primary;
+        this.replica = replica;
+        this.tracker = tracker;
+    }
+
+    /**
+     * Creates the routing DAO, without a replica DBI the DAO runs everything on the primary
+     *
+     * @param daoClass ( DAO interface )
+     * @return DAO
+     */
+    public <T> T route(Class<T> daoClass) {
+        T onPrimary = primary.onDemand(daoClass);
+        if (replica == null) return onPrimary;
+        T onReplica = replica.onDemand(daoClass);
+        Object proxy = Proxy.newProxyInstance(daoClass.getClassLoader(), new Class<?>[]{daoClass}, (instance, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) return method.invoke(onPrimary, args);
+            boolean read = method.isAnnotationPresent(SqlQuery.class);
+            Object target = read && !tracker.mustReadPrimary() ? onReplica : onPrimary;
+            Object result = invoke(method, target, args);
+            if (!read) tracker.recordWrite();
+            return result;
+        });
+        return daoClass.cast(proxy);
+    }
+
+    private Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers callers who wrote recently so that their reads can be sent to the primary
+ * The caller is the user id, bound to the request thread by TokenService once the ID token of the request is verified,
+ * so it stays the same when the client's ID token is renewed, CallerFilter clears it at the start and end of every request
+ */
+public class ReadYourWritesTracker {
+
+    private static final long MAX_TRACKED_CALLERS = 100_000;
+
+    private final ThreadLocal<String> currentCaller = new ThreadLocal<>();
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(int readYourWritesSeconds) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesSeconds, TimeUnit.SECONDS)
+                .maximumSize(MAX_TRACKED_CALLERS)
+                .build();
+    }
+
+    public void setCurrentCaller(String caller) {
+        currentCaller.set(caller);
+    }
+
+    public void clearCurrentCaller() {
+        currentCaller.remove();
+    }
+
+    /**
+     * Called after a write on behalf of the current caller
+     */
+    public void recordWrite() {
+        String caller = currentCaller.get();
+        if (caller != null) recentWriters.put(caller, Boolean.TRUE);
+    }
+
+    /**
+     * @return whether the current caller wrote within the read your writes window
+     */
+    public boolean mustReadPrimary() {
+        String caller = currentCaller.get();
+        return caller != null && recentWriters.getIfPresent(caller) != null;
+    }
+}
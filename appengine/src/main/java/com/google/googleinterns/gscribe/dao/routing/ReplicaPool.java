@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.routing;
+
+import com.google.googleinterns.gscribe.config.MySQLConfig;
+import com.google.googleinterns.gscribe.config.ReadReplicaConfig;
+import io.dropwizard.lifecycle.Managed;
+import org.skife.jdbi.v2.tweak.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections to read replicas in round robin
+ * Replication lag of every replica is checked periodically, a replica lagging more than the configured limit,
+ * not replicating or unreachable is left out of rotation till a later check finds it healthy
+ * With no healthy replica connections are opened to the primary
+ */
+public class ReplicaPool implements ConnectionFactory, Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaPool.class);
+
+    private final ReadReplicaConfig config;
+    private final ConnectionFactory primary;
+    private final List<MySQLConfig> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<MySQLConfig> healthy = Collections.emptyList();
+    private ScheduledExecutorService lagChecker;
+
+    public ReplicaPool(ReadReplicaConfig config, ConnectionFactory primary) {
+        this.config = config;
+        this.primary = primary;
+        this.replicas = config.getReplicas();
+    }
+
+    @Override
+    public Connection openConnection() throws SQLException {
+        List<MySQLConfig> candidates = healthy;
+        if (candidates.isEmpty()) return primary.openConnection();
+        MySQLConfig replica = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        return open(replica);
+    }
+
+    @Override
+    public void start() {
+        if (replicas.isEmpty()) return;
+        checkLag();
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkLag, config.getLagCheckIntervalSeconds(), config.getLagCheckIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (lagChecker != null) lagChecker.shutdownNow();
+    }
+
+    /**
+     * Queries replication lag of every replica and rebuilds the rotation
+     */
+    void checkLag() {
+        List<MySQLConfig> inRotation = new ArrayList<>();
+        for (MySQLConfig replica : replicas) {
+            Long lag = replicationLagSeconds(replica);
+            if (lag != null && lag <= config.getMaxLagSeconds()) inRotation.add(replica);
+            else LOGGER.warn("Replica {} out of rotation, lag {}", replica.getUrl(), lag == null ? "unknown" : lag + "s");
+        }
+        healthy = Collections.unmodifiableList(inRotation);
+    }
+
+    /**
+     * Reads Seconds_Behind_Source of a replica, SHOW SLAVE STATUS is used for servers older than 8.0.22
+     *
+     * @param replica ( replica to check )
+     * @return lag in seconds, null if replica is unreachable or not replicating
+     */
+    private Long replicationLagSeconds(MySQLConfig replica) {
+        try (Connection connection = open(replica); Statement statement = connection.createStatement()) {
+            ResultSet status;
+            String column;
+            try {
+                status = statement.executeQuery("SHOW REPLICA STATUS");
+                column = "Seconds_Behind_Source";
+            } catch (SQLSyntaxErrorException e) {
+                status = statement.executeQuery("SHOW SLAVE STATUS");
+                column = "Seconds_Behind_Master";
+            }
+            if (!status.next()) return null;
+            long lag = status.getLong(column);
+            return status.wasNull() ? null : lag;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private Connection open(MySQLConfig replica) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", replica.getUserName());
+        properties.setProperty("password", replica.getPassword());
+        return DriverManager.getConnection(replica.getUrl(), properties);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.sequence;
+
+import com.google.googleinterns.gscribe.dao.IdSequenceDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids of a sequence from blocks reserved in the id_sequence table
+ * A block is reserved in one transaction and then handed out in memory with an atomic increment, so most ids need no lock and no round trip
+ * Blocks reserved by different servers never overlap, ids are unique but not ordered across servers
+ * Ids left in a block when the server stops are never used
+ */
+public class IdAllocator {
+
+    private final IdSequenceDao idSequenceDao;
+    private final String name;
+    private final int blockSize;
+    private volatile Block block = new Block(0, 0);
+
+    public IdAllocator(IdSequenceDao idSequenceDao, String name, int blockSize) {
+        if (blockSize <= 0) throw new IllegalArgumentException("Block size must be positive");
+        this.idSequenceDao = idSequenceDao;
+        this.name = name;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Called on startup to skip ids already used by rows written before the sequence was in use
+     *
+     * @param usedID ( largest id in use )
+     */
+    public void reserveAbove(long usedID) {
+        idSequenceDao.raiseNextID(name, usedID + 1);
+    }
+
+    /**
+     * Takes the next id of the current block, only the thread which finds the block exhausted reserves a new one
+     *
+     * @return unused id
+     * @throws IllegalStateException ( if ids of the sequence do not fit an int column anymore )
+     */
+    public int nextID() {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                if (id > Integer.MAX_VALUE) throw new IllegalStateException("Sequence " + name + " is exhausted");
+                return (int) id;
+            }
+            reserve(current);
+        }
+    }
+
+    /**
+     * @param count ( number of ids needed )
+     * @return count unused ids
+     */
+    public List<Integer> nextIDs(int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) ids.add(nextID());
+        return ids;
+    }
+
+    private synchronized void reserve(Block exhausted) {
+        if (block != exhausted) return;
+        long start = idSequenceDao.reserveBlock(name, blockSize);
+        block = new Block(start, start + blockSize);
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
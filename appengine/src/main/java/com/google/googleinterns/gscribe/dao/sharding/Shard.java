@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.sharding;
+
+import com.google.googleinterns.gscribe.dao.AnswerDao;
+import com.google.googleinterns.gscribe.dao.ExamInstanceDao;
+import com.google.googleinterns.gscribe.dao.RosterDao;
+import org.skife.jdbi.v2.DBI;
+
+/**
+ * A database holding exam instances and answers of the exams placed on it
+ */
+public class Shard {
+
+    private final int index;
+    private final DBI dbi;
+    private final ExamInstanceDao examInstanceDao;
+    private final AnswerDao answerDao;
+    private final RosterDao rosterDao;
+
+    public Shard(int index, DBI dbi) {
+        this.index = index;
+        this.dbi = dbi;
+        this.examInstanceDao = dbi.onDemand(ExamInstanceDao.class);
+        this.answerDao = dbi.onDemand(AnswerDao.class);
+        this.rosterDao = dbi.onDemand(RosterDao.class);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public DBI getDbi() {
+        return dbi;
+    }
+
+    public ExamInstanceDao getExamInstanceDao() {
+        return examInstanceDao;
+    }
+
+    public AnswerDao getAnswerDao() {
+        return answerDao;
+    }
+
+    public RosterDao getRosterDao() {
+        return rosterDao;
+    }
+}
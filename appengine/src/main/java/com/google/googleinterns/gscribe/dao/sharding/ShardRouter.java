@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.dao.sharding;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.googleinterns.gscribe.dao.ExamShardDao;
+import com.google.googleinterns.gscribe.metrics.CacheMetrics;
+
+import javax.ws.rs.NotFoundException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes exam instance and answer queries of an exam to the shard holding the exam
+ * The exam to shard map is stored on the primary, an exam is placed on shard ( exam id mod shard count ) when it is created
+ * and stays there till moved by the rebalance-exam command, so adding shards never moves existing exams
+ * Lookups are read only, so exam ids taken from request paths never write to the map
+ */
+public class ShardRouter {
+
+    private final List<Shard> shards;
+    private final ExamShardDao examShardDao;
+    private final LoadingCache<Integer, Integer> shardMap;
+
+    public ShardRouter(List<Shard> shards, ExamShardDao examShardDao, int shardMapCacheSeconds, MetricRegistry metrics) {
+        this.shards = Collections.unmodifiableList(shards);
+        this.examShardDao = examShardDao;
+        this.shardMap = Caffeine.newBuilder()
+                .recordStats(() -> new CacheMetrics(metrics, MetricRegistry.name(ShardRouter.class, "shard-map")))
+                .expireAfterWrite(shardMapCacheSeconds, TimeUnit.SECONDS)
+                .build(this::lookupShard);
+    }
+
+    /**
+     * @param examID ( to identify particular exam )
+     * @return shard holding exam instances and answers of the exam
+     * @throws NotFoundException ( if exam has not been placed on a shard, so it does not exist )
+     */
+    public Shard forExam(int examID) {
+        Integer shard = shardMap.get(examID);
+        if (shard == null) throw new NotFoundException("Exam not found");
+        return shards.get(shard);
+    }
+
+    /**
+     * @param examID ( to identify particular exam )
+     * @return shard a newly created exam is placed on
+     */
+    public int initialShard(int examID) {
+        return Math.floorMod(examID, shards.size());
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * Moves an exam to another shard in the shard map, the rows are copied by the caller
+     *
+     * @param examID ( to identify particular exam )
+     * @param shard  ( index of target shard )
+     */
+    public void moveExam(int examID, int shard) {
+        forExam(examID);
+        examShardDao.updateShard(examID, shard);
+        shardMap.invalidate(examID);
+    }
+
+    /**
+     * Missing exams are not cached, so an exam is found as soon as its creation commits
+     */
+    private Integer lookupShard(int examID) {
+        Integer shard = examShardDao.getShard(examID);
+        if (shard == null) return null;
+        if (shard >= shards.size())
+            throw new IllegalStateException("Exam " + examID + " is on shard " + shard + " which is not configured");
+        return shard;
+    }
+}
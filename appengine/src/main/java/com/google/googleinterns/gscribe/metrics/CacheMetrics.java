@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.metrics;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records statistics of a Caffeine cache in the metric registry, pass to Caffeine.recordStats
+ * Registers meters name.hits, name.misses and name.evictions and timer name.loads, a cache of the same name registered twice shares them
+ */
+public class CacheMetrics implements StatsCounter {
+
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+    private final Timer loads;
+    private final Meter loadFailures;
+
+    public CacheMetrics(MetricRegistry metrics, String name) {
+        this.hits = metrics.meter(MetricRegistry.name(name, "hits"));
+        this.misses = metrics.meter(MetricRegistry.name(name, "misses"));
+        this.evictions = metrics.meter(MetricRegistry.name(name, "evictions"));
+        this.loads = metrics.timer(MetricRegistry.name(name, "loads"));
+        this.loadFailures = metrics.meter(MetricRegistry.name(name, "load-failures"));
+    }
+
+    @Override
+    public void recordHits(int count) {
+        hits.mark(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        misses.mark(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        loads.update(loadTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        loads.update(loadTime, TimeUnit.NANOSECONDS);
+        loadFailures.mark();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void recordEviction() {
+        evictions.mark();
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        evictions.mark();
+    }
+
+    /**
+     * Load time of the snapshot is the sum of the mean load time over loads, as timers do not keep a total
+     */
+    @Override
+    public CacheStats snapshot() {
+        long loadCount = loads.getCount();
+        return new CacheStats(hits.getCount(), misses.getCount(), loadCount - loadFailures.getCount(), loadFailures.getCount(),
+                (long) (loads.getSnapshot().getMean() * loadCount), evictions.getCount(), 0);
+    }
+}
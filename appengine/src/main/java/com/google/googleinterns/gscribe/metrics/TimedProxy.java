@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wraps a service so every call of its interface methods is timed
+ * Calls of method m of interface I are recorded in timer I.m, calls ending with an exception are timed as well and also marked in meter I.m.exceptions
+ */
+public class TimedProxy {
+
+    private TimedProxy() {
+    }
+
+    /**
+     * @param type    ( service interface )
+     * @param target  ( service implementation )
+     * @param metrics ( registry timers are registered in )
+     * @return service timing each call and delegating it to target
+     */
+    public static <T> T of(Class<T> type, T target, MetricRegistry metrics) {
+        Map<Method, Timer> timers = new HashMap<>();
+        for (Method method : type.getMethods()) timers.put(method, metrics.timer(MetricRegistry.name(type, method.getName())));
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (instance, method, args) -> {
+            Timer timer = timers.get(method);
+            if (timer == null) return invoke(method, target, args);
+            final Timer.Context context = timer.time();
+            try {
+                return invoke(method, target, args);
+            } catch (Throwable e) {
+                metrics.meter(MetricRegistry.name(type, method.getName(), "exceptions")).mark();
+                throw e;
+            } finally {
+                context.stop();
+            }
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
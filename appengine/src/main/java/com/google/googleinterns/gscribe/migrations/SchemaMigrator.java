@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.migrations;
+
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings the database schema to the latest version at startup
+ * Migrations are resources migrations/V1.sql, migrations/V2.sql, ... applied in order of version
+ * A line "-- Migration: description" in the file describes it, other comment lines are ignored and statements end with ";" at end of line
+ * Applied versions are recorded in schema_version, a named lock keeps two application instances from migrating at the same time
+ * MySQL commits DDL implicitly, so a migration failing halfway has to be completed by hand before the next startup
+ */
+public class SchemaMigrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrator.class);
+    private static final String MIGRATION_PATH = "/migrations/V%d.sql";
+    private static final String DESCRIPTION_PREFIX = "-- Migration:";
+    private static final String LOCK_NAME = "gscribe_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 300;
+
+    private final DBI dbi;
+
+    public SchemaMigrator(DBI dbi) {
+        this.dbi = dbi;
+    }
+
+    /**
+     * Applies every migration newer than the recorded schema version
+     *
+     * @return schema version after migrating
+     * @throws IllegalStateException ( if the migration lock could not be acquired )
+     */
+    public int migrate() {
+        try (Handle handle = dbi.open()) {
+            handle.execute("CREATE TABLE IF NOT EXISTS schema_version ( version int NOT NULL, description varchar(200) NOT NULL, " +
+                    "applied_on timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (version) )");
+            Integer locked = handle.createQuery("SELECT GET_LOCK(:name, :timeout)")
+                    .bind("name", LOCK_NAME)
+                    .bind("timeout", LOCK_TIMEOUT_SECONDS)
+                    .mapTo(Integer.class)
+                    .first();
+            if (locked == null || locked != 1) throw new IllegalStateException("Unable to acquire schema migration lock");
+            try {
+                int version = currentVersion(handle);
+                for (Migration migration = load(version + 1); migration != null; migration = load(version + 1)) {
+                    LOGGER.info("Applying schema migration V{}: {}", migration.version, migration.description);
+                    for (String statement : migration.statements) handle.execute(statement);
+                    handle.insert("INSERT INTO schema_version( version, description ) VALUES ( ?, ? )", migration.version, migration.description);
+                    version = migration.version;
+                }
+                return version;
+            } finally {
+                handle.createQuery("SELECT RELEASE_LOCK(:name)").bind("name", LOCK_NAME).mapTo(Integer.class).first();
+            }
+        }
+    }
+
+    /**
+     * Queries latest applied version, 0 for a database without migrations
+     *
+     * @param handle ( open handle )
+     * @return schema version
+     */
+    public static int currentVersion(Handle handle) {
+        Integer version = handle.createQuery("SELECT MAX(version) FROM schema_version").mapTo(Integer.class).first();
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Reads migration of given version from resources
+     *
+     * @param version ( version of migration )
+     * @return migration, null if there is no migration of that version
+     */
+    static Migration load(int version) {
+        InputStream in = SchemaMigrator.class.getResourceAsStream(String.format(MIGRATION_PATH, version));
+        if (in == null) return null;
+        String description = "V" + version;
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith(DESCRIPTION_PREFIX)) description = trimmed.substring(DESCRIPTION_PREFIX.length()).trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+                statement.append(line).append('\n');
+                if (trimmed.endsWith(";")) {
+                    statements.add(statement.substring(0, statement.lastIndexOf(";")));
+                    statement.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (statement.toString().trim().length() > 0) statements.add(statement.toString());
+        return new Migration(version, description, statements);
+    }
+
+    static class Migration {
+        private final int version;
+        private final String description;
+        private final List<String> statements;
+
+        Migration(int version, String description, List<String> statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
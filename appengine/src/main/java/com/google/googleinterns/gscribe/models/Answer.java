@@ -21,6 +21,7 @@ public class Answer {
 
     private String answer;
     private int questionNum;
+    private int version;
 
     public Answer() {
     }
@@ -40,4 +41,12 @@ public class Answer {
     public void setQuestionNum(int questionNum) {
         this.questionNum = questionNum;
     }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.models;
+
+/**
+ * A term partition of exam instances and answers of a shard, exported to archive files and dropped from the database
+ * It holds exam instances of exams with id in [ firstExamID, endExamID )
+ */
+public class ExamArchive {
+
+    private int shard;
+    private int term;
+    private int firstExamID;
+    private int endExamID;
+    private int instanceCount;
+    private int answerCount;
+
+    public ExamArchive() {
+    }
+
+    public ExamArchive(int shard, int term, int firstExamID, int endExamID, int instanceCount, int answerCount) {
+        this.shard = shard;
+        this.term = term;
+        this.firstExamID = firstExamID;
+        this.endExamID = endExamID;
+        this.instanceCount = instanceCount;
+        this.answerCount = answerCount;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * Term as year * 100 + month
+     */
+    public int getTerm() {
+        return term;
+    }
+
+    public void setTerm(int term) {
+        this.term = term;
+    }
+
+    public int getFirstExamID() {
+        return firstExamID;
+    }
+
+    public void setFirstExamID(int firstExamID) {
+        this.firstExamID = firstExamID;
+    }
+
+    public int getEndExamID() {
+        return endExamID;
+    }
+
+    public void setEndExamID(int endExamID) {
+        this.endExamID = endExamID;
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    public void setInstanceCount(int instanceCount) {
+        this.instanceCount = instanceCount;
+    }
+
+    public int getAnswerCount() {
+        return answerCount;
+    }
+
+    public void setAnswerCount(int answerCount) {
+        this.answerCount = answerCount;
+    }
+}
@@ -32,6 +32,7 @@ public class ExamInstance {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS")
     private Timestamp endTime;
     private List<Answer> answers;
+    private Integer score;
 
     public ExamInstance() {
     }
@@ -106,4 +107,15 @@ public class ExamInstance {
     public void setAnswers(List<Answer> answers) {
         this.answers = answers;
     }
+
+    /**
+     * Points scored in auto graded multiple choice questions, null if the exam instance was not graded
+     */
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.models;
+
+/**
+ * Result of a request sent with an idempotency key, a retry with the same key gets this result without running the request again
+ */
+public class IdempotencyKey {
+
+    private int examInstanceID;
+    private String key;
+    private String userID;
+    private String response;
+
+    public IdempotencyKey() {
+    }
+
+    public IdempotencyKey(int examInstanceID, String key, String userID, String response) {
+        this.examInstanceID = examInstanceID;
+        this.key = key;
+        this.userID = userID;
+        this.response = response;
+    }
+
+    public int getExamInstanceID() {
+        return examInstanceID;
+    }
+
+    public void setExamInstanceID(int examInstanceID) {
+        this.examInstanceID = examInstanceID;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getUserID() {
+        return userID;
+    }
+
+    public void setUserID(String userID) {
+        this.userID = userID;
+    }
+
+    /**
+     * Response message of the request
+     */
+    public String getResponse() {
+        return response;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+}
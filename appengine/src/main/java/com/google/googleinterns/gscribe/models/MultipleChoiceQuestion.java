@@ -16,15 +16,23 @@
 
 package com.google.googleinterns.gscribe.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 public class MultipleChoiceQuestion extends Question {
 
     private List<String> options;
+    private int correctOptions;
 
     public MultipleChoiceQuestion(String statement, int points, int questionNumber, List<String> options) {
+        this(statement, points, questionNumber, options, 0);
+    }
+
+    public MultipleChoiceQuestion(String statement, int points, int questionNumber, List<String> options, int correctOptions) {
         super(QuestionType.MCQ, statement, points, questionNumber);
         this.options = options;
+        this.correctOptions = correctOptions;
     }
 
     public List<String> getOptions() {
@@ -34,4 +42,17 @@ public class MultipleChoiceQuestion extends Question {
     public void setOptions(List<String> options) {
         this.options = options;
     }
+
+    /**
+     * Answer key as bitmask, bit i is set if option i is correct, 0 if the question has no answer key
+     * Never sent to clients, as examinees read questions through the same model
+     */
+    @JsonIgnore
+    public int getCorrectOptions() {
+        return correctOptions;
+    }
+
+    public void setCorrectOptions(int correctOptions) {
+        this.correctOptions = correctOptions;
+    }
 }
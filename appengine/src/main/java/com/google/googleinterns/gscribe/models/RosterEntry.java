@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.models;
+
+public class RosterEntry {
+
+    private int studentRollNum;
+    private String studentEmailID;
+
+    public RosterEntry() {
+    }
+
+    public RosterEntry(int studentRollNum, String studentEmailID) {
+        this.studentRollNum = studentRollNum;
+        this.studentEmailID = studentEmailID;
+    }
+
+    public int getStudentRollNum() {
+        return studentRollNum;
+    }
+
+    public void setStudentRollNum(int studentRollNum) {
+        this.studentRollNum = studentRollNum;
+    }
+
+    public String getStudentEmailID() {
+        return studentEmailID;
+    }
+
+    public void setStudentEmailID(String studentEmailID) {
+        this.studentEmailID = studentEmailID;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.models;
+
+/**
+ * Keyword or phrase of a subjective question rubric, an answer containing it is suggested weight points
+ */
+public class RubricTerm {
+
+    private final String phrase;
+    private final int weight;
+
+    public RubricTerm(String phrase, int weight) {
+        this.phrase = phrase;
+        this.weight = weight;
+    }
+
+    public String getPhrase() {
+        return phrase;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
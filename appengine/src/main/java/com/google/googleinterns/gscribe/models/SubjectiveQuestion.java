@@ -16,10 +16,35 @@
 
 package com.google.googleinterns.gscribe.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.List;
+
 public class SubjectiveQuestion extends Question {
 
+    private List<RubricTerm> rubric;
+
     public SubjectiveQuestion(String statement, int points, int questionNumber) {
+        this(statement, points, questionNumber, Collections.emptyList());
+    }
+
+    public SubjectiveQuestion(String statement, int points, int questionNumber, List<RubricTerm> rubric) {
         super(QuestionType.SUBJECTIVE, statement, points, questionNumber);
+        this.rubric = rubric;
+    }
+
+    /**
+     * Weighted keywords and phrases used to suggest a score, empty if the question has no rubric
+     * Never sent to clients, as examinees read questions through the same model
+     */
+    @JsonIgnore
+    public List<RubricTerm> getRubric() {
+        return rubric == null ? Collections.emptyList() : rubric;
+    }
+
+    public void setRubric(List<RubricTerm> rubric) {
+        this.rubric = rubric;
     }
 
 }
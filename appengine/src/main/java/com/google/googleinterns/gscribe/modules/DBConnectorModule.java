@@ -16,23 +16,148 @@
 
 package com.google.googleinterns.gscribe.modules;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.jdbi.InstrumentedTimingCollector;
 import com.google.googleinterns.gscribe.config.MySQLConfig;
+import com.google.googleinterns.gscribe.config.ReadReplicaConfig;
+import com.google.googleinterns.gscribe.config.ShardConfig;
+import com.google.googleinterns.gscribe.dao.ExamShardDao;
+import com.google.googleinterns.gscribe.dao.IdSequenceDao;
+import com.google.googleinterns.gscribe.dao.routing.ReadWriteRouter;
+import com.google.googleinterns.gscribe.dao.routing.ReadYourWritesTracker;
+import com.google.googleinterns.gscribe.dao.routing.ReplicaPool;
+import com.google.googleinterns.gscribe.dao.sequence.IdAllocator;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.inject.Inject;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
 import org.skife.jdbi.v2.DBI;
 
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
 public class DBConnectorModule extends AbstractModule {
 
     MySQLConfig config;
+    ReadReplicaConfig readReplicaConfig;
+    ShardConfig shardConfig;
+    MetricRegistry metrics;
 
     public DBConnectorModule(MySQLConfig config) {
+        this(config, new ReadReplicaConfig(), new ShardConfig());
+    }
+
+    public DBConnectorModule(MySQLConfig config, ReadReplicaConfig readReplicaConfig, ShardConfig shardConfig) {
+        this(config, readReplicaConfig, shardConfig, new MetricRegistry());
+    }
+
+    public DBConnectorModule(MySQLConfig config, ReadReplicaConfig readReplicaConfig, ShardConfig shardConfig, MetricRegistry metrics) {
         this.config = config;
+        this.readReplicaConfig = readReplicaConfig;
+        this.shardConfig = shardConfig;
+        this.metrics = metrics;
     }
 
+    @Override
+    protected void configure() {
+        bindConstant().annotatedWith(Names.named("batchSize")).to(config.getBatchSize());
+    }
+
+    /**
+     * rewriteBatchedStatements makes the driver send a JDBC batch of inserts as multi-row INSERT statements
+     */
     @Provides
     @Singleton
     public DBI dBIProvider() {
-        return new DBI(config.getUrl(), config.getUserName(), config.getPassword());
+        return instrumented(new DBI(config.getUrl(), connectionProperties(config)));
+    }
+
+    /**
+     * Falls back to the primary database while no replica is in rotation
+     */
+    @Provides
+    @Singleton
+    public ReplicaPool replicaPoolProvider() {
+        Properties properties = connectionProperties(config);
+        return new ReplicaPool(readReplicaConfig, () -> DriverManager.getConnection(config.getUrl(), properties));
+    }
+
+    @Provides
+    @Singleton
+    public ReadYourWritesTracker readYourWritesTrackerProvider() {
+        return new ReadYourWritesTracker(readReplicaConfig.getReadYourWritesSeconds());
+    }
+
+    /**
+     * Without configured replicas the router creates plain primary DAOs
+     */
+    @Inject
+    @Provides
+    @Singleton
+    public ReadWriteRouter readWriteRouterProvider(DBI dbi, ReplicaPool replicaPool, ReadYourWritesTracker tracker) {
+        DBI replica = readReplicaConfig.getReplicas().isEmpty() ? null : instrumented(new DBI(replicaPool));
+        return new ReadWriteRouter(dbi, replica, tracker);
+    }
+
+    /**
+     * Shard 0 is the primary database, configured shards follow in order
+     * Exam instance ids come from the examInstanceIds allocator, so they are unique across shards and rows can be moved
+     * between shards as they are
+     */
+    @Inject
+    @Provides
+    @Singleton
+    public ShardRouter shardRouterProvider(DBI dbi) {
+        int shardCount = shardConfig.getShards().size() + 1;
+        List<Shard> shards = new ArrayList<>(shardCount);
+        shards.add(new Shard(0, shardDBI(config)));
+        for (int i = 1; i < shardCount; i++) {
+            shards.add(new Shard(i, shardDBI(shardConfig.getShards().get(i - 1))));
+        }
+        return new ShardRouter(shards, dbi.onDemand(ExamShardDao.class), shardConfig.getShardMapCacheSeconds(), metrics);
+    }
+
+    /**
+     * Exam instance ids are reserved from the sequence on the primary database, so they are unique across shards
+     * The sequence is moved above ids already in use on every shard before the first block is reserved
+     */
+    @Inject
+    @Provides
+    @Singleton
+    @Named("examInstanceIds")
+    public IdAllocator examInstanceIdAllocatorProvider(DBI dbi, ShardRouter shardRouter) {
+        IdAllocator allocator = new IdAllocator(dbi.onDemand(IdSequenceDao.class), "exam_instance", config.getIdBlockSize());
+        for (Shard shard : shardRouter.getShards()) {
+            allocator.reserveAbove(shard.getExamInstanceDao().getMaxExamInstanceID());
+        }
+        return allocator;
+    }
+
+    private DBI shardDBI(MySQLConfig shardConfig) {
+        return instrumented(new DBI(shardConfig.getUrl(), connectionProperties(shardConfig)));
+    }
+
+    /**
+     * Every statement is timed, statements of DAO methods in a timer named after the DAO class and method,
+     * statements built on a handle in timer sql.raw
+     * Timers are shared by the primary, replicas and shards, so a DAO method has one timer wherever it runs
+     */
+    private DBI instrumented(DBI dbi) {
+        dbi.setTimingCollector(new InstrumentedTimingCollector(metrics));
+        return dbi;
+    }
+
+    private Properties connectionProperties(MySQLConfig config) {
+        Properties properties = new Properties();
+        properties.setProperty("user", config.getUserName());
+        properties.setProperty("password", config.getPassword());
+        properties.setProperty("rewriteBatchedStatements", "true");
+        return properties;
     }
 }
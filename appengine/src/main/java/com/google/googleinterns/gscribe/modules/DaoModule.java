@@ -16,36 +16,57 @@
 
 package com.google.googleinterns.gscribe.modules;
 
+import com.google.googleinterns.gscribe.dao.ExamArchiveDao;
+import com.google.googleinterns.gscribe.dao.ExamCreationDao;
 import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
 import com.google.googleinterns.gscribe.dao.QuestionsDao;
 import com.google.googleinterns.gscribe.dao.UserTokenDao;
+import com.google.googleinterns.gscribe.dao.routing.ReadWriteRouter;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import org.skife.jdbi.v2.DBI;
 
+/**
+ * DAOs with read heavy traffic are created through ReadWriteRouter so their queries can be served by read replicas
+ * Exam creation DAO stays on the primary, exam instance and answer DAOs are reached through ShardRouter
+ */
 public class DaoModule extends AbstractModule {
 
     @Inject
     @Provides
     @Singleton
-    public UserTokenDao userTokenDaoProvider(DBI dbi) {
-        return dbi.onDemand(UserTokenDao.class);
+    public UserTokenDao userTokenDaoProvider(ReadWriteRouter router) {
+        return router.route(UserTokenDao.class);
+    }
+
+    @Inject
+    @Provides
+    @Singleton
+    public ExamMetadataDao examMetadataDaoProvider(ReadWriteRouter router) {
+        return router.route(ExamMetadataDao.class);
+    }
+
+    @Inject
+    @Provides
+    @Singleton
+    public QuestionsDao examDaoProvider(ReadWriteRouter router) {
+        return router.route(QuestionsDao.class);
     }
 
     @Inject
     @Provides
     @Singleton
-    public ExamMetadataDao examMetadataDaoProvider(DBI dbi) {
-        return dbi.onDemand(ExamMetadataDao.class);
+    public ExamCreationDao examCreationDaoProvider(DBI dbi) {
+        return dbi.onDemand(ExamCreationDao.class);
     }
 
     @Inject
     @Provides
     @Singleton
-    public QuestionsDao examDaoProvider(DBI dbi) {
-        return dbi.onDemand(QuestionsDao.class);
+    public ExamArchiveDao examArchiveDaoProvider(DBI dbi) {
+        return dbi.onDemand(ExamArchiveDao.class);
     }
 
 }
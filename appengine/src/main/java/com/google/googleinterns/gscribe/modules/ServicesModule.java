@@ -16,30 +16,205 @@
 
 package com.google.googleinterns.gscribe.modules;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.googleinterns.gscribe.config.AdmissionConfig;
+import com.google.googleinterns.gscribe.config.AnalyticsConfig;
+import com.google.googleinterns.gscribe.config.AnswerIngestionConfig;
+import com.google.googleinterns.gscribe.config.ArchiveConfig;
+import com.google.googleinterns.gscribe.config.ExamEventsConfig;
+import com.google.googleinterns.gscribe.config.ExamSessionConfig;
+import com.google.googleinterns.gscribe.config.IdempotencyConfig;
+import com.google.googleinterns.gscribe.config.SearchConfig;
+import com.google.googleinterns.gscribe.dao.ExamAnalyticsDao;
+import com.google.googleinterns.gscribe.dao.ExamArchiveDao;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.dao.IdempotencyKeyDao;
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
 import com.google.googleinterns.gscribe.dao.UserTokenDao;
+import com.google.googleinterns.gscribe.dao.routing.ReadYourWritesTracker;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.metrics.TimedProxy;
+import com.google.googleinterns.gscribe.services.AnswerIngestionService;
+import com.google.googleinterns.gscribe.services.ExamArchiveService;
+import com.google.googleinterns.gscribe.services.ExamExportService;
+import com.google.googleinterns.gscribe.services.ExamSessionService;
 import com.google.googleinterns.gscribe.services.ExamSheetsService;
+import com.google.googleinterns.gscribe.services.GradingService;
+import com.google.googleinterns.gscribe.services.QuestionSearchService;
+import com.google.googleinterns.gscribe.services.RubricService;
+import com.google.googleinterns.gscribe.services.SimilarityService;
 import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.googleinterns.gscribe.services.admission.AdmissionController;
+import com.google.googleinterns.gscribe.services.analytics.ExamAnalytics;
+import com.google.googleinterns.gscribe.services.attempt.ExamAttemptRegistry;
+import com.google.googleinterns.gscribe.services.events.ExamEventHub;
+import com.google.googleinterns.gscribe.services.idempotency.IdempotencyStore;
+import com.google.googleinterns.gscribe.services.impl.AnswerIngestionServiceImpl;
+import com.google.googleinterns.gscribe.services.impl.ExamArchiveServiceImpl;
+import com.google.googleinterns.gscribe.services.impl.ExamExportServiceImpl;
+import com.google.googleinterns.gscribe.services.impl.ExamSessionServiceImpl;
 import com.google.googleinterns.gscribe.services.impl.ExamSheetsServiceImpl;
+import com.google.googleinterns.gscribe.services.impl.GradingServiceImpl;
+import com.google.googleinterns.gscribe.services.impl.QuestionSearchServiceImpl;
+import com.google.googleinterns.gscribe.services.impl.RubricServiceImpl;
+import com.google.googleinterns.gscribe.services.impl.SimilarityServiceImpl;
 import com.google.googleinterns.gscribe.services.impl.TokenServiceImpl;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import org.skife.jdbi.v2.DBI;
 
 public class ServicesModule extends AbstractModule {
 
+    AnswerIngestionConfig answerIngestionConfig;
+    ArchiveConfig archiveConfig;
+    ExamSessionConfig examSessionConfig;
+    ExamEventsConfig examEventsConfig;
+    IdempotencyConfig idempotencyConfig;
+    AdmissionConfig admissionConfig;
+    AnalyticsConfig analyticsConfig;
+    SearchConfig searchConfig;
+    MetricRegistry metrics;
+
+    public ServicesModule(AnswerIngestionConfig answerIngestionConfig, ArchiveConfig archiveConfig, ExamSessionConfig examSessionConfig,
+                          ExamEventsConfig examEventsConfig, IdempotencyConfig idempotencyConfig, AdmissionConfig admissionConfig,
+                          AnalyticsConfig analyticsConfig, SearchConfig searchConfig, MetricRegistry metrics) {
+        this.answerIngestionConfig = answerIngestionConfig;
+        this.archiveConfig = archiveConfig;
+        this.examSessionConfig = examSessionConfig;
+        this.examEventsConfig = examEventsConfig;
+        this.idempotencyConfig = idempotencyConfig;
+        this.admissionConfig = admissionConfig;
+        this.analyticsConfig = analyticsConfig;
+        this.searchConfig = searchConfig;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void configure() {
+        bindConstant().annotatedWith(Names.named("commitTimeoutMillis")).to(answerIngestionConfig.getCommitTimeoutMillis());
+    }
+
     @Inject
     @Provides
     @Singleton
     public ExamSheetsService examParserServiceProvider(TokenService tokenService, UserTokenDao userTokenDao) {
-        return new ExamSheetsServiceImpl(tokenService, userTokenDao);
+        return TimedProxy.of(ExamSheetsService.class, new ExamSheetsServiceImpl(tokenService, userTokenDao, metrics), metrics);
+    }
+
+    @Inject
+    @Provides
+    @Singleton
+    public TokenService tokenServiceProvider(ReadYourWritesTracker readYourWritesTracker) {
+        return TimedProxy.of(TokenService.class, new TokenServiceImpl(readYourWritesTracker), metrics);
+    }
+
+    @Inject
+    @Provides
+    @Singleton
+    public AnswerIngestionService answerIngestionServiceProvider(ShardRouter shardRouter, ExamAnalytics examAnalytics, @Named("batchSize") int batchSize) {
+        return new AnswerIngestionServiceImpl(shardRouter, examAnalytics, answerIngestionConfig, batchSize);
+    }
+
+    /**
+     * Snapshots are read from the primary, a snapshot saved by another server moments ago may not be on a replica
+     */
+    @Inject
+    @Provides
+    @Singleton
+    public ExamAnalytics examAnalyticsProvider(DBI dbi, ShardRouter shardRouter, QuestionsDao questionsDao) {
+        return new ExamAnalytics(shardRouter, questionsDao, dbi.onDemand(ExamAnalyticsDao.class), analyticsConfig, metrics);
+    }
+
+    /**
+     * Exam metadata is read from the primary, as term boundaries must not miss exams a replica has not received yet
+     */
+    @Inject
+    @Provides
+    @Singleton
+    public ExamArchiveService examArchiveServiceProvider(DBI dbi, ExamArchiveDao examArchiveDao, ShardRouter shardRouter) {
+        return new ExamArchiveServiceImpl(dbi, dbi.onDemand(ExamMetadataDao.class), examArchiveDao, shardRouter, archiveConfig);
+    }
+
+    /**
+     * Exam durations are read from the primary, a session started right after its exam was created may not be on a replica
+     */
+    @Inject
+    @Provides
+    @Singleton
+    public ExamSessionService examSessionServiceProvider(DBI dbi, ShardRouter shardRouter, AnswerIngestionService answerIngestionService,
+                                                         ExamEventHub examEventHub) {
+        return new ExamSessionServiceImpl(shardRouter, dbi.onDemand(ExamMetadataDao.class), answerIngestionService, examEventHub, examSessionConfig, metrics);
+    }
+
+    @Provides
+    @Singleton
+    public ExamEventHub examEventHubProvider() {
+        return new ExamEventHub(examEventsConfig);
+    }
+
+    /**
+     * Keys are read from the primary, a key stored by another server moments ago may not be on a replica
+     */
+    @Inject
+    @Provides
+    @Singleton
+    public IdempotencyStore idempotencyStoreProvider(DBI dbi) {
+        return new IdempotencyStore(dbi.onDemand(IdempotencyKeyDao.class), idempotencyConfig, metrics);
+    }
+
+    @Inject
+    @Provides
+    @Singleton
+    public GradingService gradingServiceProvider(ShardRouter shardRouter, QuestionsDao questionsDao, @Named("batchSize") int batchSize) {
+        return new GradingServiceImpl(shardRouter, questionsDao, batchSize);
+    }
+
+    @Inject
+    @Provides
+    @Singleton
+    public ExamExportService examExportServiceProvider(ShardRouter shardRouter, QuestionsDao questionsDao) {
+        return new ExamExportServiceImpl(shardRouter, questionsDao);
+    }
+
+    @Inject
+    @Provides
+    @Singleton
+    public SimilarityService similarityServiceProvider(ShardRouter shardRouter) {
+        return new SimilarityServiceImpl(shardRouter);
+    }
+
+    @Inject
+    @Provides
+    @Singleton
+    public RubricService rubricServiceProvider(ShardRouter shardRouter, QuestionsDao questionsDao) {
+        return new RubricServiceImpl(shardRouter, questionsDao, metrics);
+    }
+
+    /**
+     * Questions are read from the primary, an index built right after an exam was created must contain it
+     */
+    @Inject
+    @Provides
+    @Singleton
+    public QuestionSearchService questionSearchServiceProvider(DBI dbi) {
+        return new QuestionSearchServiceImpl(dbi, searchConfig, metrics);
+    }
+
+    @Provides
+    @Singleton
+    public AdmissionController admissionControllerProvider() {
+        return new AdmissionController(admissionConfig);
     }
 
     @Inject
     @Provides
     @Singleton
-    public TokenService tokenServiceProvider() {
-        return new TokenServiceImpl();
+    public ExamAttemptRegistry examAttemptRegistryProvider(ShardRouter shardRouter) {
+        return new ExamAttemptRegistry(shardRouter, metrics);
     }
 
 }
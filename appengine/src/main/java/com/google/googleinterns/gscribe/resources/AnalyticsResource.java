@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.resources.io.response.AnalyticsResponse;
+import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.googleinterns.gscribe.services.analytics.ExamAnalytics;
+import com.google.inject.Inject;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.*;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+@Path("/exam/{examID}/analytics")
+@Produces("application/json")
+@Timed
+@ExceptionMetered
+public class AnalyticsResource {
+
+    private final TokenService tokenService;
+    private final ExamMetadataDao examMetadataDao;
+    private final ExamAnalytics examAnalytics;
+
+    @Inject
+    public AnalyticsResource(TokenService tokenService, ExamMetadataDao examMetadataDao, ExamAnalytics examAnalytics) {
+        this.tokenService = tokenService;
+        this.examMetadataDao = examMetadataDao;
+        this.examAnalytics = examAnalytics;
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam with given examID was created by current user
+     * Statistics are kept up to date as exam instances are submitted, so reading them takes time linear in the number of questions
+     *
+     * @param IDToken ( from header )
+     * @param examID  ( to identify particular exam )
+     * @return score statistics and histogram, and difficulty, discrimination and option distribution of each question
+     * @throws BadRequestException          ( if IDToken is invalid )
+     * @throws NotFoundException            ( if exam was not created by current user )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     */
+    @GET
+    public AnalyticsResponse getAnalytics(@NotNull @HeaderParam("Authentication") String IDToken, @PathParam("examID") int examID) {
+        String userID;
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        if (examMetadataDao.getExamMetadataByUser(examID, userID) == null) throw new NotFoundException("Exam not found");
+
+        return examAnalytics.report(examID);
+    }
+
+}
@@ -16,6 +16,8 @@
 
 package com.google.googleinterns.gscribe.resources;
 
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
 import com.google.googleinterns.gscribe.dao.UserTokenDao;
 import com.google.googleinterns.gscribe.models.User;
 import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
@@ -32,6 +34,8 @@ import java.io.IOException;
 import java.security.GeneralSecurityException;
 
 @Path("/authenticate")
+@Timed
+@ExceptionMetered
 public class AuthenticationResource {
 
     private final TokenService tokenService;
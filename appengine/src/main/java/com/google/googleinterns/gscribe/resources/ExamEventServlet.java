@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources;
+
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.models.ExamInstance;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.services.ExamSessionService;
+import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.googleinterns.gscribe.services.events.ExamEventHub;
+import com.google.inject.Inject;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.NotFoundException;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Server-sent event stream of an exam instance at /events/exam/{examID}/instance/{instanceID}
+ * Browsers can not set headers on an EventSource, so the IDToken may also be sent as authorization-code query parameter
+ * Served as an async servlet rather than a Jersey resource, the stream is handed to ExamEventHub and no request thread is held
+ */
+public class ExamEventServlet extends HttpServlet {
+
+    private static final Pattern PATH = Pattern.compile("^/exam/(\\d+)/instance/(\\d+)$");
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final TokenService tokenService;
+    private final ShardRouter shardRouter;
+    private final ExamSessionService examSessionService;
+    private final ExamEventHub examEventHub;
+
+    @Inject
+    public ExamEventServlet(TokenService tokenService, ShardRouter shardRouter, ExamSessionService examSessionService, ExamEventHub examEventHub) {
+        this.tokenService = tokenService;
+        this.shardRouter = shardRouter;
+        this.examSessionService = examSessionService;
+        this.examEventHub = examEventHub;
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam instance belongs to given exam and was started by current user and is not already submitted
+     * Start async processing and hand the stream to the event hub
+     * Responds 400 if IDToken is invalid or exam instance is already submitted, 404 if exam instance does not exist for this exam and user,
+     * 503 if this server has no stream left, 500 by GeneralSecurityException and IOException for credentials file
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Matcher matcher = PATH.matcher(String.valueOf(request.getPathInfo()));
+        if (!matcher.matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        int examID = Integer.parseInt(matcher.group(1));
+        int examInstanceID = Integer.parseInt(matcher.group(2));
+
+        String IDToken = request.getHeader("authorization-code");
+        if (IDToken == null) IDToken = request.getParameter("authorization-code");
+        if (IDToken == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing authorization code");
+            return;
+        }
+        String userID;
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        } catch (InvalidRequestException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        ExamInstance examInstance;
+        try {
+            examInstance = shardRouter.forExam(examID).getExamInstanceDao().getExamInstanceByExamInstanceID(examID, examInstanceID);
+        } catch (NotFoundException e) {
+            examInstance = null;
+        }
+        if (examInstance == null || !userID.equals(examInstance.getUserID())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Exam instance not found");
+            return;
+        }
+        if (examInstance.getEndTime() != null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Exam already submitted");
+            return;
+        }
+        long deadline = examSessionService.getDeadline(examInstance);
+
+        if (!examEventHub.reserveConnection()) {
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        try {
+            response.setContentType("text/event-stream");
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader("Cache-Control", "no-cache");
+            response.setHeader("X-Accel-Buffering", "no");
+            AsyncContext asyncContext = request.startAsync();
+            asyncContext.setTimeout(0);
+            examEventHub.open(examInstanceID, deadline, asyncContext);
+        } catch (IOException | RuntimeException e) {
+            examEventHub.releaseConnection();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.googleinterns.gscribe.dao.ExamInstanceDao;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.dao.sequence.IdAllocator;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.models.Answer;
+import com.google.googleinterns.gscribe.models.ExamInstance;
+import com.google.googleinterns.gscribe.models.ExamMetadata;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.resources.io.exception.RequestInProgressException;
+import com.google.googleinterns.gscribe.resources.io.exception.SubmissionQueueFullException;
+import com.google.googleinterns.gscribe.resources.io.request.StartExamRequest;
+import com.google.googleinterns.gscribe.resources.io.request.SubmissionRequest;
+import com.google.googleinterns.gscribe.resources.io.response.ExamInstanceResponse;
+import com.google.googleinterns.gscribe.resources.io.response.SubmissionResponse;
+import com.google.googleinterns.gscribe.resources.io.response.WaitingRoomResponse;
+import com.google.googleinterns.gscribe.services.AnswerIngestionService;
+import com.google.googleinterns.gscribe.services.ExamArchiveService;
+import com.google.googleinterns.gscribe.services.ExamSessionService;
+import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.googleinterns.gscribe.services.admission.Admission;
+import com.google.googleinterns.gscribe.services.admission.AdmissionController;
+import com.google.googleinterns.gscribe.services.attempt.ExamAttemptRegistry;
+import com.google.googleinterns.gscribe.services.events.ExamEventHub;
+import com.google.googleinterns.gscribe.services.idempotency.IdempotencyStore;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Path("/exam/{examID}/instance")
+@Produces("application/json")
+@Timed
+@ExceptionMetered
+public class ExamInstanceResource {
+
+    private static final long SUBMISSION_RETRY_AFTER_SECONDS = 1;
+    private static final long WAITING_ROOM_RETRY_AFTER_SECONDS = 10;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
+    private final TokenService tokenService;
+    private final ShardRouter shardRouter;
+    private final ExamMetadataDao examMetadataDao;
+    private final AnswerIngestionService answerIngestionService;
+    private final ExamArchiveService examArchiveService;
+    private final ExamSessionService examSessionService;
+    private final ExamAttemptRegistry examAttemptRegistry;
+    private final IdAllocator examInstanceIds;
+    private final ExamEventHub examEventHub;
+    private final IdempotencyStore idempotencyStore;
+    private final AdmissionController admissionController;
+    private final long commitTimeoutMillis;
+
+    @Inject
+    public ExamInstanceResource(TokenService tokenService, ShardRouter shardRouter, ExamMetadataDao examMetadataDao, AnswerIngestionService answerIngestionService,
+                                ExamArchiveService examArchiveService, ExamSessionService examSessionService, ExamAttemptRegistry examAttemptRegistry,
+                                @Named("examInstanceIds") IdAllocator examInstanceIds, ExamEventHub examEventHub,
+                                IdempotencyStore idempotencyStore, AdmissionController admissionController,
+                                @Named("commitTimeoutMillis") long commitTimeoutMillis) {
+        this.tokenService = tokenService;
+        this.shardRouter = shardRouter;
+        this.examMetadataDao = examMetadataDao;
+        this.answerIngestionService = answerIngestionService;
+        this.examArchiveService = examArchiveService;
+        this.examSessionService = examSessionService;
+        this.examAttemptRegistry = examAttemptRegistry;
+        this.examInstanceIds = examInstanceIds;
+        this.examEventHub = examEventHub;
+        this.idempotencyStore = idempotencyStore;
+        this.admissionController = admissionController;
+        this.commitTimeoutMillis = commitTimeoutMillis;
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam exists, its term is not archived and it was not attempted before by the given roll number
+     * Attempts are looked up in memory first, only a roll number found there is confirmed from the database,
+     * an attempt made through another server is caught by the unique key on ( exam id, roll number )
+     * If the roll number was imported with the roster, its exam instance is started in place by a single update,
+     * otherwise exam instance is created on the shard of the exam with an id from the id allocator
+     * Register the exam session so that it is submitted once the exam duration elapses
+     * Starts go through the admission controller, when no slot is free the client gets a ticket and its queue position with 202
+     * and retries with the ticket, slots are granted to tickets in FIFO order
+     *
+     * @param IDToken         ( from header )
+     * @param admissionTicket ( from header, optional, ticket from an earlier 202 response )
+     * @param examID          ( to identify particular exam )
+     * @param request         ( must contain student roll number )
+     * @return newly created exam instance, or waiting room ticket and position
+     * @throws BadRequestException          ( if IDToken is invalid,
+     *                                      if roll number is invalid,
+     *                                      if exam is archived,
+     *                                      if exam was already attempted by the roll number )
+     * @throws NotFoundException            ( if exam does not exist )
+     * @throws ServiceUnavailableException  ( if waiting room is full )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response startExam(@NotNull @HeaderParam("Authentication") String IDToken, @HeaderParam("Admission-Ticket") Long admissionTicket,
+                              @PathParam("examID") int examID, @NotNull StartExamRequest request) {
+        String userID;
+        if (request.getStudentRollNum() <= 0) throw new BadRequestException("Invalid roll number");
+
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+
+        Admission admission = admissionController.admit(admissionTicket);
+        if (admission == null) throw new ServiceUnavailableException(WAITING_ROOM_RETRY_AFTER_SECONDS);
+        if (!admission.isAdmitted()) {
+            return Response.accepted(new WaitingRoomResponse(admission.getTicket(), admission.getPosition(),
+                    admissionController.getPollIntervalMillis())).build();
+        }
+        try {
+            return Response.ok(start(examID, userID, request.getStudentRollNum())).build();
+        } finally {
+            admissionController.release(admission);
+        }
+    }
+
+    /**
+     * Starts exam instance of the roll number, see startExam
+     *
+     * @return newly created exam instance
+     */
+    private ExamInstanceResponse start(int examID, String userID, int studentRollNum) {
+        ExamMetadata examMetadata = examMetadataDao.getExamMetadataByExamId(examID);
+        if (examMetadata == null) throw new NotFoundException("Exam not found");
+        if (examArchiveService.isArchived(examID)) throw new BadRequestException("Exam is archived");
+
+        ExamInstanceDao examInstanceDao = shardRouter.forExam(examID).getExamInstanceDao();
+        if (examAttemptRegistry.hasAttempted(examID, studentRollNum)) {
+            ExamInstance attempted = examInstanceDao.getExamInstanceByUserDetails(examID, studentRollNum);
+            if (attempted != null && attempted.getStartTime() != null) throw new BadRequestException("Exam already attempted");
+        }
+        Timestamp startTime = new Timestamp(System.currentTimeMillis());
+        Integer rosteredInstanceID = examInstanceDao.startRosteredExamInstance(examID, studentRollNum, userID, startTime);
+        if (rosteredInstanceID != null) {
+            examAttemptRegistry.recordAttempt(examID, studentRollNum);
+            ExamInstance examInstance = new ExamInstance(rosteredInstanceID, examID, userID, studentRollNum, startTime, null);
+            examSessionService.startSession(examInstance, examMetadata.getDuration());
+            return new ExamInstanceResponse(examInstance, false);
+        }
+
+        ExamInstance examInstance = new ExamInstance(examInstanceIds.nextID(), examID, userID, studentRollNum, startTime, null);
+        try {
+            examInstanceDao.insertExamInstance(examInstance);
+        } catch (UnableToExecuteStatementException e) {
+            if (!(e.getCause() instanceof SQLIntegrityConstraintViolationException)) throw e;
+            examAttemptRegistry.recordAttempt(examID, studentRollNum);
+            throw new BadRequestException("Exam already attempted");
+        }
+        examAttemptRegistry.recordAttempt(examID, studentRollNum);
+        examSessionService.startSession(examInstance, examMetadata.getDuration());
+        return new ExamInstanceResponse(examInstance, false);
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam instance belongs to given exam and was started by current user and is not already submitted
+     * Check that exam time, with grace period, is not over, past it the exam instance is submitted by the exam session
+     * Queue answers to answer ingestion which writes them along with other submissions in one transaction
+     * Wait till the transaction is committed, end time of the exam instance is set in the same transaction
+     * With an idempotency key, a retry of a submission which succeeded gets its response without any write
+     *
+     * @param IDToken        ( from header )
+     * @param idempotencyKey ( from header, optional, unique per submission attempt of the client )
+     * @param examID         ( to identify particular exam )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @param request        ( must contain answers )
+     * @return a response message once answers are saved
+     * @throws BadRequestException          ( if IDToken is invalid,
+     *                                      if idempotency key is longer than 64 characters,
+     *                                      if answers are missing or invalid,
+     *                                      if exam instance is already submitted,
+     *                                      if exam time is over )
+     * @throws NotFoundException            ( if exam instance does not exist for this exam and user )
+     * @throws ServiceUnavailableException  ( if too many submissions are waiting to be written,
+     *                                      if a request with the same idempotency key is still running )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file,
+     *                                      if answers could not be written )
+     */
+    @POST
+    @Path("/{instanceID}/submit")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public SubmissionResponse submitExam(@NotNull @HeaderParam("Authentication") String IDToken, @HeaderParam("Idempotency-Key") String idempotencyKey,
+                                         @PathParam("examID") int examID, @PathParam("instanceID") int examInstanceID,
+                                         @NotNull SubmissionRequest request) {
+        String userID;
+        validateAnswers(request);
+        validateIdempotencyKey(idempotencyKey);
+
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+
+        if (idempotencyKey == null) return new SubmissionResponse(submit(examID, examInstanceID, userID, request.getAnswers()));
+        try {
+            return new SubmissionResponse(idempotencyStore.execute(examInstanceID, userID, idempotencyKey, commitTimeoutMillis,
+                    () -> submit(examID, examInstanceID, userID, request.getAnswers())));
+        } catch (RequestInProgressException e) {
+            throw new ServiceUnavailableException(SUBMISSION_RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam instance belongs to given exam and was started by current user and is not already submitted
+     * Check that exam time, with grace period, is not over
+     * Save only the answers sent, client sends the answers changed since its last autosave
+     * Each answer carries a version increasing with every edit of that question, an answer older than the saved one is dropped
+     * Answers go through answer ingestion and are committed together with other autosaves and submissions
+     * Once committed, event streams of the exam instance receive an autosave acknowledgement
+     * With an idempotency key, a retry of an autosave which succeeded gets its response without any write
+     *
+     * @param IDToken        ( from header )
+     * @param idempotencyKey ( from header, optional, unique per autosave attempt of the client )
+     * @param examID         ( to identify particular exam )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @param request        ( must contain changed answers )
+     * @return a response message once answers are saved
+     * @throws BadRequestException          ( if IDToken is invalid,
+     *                                      if idempotency key is longer than 64 characters,
+     *                                      if answers are missing or invalid,
+     *                                      if exam instance is already submitted,
+     *                                      if exam time is over )
+     * @throws NotFoundException            ( if exam instance does not exist for this exam and user )
+     * @throws ServiceUnavailableException  ( if too many submissions are waiting to be written,
+     *                                      if a request with the same idempotency key is still running )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file,
+     *                                      if answers could not be written )
+     */
+    @PUT
+    @Path("/{instanceID}/answers")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public SubmissionResponse autosaveAnswers(@NotNull @HeaderParam("Authentication") String IDToken, @HeaderParam("Idempotency-Key") String idempotencyKey,
+                                              @PathParam("examID") int examID, @PathParam("instanceID") int examInstanceID,
+                                              @NotNull SubmissionRequest request) {
+        String userID;
+        validateAnswers(request);
+        validateIdempotencyKey(idempotencyKey);
+
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+
+        if (idempotencyKey == null) return new SubmissionResponse(autosave(examID, examInstanceID, userID, request.getAnswers()));
+        try {
+            return new SubmissionResponse(idempotencyStore.execute(examInstanceID, userID, idempotencyKey, commitTimeoutMillis,
+                    () -> autosave(examID, examInstanceID, userID, request.getAnswers())));
+        } catch (RequestInProgressException e) {
+            throw new ServiceUnavailableException(SUBMISSION_RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam with given examID was created by current user
+     * Fetch exam instance with its answers from the shard of the exam
+     * If it is not there, the term of the exam may have been archived, so look it up in archive files
+     *
+     * @param IDToken        ( from header )
+     * @param examID         ( to identify particular exam )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @return exam instance with answers, and whether it was read from archive
+     * @throws BadRequestException          ( if IDToken is invalid )
+     * @throws NotFoundException            ( if exam was not created by current user,
+     *                                      if exam instance does not exist for this exam )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file,
+     *                                      if archive file could not be read )
+     */
+    @GET
+    @Path("/{instanceID}")
+    public ExamInstanceResponse getExamInstance(@NotNull @HeaderParam("authorization-code") String IDToken, @PathParam("examID") int examID,
+                                                @PathParam("instanceID") int examInstanceID) {
+        String userID;
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        if (examMetadataDao.getExamMetadataByUser(examID, userID) == null) throw new NotFoundException("Exam not found");
+
+        Shard shard = shardRouter.forExam(examID);
+        ExamInstance examInstance = shard.getExamInstanceDao().getExamInstanceByExamInstanceID(examID, examInstanceID);
+        if (examInstance != null) {
+            examInstance.setAnswers(shard.getAnswerDao().getAnswersByExamInstanceID(examID, examInstanceID));
+            return new ExamInstanceResponse(examInstance, false);
+        }
+
+        try {
+            examInstance = examArchiveService.getArchivedExamInstance(examID, examInstanceID);
+        } catch (IOException e) {
+            throw new InternalServerErrorException();
+        }
+        if (examInstance == null) throw new NotFoundException("Exam instance not found");
+        return new ExamInstanceResponse(examInstance, true);
+    }
+
+    /**
+     * Checks the exam instance can still be submitted, saves answers with end time and ends the exam session
+     *
+     * @return response message
+     */
+    private String submit(int examID, int examInstanceID, String userID, List<Answer> answers) {
+        ExamInstance examInstance = getExamInstance(examID, examInstanceID, userID);
+        if (examInstance.getEndTime() != null) throw new BadRequestException("Exam already submitted");
+        if (!examSessionService.isOpen(examInstance)) throw new BadRequestException("Exam time is over");
+
+        saveAnswers(examID, examInstanceID, answers, true);
+        examSessionService.endSession(examInstanceID);
+        examEventHub.submitted(examInstanceID, false);
+        return "Exam submitted";
+    }
+
+    /**
+     * Checks the exam instance is still open and saves answers
+     *
+     * @return response message
+     */
+    private String autosave(int examID, int examInstanceID, String userID, List<Answer> answers) {
+        ExamInstance examInstance = getExamInstance(examID, examInstanceID, userID);
+        if (examInstance.getEndTime() != null) throw new BadRequestException("Exam already submitted");
+        if (!examSessionService.isOpen(examInstance)) throw new BadRequestException("Exam time is over");
+        if (answers.isEmpty()) return "Answers saved";
+
+        saveAnswers(examID, examInstanceID, answers, false);
+        examEventHub.autosaved(examInstanceID, answers);
+        return "Answers saved";
+    }
+
+    /**
+     * Queue answers to answer ingestion and wait till the transaction containing them is committed
+     *
+     * @param examID         ( to identify particular exam )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @param answers        ( answers to be saved )
+     * @param complete       ( whether this is the final submission of the exam instance )
+     * @throws ServiceUnavailableException  ( if too many submissions are waiting to be written )
+     * @throws InternalServerErrorException ( if answers could not be written within commit timeout )
+     */
+    private void saveAnswers(int examID, int examInstanceID, List<Answer> answers, boolean complete) {
+        try {
+            answerIngestionService.submit(examID, examInstanceID, answers, complete).get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (SubmissionQueueFullException e) {
+            throw new ServiceUnavailableException(SUBMISSION_RETRY_AFTER_SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new InternalServerErrorException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException();
+        }
+    }
+
+    /**
+     * check that answers are present
+     * check that every answer has a question number, an answer and a non negative version
+     *
+     * @param request ( submission or autosave request )
+     * @throws BadRequestException ( if answers are missing or any answer is invalid )
+     */
+    private void validateAnswers(SubmissionRequest request) {
+        if (request.getAnswers() == null) throw new BadRequestException("Missing request parameters");
+        for (Answer answer : request.getAnswers()) {
+            if (answer == null || answer.getAnswer() == null || answer.getQuestionNum() <= 0 || answer.getVersion() < 0)
+                throw new BadRequestException("Invalid answer");
+        }
+    }
+
+    /**
+     * check that idempotency key, if sent, is not empty and at most 64 characters
+     *
+     * @param idempotencyKey ( idempotency key header )
+     * @throws BadRequestException ( if idempotency key is invalid )
+     */
+    private void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey == null) return;
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) throw new BadRequestException("Invalid idempotency key");
+    }
+
+    /**
+     * Queries exam instance from the shard of the exam and checks that it belongs to exam identified by examID and user identified by userID
+     *
+     * @param examID         ( to identify particular exam )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @param userID         ( unique user id of user, here examinee )
+     * @return exam instance object
+     * @throws NotFoundException ( if exam instance does not exist for this exam and user )
+     */
+    private ExamInstance getExamInstance(int examID, int examInstanceID, String userID) {
+        ExamInstance examInstance = shardRouter.forExam(examID).getExamInstanceDao().getExamInstanceByExamInstanceID(examID, examInstanceID);
+        if (examInstance == null || examInstance.getExamID() != examID || !userID.equals(examInstance.getUserID()))
+            throw new NotFoundException("Exam instance not found");
+        return examInstance;
+    }
+
+}
@@ -16,9 +16,14 @@
 
 package com.google.googleinterns.gscribe.resources;
 
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.googleinterns.gscribe.dao.ExamCreationDao;
 import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
 import com.google.googleinterns.gscribe.dao.QuestionsDao;
 import com.google.googleinterns.gscribe.dao.UserTokenDao;
+import com.google.googleinterns.gscribe.dao.routing.ReadYourWritesTracker;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
 import com.google.googleinterns.gscribe.models.Exam;
 import com.google.googleinterns.gscribe.models.ExamMetadata;
 import com.google.googleinterns.gscribe.models.Question;
@@ -26,38 +31,59 @@ import com.google.googleinterns.gscribe.models.User;
 import com.google.googleinterns.gscribe.resources.io.exception.ExamFormatException;
 import com.google.googleinterns.gscribe.resources.io.exception.InvalidDatabaseDataException;
 import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.resources.io.request.ExamListCursor;
 import com.google.googleinterns.gscribe.resources.io.request.ExamRequest;
 import com.google.googleinterns.gscribe.resources.io.response.ExamResponse;
 import com.google.googleinterns.gscribe.resources.io.response.ExamsListResponse;
+import com.google.googleinterns.gscribe.resources.io.response.QuestionSearchResponse;
 import com.google.googleinterns.gscribe.services.ExamSheetsService;
+import com.google.googleinterns.gscribe.services.QuestionSearchService;
 import com.google.googleinterns.gscribe.services.TokenService;
-import com.google.gson.Gson;
+import com.google.googleinterns.gscribe.services.search.SearchResult;
+import com.google.googleinterns.gscribe.services.search.Tokenizer;
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
-import java.util.ArrayList;
 import java.util.List;
 
 @Path("/exam")
 @Produces("application/json")
+@Timed
+@ExceptionMetered
 public class ExamResource {
 
+    private static final int MAX_EXAMS_PAGE_SIZE = 200;
+    private static final int MAX_SEARCH_HITS = 100;
+
     private final ExamSheetsService examSheetsService;
     private final TokenService tokenService;
     private final UserTokenDao userTokenDao;
     private final ExamMetadataDao examMetadataDao;
     private final QuestionsDao questionsDao;
+    private final ExamCreationDao examCreationDao;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final QuestionSearchService questionSearchService;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
 
     @Inject
-    public ExamResource(ExamSheetsService examSheetsService, TokenService tokenService, UserTokenDao userTokenDao, ExamMetadataDao examMetadataDao, QuestionsDao questionsDao) {
+    public ExamResource(ExamSheetsService examSheetsService, TokenService tokenService, UserTokenDao userTokenDao, ExamMetadataDao examMetadataDao, QuestionsDao questionsDao,
+                        ExamCreationDao examCreationDao, ReadYourWritesTracker readYourWritesTracker, QuestionSearchService questionSearchService,
+                        ShardRouter shardRouter, @Named("batchSize") int batchSize) {
         this.examSheetsService = examSheetsService;
         this.tokenService = tokenService;
         this.userTokenDao = userTokenDao;
         this.examMetadataDao = examMetadataDao;
         this.questionsDao = questionsDao;
+        this.examCreationDao = examCreationDao;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.questionSearchService = questionSearchService;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
     }
 
     /**
@@ -66,8 +92,9 @@ public class ExamResource {
      * Use the tokens to read exam from the spreadsheet
      * Validate exam
      * Convert exam from List<List<Object>> to Exam object
-     * post examMetadata in database to get examID
-     * post exam into the database
+     * post examMetadata, questions and the shard of the exam into the database in a single transaction
+     * Record the write so the user's next exam listing is read from the primary
+     * Add the questions to the user's question bank index
      *
      * @param IDToken ( from header )
      * @param request ( must contain spreadsheetID, sheetName )
@@ -100,32 +127,32 @@ public class ExamResource {
             throw new InternalServerErrorException();
         }
 
-        int examID = examMetadataDao.insertExamMetadata(exam.getExamMetadata());
-        exam.getExamMetadata().setId(examID);
-
-        List<String> questionJSON = new ArrayList<>();
-        List<Integer> questionNum = new ArrayList<>();
-        for (int i = 0; i < exam.getQuestions().size(); i++) {
-            questionJSON.add(new Gson().toJson(exam.getQuestions().get(i)));
-            questionNum.add(exam.getQuestions().get(i).getQuestionNumber());
-        }
-        questionsDao.insertExamQuestions(questionJSON, examID, questionNum);
+        examCreationDao.insertExam(exam, shardRouter::initialShard, batchSize);
+        readYourWritesTracker.recordWrite();
+        questionSearchService.examCreated(userID, exam);
         return new ExamResponse(exam);
     }
 
     /**
      * Get corresponding userID from the IDToken using tokenVerifier
-     * using userID get all exams metadata from database for current user
+     * using userID get a page of exams metadata from database for current user, newest first
+     * If cursor is present the page starts after the exam it points to
+     * One extra exam is queried to know whether a next page exists, if it does the response carries cursor for it
      *
      * @param IDToken ( from header )
-     * @return List of exam metadata for current user
-     * @throws BadRequestException          ( if IDToken is invalid )
+     * @param cursor  ( nextCursor of previous page, absent for first page )
+     * @param limit   ( page size, 1-200 )
+     * @return page of exam metadata for current user
+     * @throws BadRequestException          ( if IDToken is invalid,
+     *                                      if cursor is malformed,
+     *                                      if limit is out of range )
      * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
      */
     @GET
     @Path("/all")
-    public ExamsListResponse getAllExamsId(@NotNull @HeaderParam("authorization-code") String IDToken) {
+    public ExamsListResponse getAllExamsId(@NotNull @HeaderParam("authorization-code") String IDToken, @QueryParam("cursor") String cursor, @DefaultValue("50") @QueryParam("limit") int limit) {
         String userID;
+        List<ExamMetadata> page;
         try {
             userID = tokenService.verifyIDToken(IDToken);
         } catch (GeneralSecurityException | IOException e) {
@@ -133,7 +160,57 @@ public class ExamResource {
         } catch (InvalidRequestException e) {
             throw new BadRequestException(e.getMessage());
         }
-        return new ExamsListResponse(examMetadataDao.getExamMetadataByUser(userID));
+        if (limit <= 0 || limit > MAX_EXAMS_PAGE_SIZE)
+            throw new BadRequestException("limit not in a range of 1-" + MAX_EXAMS_PAGE_SIZE);
+
+        if (cursor == null) {
+            page = examMetadataDao.getFirstExamMetadataPageByUser(userID, limit + 1);
+        } else {
+            ExamListCursor after;
+            try {
+                after = ExamListCursor.decode(cursor);
+            } catch (InvalidRequestException e) {
+                throw new BadRequestException(e.getMessage());
+            }
+            page = examMetadataDao.getExamMetadataPageByUser(userID, after.getCreatedOn(), after.getExamID(), limit + 1);
+        }
+
+        if (page.size() <= limit) return new ExamsListResponse(page, null);
+        page = page.subList(0, limit);
+        return new ExamsListResponse(page, ExamListCursor.after(page.get(limit - 1)).encode());
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Search statements and options of questions of all exams created by current user, ranked by BM25
+     *
+     * @param IDToken ( from header )
+     * @param query   ( search text )
+     * @param limit   ( maximum number of questions returned, 1-100 )
+     * @return best matching questions with their exam ids and the number of questions matching any word of the query
+     * @throws BadRequestException          ( if IDToken is invalid,
+     *                                      if query has no words,
+     *                                      if limit is out of range )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     */
+    @GET
+    @Path("/search")
+    public QuestionSearchResponse searchQuestions(@NotNull @HeaderParam("authorization-code") String IDToken, @NotNull @QueryParam("q") String query,
+                                                  @DefaultValue("20") @QueryParam("limit") int limit) {
+        String userID;
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        if (limit <= 0 || limit > MAX_SEARCH_HITS)
+            throw new BadRequestException("limit not in a range of 1-" + MAX_SEARCH_HITS);
+        if (Tokenizer.tokens(query).isEmpty()) throw new BadRequestException("Search query has no words");
+
+        SearchResult result = questionSearchService.search(userID, query, limit);
+        return new QuestionSearchResponse(result.getHits(), result.getMatches());
     }
 
     /**
@@ -147,10 +224,11 @@ public class ExamResource {
      * @return exam object for given examID
      * @throws BadRequestException          ( if IDToken is invalid )
      * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     * @throws NotFoundException            ( if exam with given examID was not created by current user )
      */
     @GET
     @Path("/{id}")
-    public ExamResponse getExam(@NotNull @HeaderParam("authorization-code") String IDToken, @NotNull @PathParam("id") String id) {
+    public ExamResponse getExam(@NotNull @HeaderParam("authorization-code") String IDToken, @NotNull @PathParam("id") int id) {
         String userID;
         try {
             userID = tokenService.verifyIDToken(IDToken);
@@ -159,7 +237,8 @@ public class ExamResource {
         } catch (InvalidRequestException e) {
             throw new BadRequestException(e.getMessage());
         }
-        ExamMetadata metadata = examMetadataDao.getExamMetadataById(id, userID);
+        ExamMetadata metadata = examMetadataDao.getExamMetadataByUser(id, userID);
+        if (metadata == null) throw new NotFoundException("Exam not found");
         List<Question> questions = questionsDao.getExamQuestions(id);
         Exam exam = new Exam(metadata, questions);
         return new ExamResponse(exam);
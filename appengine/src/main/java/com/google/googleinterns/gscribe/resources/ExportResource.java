@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.services.ExamExportService;
+import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.googleinterns.gscribe.services.export.ExportFormat;
+import com.google.inject.Inject;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.zip.GZIPOutputStream;
+
+@Path("/exam/{examID}/export")
+@Timed
+@ExceptionMetered
+public class ExportResource {
+
+    private static final String GZIP_MEDIA_TYPE = "application/gzip";
+
+    private final TokenService tokenService;
+    private final ExamMetadataDao examMetadataDao;
+    private final ExamExportService examExportService;
+
+    @Inject
+    public ExportResource(TokenService tokenService, ExamMetadataDao examMetadataDao, ExamExportService examExportService) {
+        this.tokenService = tokenService;
+        this.examMetadataDao = examMetadataDao;
+        this.examExportService = examExportService;
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam with given examID was created by current user
+     * Results are written while they are read from the database, the CSV header is sent before the first row is read
+     * A gzip file is flushed along with the stream, so compressed bytes are sent as soon as they are written
+     *
+     * @param IDToken ( from header )
+     * @param examID  ( to identify particular exam )
+     * @param format  ( csv or ndjson, csv if not given )
+     * @param gzip    ( whether to send a gzip compressed file )
+     * @return results of every exam instance of the exam as a file download
+     * @throws BadRequestException          ( if IDToken is invalid, if format is not known )
+     * @throws NotFoundException            ( if exam was not created by current user )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     */
+    @GET
+    public Response exportResults(@NotNull @HeaderParam("Authentication") String IDToken, @PathParam("examID") int examID,
+                                  @QueryParam("format") @DefaultValue("csv") String format, @QueryParam("gzip") @DefaultValue("false") boolean gzip) {
+        String userID;
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        ExportFormat exportFormat = ExportFormat.of(format);
+        if (exportFormat == null) throw new BadRequestException("Unknown export format " + format);
+        if (examMetadataDao.getExamMetadataByUser(examID, userID) == null) throw new NotFoundException("Exam not found");
+
+        StreamingOutput output = out -> {
+            if (!gzip) {
+                examExportService.export(examID, exportFormat, out);
+                return;
+            }
+            GZIPOutputStream compressed = new GZIPOutputStream(out, true);
+            examExportService.export(examID, exportFormat, compressed);
+            compressed.finish();
+        };
+        String fileName = "exam-" + examID + "-results." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return Response.ok(output, gzip ? GZIP_MEDIA_TYPE : exportFormat.getMediaType() + "; charset=utf-8")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .build();
+    }
+
+}
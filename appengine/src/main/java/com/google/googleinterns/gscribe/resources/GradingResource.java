@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.resources.io.response.GradingResponse;
+import com.google.googleinterns.gscribe.services.GradingService;
+import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.googleinterns.gscribe.services.grading.GradingResult;
+import com.google.inject.Inject;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.*;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+@Path("/exam/{examID}/grade")
+@Produces("application/json")
+@Timed
+@ExceptionMetered
+public class GradingResource {
+
+    private final TokenService tokenService;
+    private final ExamMetadataDao examMetadataDao;
+    private final GradingService gradingService;
+
+    @Inject
+    public GradingResource(TokenService tokenService, ExamMetadataDao examMetadataDao, GradingService gradingService) {
+        this.tokenService = tokenService;
+        this.examMetadataDao = examMetadataDao;
+        this.gradingService = gradingService;
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam with given examID was created by current user
+     * Grade submitted exam instances on multiple choice questions with an answer key and store their scores
+     *
+     * @param IDToken ( from header )
+     * @param examID  ( to identify particular exam )
+     * @return number of graded exam instances and questions, maximum and average score
+     * @throws BadRequestException          ( if IDToken is invalid )
+     * @throws NotFoundException            ( if exam was not created by current user )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     */
+    @POST
+    public GradingResponse gradeExam(@NotNull @HeaderParam("Authentication") String IDToken, @PathParam("examID") int examID) {
+        String userID;
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        if (examMetadataDao.getExamMetadataByUser(examID, userID) == null) throw new NotFoundException("Exam not found");
+
+        GradingResult result = gradingService.grade(examID);
+        return new GradingResponse(result.getGradedInstances(), result.getGradedQuestions(), result.getMaxScore(), result.getAverageScore());
+    }
+
+}
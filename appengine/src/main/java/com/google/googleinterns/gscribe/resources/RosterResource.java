@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.dao.sequence.IdAllocator;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.models.RosterEntry;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.resources.io.request.RosterRequest;
+import com.google.googleinterns.gscribe.resources.io.response.RosterResponse;
+import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Path("/exam/{examID}/roster")
+@Produces("application/json")
+@Timed
+@ExceptionMetered
+public class RosterResource {
+
+    private static final int MAX_ROSTER_SIZE = 50000;
+    private static final int MAX_EMAIL_LENGTH = 300;
+
+    private final TokenService tokenService;
+    private final ExamMetadataDao examMetadataDao;
+    private final ShardRouter shardRouter;
+    private final IdAllocator examInstanceIds;
+    private final int batchSize;
+
+    @Inject
+    public RosterResource(TokenService tokenService, ExamMetadataDao examMetadataDao, ShardRouter shardRouter,
+                          @Named("examInstanceIds") IdAllocator examInstanceIds, @Named("batchSize") int batchSize) {
+        this.tokenService = tokenService;
+        this.examMetadataDao = examMetadataDao;
+        this.shardRouter = shardRouter;
+        this.examInstanceIds = examInstanceIds;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam with given examID was created by current user
+     * Validate roster
+     * Create an exam instance, not started yet, for every examinee on the shard of the exam, in multi-row batches
+     * Exam instance ids are taken from the id allocator, ids of examinees already on the roster are left unused
+     * Starting the exam then only stamps start time on the examinee's row
+     *
+     * @param IDToken ( from header )
+     * @param examID  ( to identify particular exam )
+     * @param request ( must contain students with roll numbers, email ids are optional )
+     * @return number of examinees added and number already on the roster
+     * @throws BadRequestException          ( if IDToken is invalid,
+     *                                      if roster is empty, too large or has an invalid entry )
+     * @throws NotFoundException            ( if exam was not created by current user )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public RosterResponse importRoster(@NotNull @HeaderParam("Authentication") String IDToken, @PathParam("examID") int examID,
+                                       @NotNull RosterRequest request) {
+        String userID;
+        validateRoster(request);
+
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        if (examMetadataDao.getExamMetadataByUser(examID, userID) == null) throw new NotFoundException("Exam not found");
+
+        List<Integer> rollNumbers = new ArrayList<>(request.getStudents().size());
+        List<String> emailIDs = new ArrayList<>(request.getStudents().size());
+        for (RosterEntry entry : request.getStudents()) {
+            rollNumbers.add(entry.getStudentRollNum());
+            emailIDs.add(entry.getStudentEmailID());
+        }
+        int added = shardRouter.forExam(examID).getRosterDao().insertRoster(examInstanceIds.nextIDs(rollNumbers.size()), examID, rollNumbers, emailIDs, batchSize);
+        return new RosterResponse(added, rollNumbers.size() - added);
+    }
+
+    /**
+     * check that roster has 1 to 50000 students
+     * check that every student has a positive roll number and an email id of at most 300 characters if present
+     *
+     * @param request ( roster request )
+     * @throws BadRequestException ( if roster is missing, empty or too large, or any entry is invalid )
+     */
+    private void validateRoster(RosterRequest request) {
+        if (request.getStudents() == null || request.getStudents().isEmpty()) throw new BadRequestException("Missing request parameters");
+        if (request.getStudents().size() > MAX_ROSTER_SIZE) throw new BadRequestException("Roster larger than " + MAX_ROSTER_SIZE + " students");
+        for (RosterEntry entry : request.getStudents()) {
+            if (entry == null || entry.getStudentRollNum() <= 0) throw new BadRequestException("Invalid roll number");
+            if (entry.getStudentEmailID() != null && entry.getStudentEmailID().length() > MAX_EMAIL_LENGTH)
+                throw new BadRequestException("Invalid email id");
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.resources.io.response.RubricScoresResponse;
+import com.google.googleinterns.gscribe.services.RubricService;
+import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.inject.Inject;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.*;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+@Path("/exam/{examID}/question/{questionNum}/rubric-scores")
+@Produces("application/json")
+@Timed
+@ExceptionMetered
+public class RubricResource {
+
+    private final TokenService tokenService;
+    private final ExamMetadataDao examMetadataDao;
+    private final RubricService rubricService;
+
+    @Inject
+    public RubricResource(TokenService tokenService, ExamMetadataDao examMetadataDao, RubricService rubricService) {
+        this.tokenService = tokenService;
+        this.examMetadataDao = examMetadataDao;
+        this.rubricService = rubricService;
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam with given examID was created by current user and that the question has a rubric
+     * Suggest a score for every submitted answer to the question, scores are suggestions and are not stored
+     *
+     * @param IDToken     ( from header )
+     * @param examID      ( to identify particular exam )
+     * @param questionNum ( to identify the question of the exam )
+     * @return suggested score and matched rubric terms of each answer
+     * @throws BadRequestException          ( if IDToken is invalid )
+     * @throws NotFoundException            ( if exam was not created by current user, if question is not a subjective question with a rubric )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     */
+    @GET
+    public RubricScoresResponse getRubricScores(@NotNull @HeaderParam("Authentication") String IDToken, @PathParam("examID") int examID,
+                                                @PathParam("questionNum") int questionNum) {
+        String userID;
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        if (examMetadataDao.getExamMetadataByUser(examID, userID) == null) throw new NotFoundException("Exam not found");
+        if (rubricService.getRubric(examID, questionNum) == null) throw new NotFoundException("Question has no rubric");
+
+        return rubricService.scoreAnswers(examID, questionNum);
+    }
+
+}
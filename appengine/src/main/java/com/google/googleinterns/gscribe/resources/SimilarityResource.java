@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources;
+
+import com.codahale.metrics.annotation.ExceptionMetered;
+import com.codahale.metrics.annotation.Timed;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.models.QuestionType;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+import com.google.googleinterns.gscribe.resources.io.response.SimilarityResponse;
+import com.google.googleinterns.gscribe.services.SimilarityService;
+import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.inject.Inject;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.*;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+@Path("/exam/{examID}/question/{questionNum}/similar")
+@Produces("application/json")
+@Timed
+@ExceptionMetered
+public class SimilarityResource {
+
+    private static final int MAX_PAIRS = 5000;
+
+    private final TokenService tokenService;
+    private final ExamMetadataDao examMetadataDao;
+    private final QuestionsDao questionsDao;
+    private final SimilarityService similarityService;
+
+    @Inject
+    public SimilarityResource(TokenService tokenService, ExamMetadataDao examMetadataDao, QuestionsDao questionsDao, SimilarityService similarityService) {
+        this.tokenService = tokenService;
+        this.examMetadataDao = examMetadataDao;
+        this.questionsDao = questionsDao;
+        this.similarityService = similarityService;
+    }
+
+    /**
+     * Get corresponding userID from the IDToken using tokenVerifier
+     * Check that exam with given examID was created by current user and that the question is a subjective question of the exam
+     * Find pairs of answers to the question with estimated similarity of at least the threshold
+     *
+     * @param IDToken     ( from header )
+     * @param examID      ( to identify particular exam )
+     * @param questionNum ( to identify the question of the exam )
+     * @param threshold   ( lowest similarity of pairs, between 0 and 1, 0.8 if not given )
+     * @param limit       ( maximum number of pairs, 500 if not given )
+     * @return pairs of exam instances with similar answers, most similar first
+     * @throws BadRequestException          ( if IDToken is invalid, if threshold or limit is out of range, if question is not subjective )
+     * @throws NotFoundException            ( if exam was not created by current user, if question is not in the exam )
+     * @throws InternalServerErrorException ( by GeneralSecurityException and IOException for credentials file )
+     */
+    @GET
+    public SimilarityResponse findSimilarAnswers(@NotNull @HeaderParam("Authentication") String IDToken, @PathParam("examID") int examID,
+                                                 @PathParam("questionNum") int questionNum, @QueryParam("threshold") @DefaultValue("0.8") double threshold,
+                                                 @QueryParam("limit") @DefaultValue("500") int limit) {
+        String userID;
+        try {
+            userID = tokenService.verifyIDToken(IDToken);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new InternalServerErrorException();
+        } catch (InvalidRequestException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        if (threshold <= 0 || threshold > 1) throw new BadRequestException("Threshold must be above 0 and at most 1");
+        if (limit <= 0 || limit > MAX_PAIRS) throw new BadRequestException("Limit must be between 1 and " + MAX_PAIRS);
+        if (examMetadataDao.getExamMetadataByUser(examID, userID) == null) throw new NotFoundException("Exam not found");
+        QuestionType type = questionsDao.getExamQuestions(examID).stream()
+                .filter(question -> question.getQuestionNumber() == questionNum)
+                .map(Question::getType)
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Question not found"));
+        if (!type.equals(QuestionType.SUBJECTIVE)) throw new BadRequestException("Only answers of subjective questions are compared");
+
+        return similarityService.findSimilarAnswers(examID, questionNum, threshold, limit);
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.request;
+
+import com.google.googleinterns.gscribe.models.ExamMetadata;
+import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Position in exam listing of a user, the ( created_on, id ) of last exam of a page
+ * Passed to the client as an opaque URL safe token
+ */
+public class ExamListCursor {
+
+    private final Timestamp createdOn;
+    private final int examID;
+
+    public ExamListCursor(Timestamp createdOn, int examID) {
+        this.createdOn = createdOn;
+        this.examID = examID;
+    }
+
+    /**
+     * Creates the cursor pointing after the given exam
+     *
+     * @param examMetadata ( last exam of a page )
+     * @return cursor
+     */
+    public static ExamListCursor after(ExamMetadata examMetadata) {
+        return new ExamListCursor(examMetadata.getCreatedOn(), examMetadata.getId());
+    }
+
+    /**
+     * Decodes token received from the client
+     *
+     * @param token ( token from a previous ExamsListResponse )
+     * @return cursor
+     * @throws InvalidRequestException ( if token is malformed )
+     */
+    public static ExamListCursor decode(String token) throws InvalidRequestException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return new ExamListCursor(new Timestamp(Long.parseLong(value.substring(0, separator))), Integer.parseInt(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String value = createdOn.getTime() + ":" + examID;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Timestamp getCreatedOn() {
+        return createdOn;
+    }
+
+    public int getExamID() {
+        return examID;
+    }
+}
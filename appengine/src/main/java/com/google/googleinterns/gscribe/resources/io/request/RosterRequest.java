@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.request;
+
+import com.google.googleinterns.gscribe.models.RosterEntry;
+
+import java.util.List;
+
+public class RosterRequest {
+
+    private List<RosterEntry> students;
+
+    public RosterRequest() {
+    }
+
+    public List<RosterEntry> getStudents() {
+        return students;
+    }
+
+    public void setStudents(List<RosterEntry> students) {
+        this.students = students;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+import java.util.List;
+
+public class AnalyticsResponse {
+
+    private final int submissions;
+    private final int maxScore;
+    private final double averageScore;
+    private final double scoreStandardDeviation;
+    private final int histogramBinWidth;
+    private final int[] histogram;
+    private final List<QuestionAnalyticsResponse> questions;
+
+    public AnalyticsResponse(int submissions, int maxScore, double averageScore, double scoreStandardDeviation, int histogramBinWidth,
+                             int[] histogram, List<QuestionAnalyticsResponse> questions) {
+        this.submissions = submissions;
+        this.maxScore = maxScore;
+        this.averageScore = averageScore;
+        this.scoreStandardDeviation = scoreStandardDeviation;
+        this.histogramBinWidth = histogramBinWidth;
+        this.histogram = histogram;
+        this.questions = questions;
+    }
+
+    public int getSubmissions() {
+        return submissions;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public double getAverageScore() {
+        return averageScore;
+    }
+
+    public double getScoreStandardDeviation() {
+        return scoreStandardDeviation;
+    }
+
+    public int getHistogramBinWidth() {
+        return histogramBinWidth;
+    }
+
+    /**
+     * Bin i counts submissions scoring from i * bin width up to ( i + 1 ) * bin width, exclusive
+     */
+    public int[] getHistogram() {
+        return histogram;
+    }
+
+    public List<QuestionAnalyticsResponse> getQuestions() {
+        return questions;
+    }
+
+}
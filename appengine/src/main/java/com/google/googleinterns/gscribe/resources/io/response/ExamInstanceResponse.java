@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+import com.google.googleinterns.gscribe.models.ExamInstance;
+
+public class ExamInstanceResponse {
+
+    private ExamInstance examInstance;
+    private boolean archived;
+
+    public ExamInstanceResponse() {
+    }
+
+    public ExamInstanceResponse(ExamInstance examInstance, boolean archived) {
+        this.examInstance = examInstance;
+        this.archived = archived;
+    }
+
+    public ExamInstance getExamInstance() {
+        return examInstance;
+    }
+
+    public void setExamInstance(ExamInstance examInstance) {
+        this.examInstance = examInstance;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+}
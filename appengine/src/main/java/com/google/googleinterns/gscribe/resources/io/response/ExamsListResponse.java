@@ -23,12 +23,14 @@ import java.util.List;
 public class ExamsListResponse {
 
     List<ExamMetadata> examsList;
+    String nextCursor;
 
     public ExamsListResponse() {
     }
 
-    public ExamsListResponse(List<ExamMetadata> examsList) {
+    public ExamsListResponse(List<ExamMetadata> examsList, String nextCursor) {
         this.examsList = examsList;
+        this.nextCursor = nextCursor;
     }
 
     public List<ExamMetadata> getExamsList() {
@@ -38,4 +40,12 @@ public class ExamsListResponse {
     public void setExamsList(List<ExamMetadata> examsList) {
         this.examsList = examsList;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
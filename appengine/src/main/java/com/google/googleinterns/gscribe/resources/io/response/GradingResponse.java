@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+public class GradingResponse {
+
+    private int gradedInstances;
+    private int gradedQuestions;
+    private int maxScore;
+    private double averageScore;
+
+    public GradingResponse() {
+    }
+
+    public GradingResponse(int gradedInstances, int gradedQuestions, int maxScore, double averageScore) {
+        this.gradedInstances = gradedInstances;
+        this.gradedQuestions = gradedQuestions;
+        this.maxScore = maxScore;
+        this.averageScore = averageScore;
+    }
+
+    public int getGradedInstances() {
+        return gradedInstances;
+    }
+
+    public void setGradedInstances(int gradedInstances) {
+        this.gradedInstances = gradedInstances;
+    }
+
+    public int getGradedQuestions() {
+        return gradedQuestions;
+    }
+
+    public void setGradedQuestions(int gradedQuestions) {
+        this.gradedQuestions = gradedQuestions;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public void setMaxScore(int maxScore) {
+        this.maxScore = maxScore;
+    }
+
+    public double getAverageScore() {
+        return averageScore;
+    }
+
+    public void setAverageScore(double averageScore) {
+        this.averageScore = averageScore;
+    }
+}
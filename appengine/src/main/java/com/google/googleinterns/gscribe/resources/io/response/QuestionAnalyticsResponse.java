@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+public class QuestionAnalyticsResponse {
+
+    private final int questionNum;
+    private final int responses;
+    private final int[] optionCounts;
+    private final Double difficulty;
+    private final Double discrimination;
+
+    public QuestionAnalyticsResponse(int questionNum, int responses, int[] optionCounts, Double difficulty, Double discrimination) {
+        this.questionNum = questionNum;
+        this.responses = responses;
+        this.optionCounts = optionCounts;
+        this.difficulty = difficulty;
+        this.discrimination = discrimination;
+    }
+
+    public int getQuestionNum() {
+        return questionNum;
+    }
+
+    public int getResponses() {
+        return responses;
+    }
+
+    /**
+     * Number of answers selecting each option, null for subjective questions
+     */
+    public int[] getOptionCounts() {
+        return optionCounts;
+    }
+
+    /**
+     * Fraction of submissions answering correctly, null for questions without an answer key
+     */
+    public Double getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Point biserial correlation of answering correctly with the score on the other questions,
+     * null for questions without an answer key or when every submission answered alike
+     */
+    public Double getDiscrimination() {
+        return discrimination;
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+import com.google.googleinterns.gscribe.services.search.SearchHit;
+
+import java.util.List;
+
+public class QuestionSearchResponse {
+
+    private final List<SearchHit> hits;
+    private final int matches;
+
+    public QuestionSearchResponse(List<SearchHit> hits, int matches) {
+        this.hits = hits;
+        this.matches = matches;
+    }
+
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    public int getMatches() {
+        return matches;
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+public class RosterResponse {
+
+    private int added;
+    private int alreadyOnRoster;
+
+    public RosterResponse() {
+    }
+
+    public RosterResponse(int added, int alreadyOnRoster) {
+        this.added = added;
+        this.alreadyOnRoster = alreadyOnRoster;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public void setAdded(int added) {
+        this.added = added;
+    }
+
+    public int getAlreadyOnRoster() {
+        return alreadyOnRoster;
+    }
+
+    public void setAlreadyOnRoster(int alreadyOnRoster) {
+        this.alreadyOnRoster = alreadyOnRoster;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+import java.util.List;
+
+public class RubricScoresResponse {
+
+    private final int questionNum;
+    private final int maxScore;
+    private final List<RubricScoreResponse> answers;
+
+    public RubricScoresResponse(int questionNum, int maxScore, List<RubricScoreResponse> answers) {
+        this.questionNum = questionNum;
+        this.maxScore = maxScore;
+        this.answers = answers;
+    }
+
+    public int getQuestionNum() {
+        return questionNum;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public List<RubricScoreResponse> getAnswers() {
+        return answers;
+    }
+
+}
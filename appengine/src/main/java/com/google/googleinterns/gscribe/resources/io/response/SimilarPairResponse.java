@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+public class SimilarPairResponse {
+
+    private final int examInstanceID;
+    private final int studentRollNum;
+    private final int otherExamInstanceID;
+    private final int otherStudentRollNum;
+    private final double similarity;
+
+    public SimilarPairResponse(int examInstanceID, int studentRollNum, int otherExamInstanceID, int otherStudentRollNum, double similarity) {
+        this.examInstanceID = examInstanceID;
+        this.studentRollNum = studentRollNum;
+        this.otherExamInstanceID = otherExamInstanceID;
+        this.otherStudentRollNum = otherStudentRollNum;
+        this.similarity = similarity;
+    }
+
+    public int getExamInstanceID() {
+        return examInstanceID;
+    }
+
+    public int getStudentRollNum() {
+        return studentRollNum;
+    }
+
+    public int getOtherExamInstanceID() {
+        return otherExamInstanceID;
+    }
+
+    public int getOtherStudentRollNum() {
+        return otherStudentRollNum;
+    }
+
+    /**
+     * Estimated Jaccard similarity of the word shingles of the two answers
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+
+}
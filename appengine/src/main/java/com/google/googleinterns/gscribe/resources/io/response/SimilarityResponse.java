@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.resources.io.response;
+
+import java.util.List;
+
+public class SimilarityResponse {
+
+    private final int questionNum;
+    private final double threshold;
+    private final int comparedAnswers;
+    private final List<SimilarPairResponse> pairs;
+
+    public SimilarityResponse(int questionNum, double threshold, int comparedAnswers, List<SimilarPairResponse> pairs) {
+        this.questionNum = questionNum;
+        this.threshold = threshold;
+        this.comparedAnswers = comparedAnswers;
+        this.pairs = pairs;
+    }
+
+    public int getQuestionNum() {
+        return questionNum;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Number of answers long enough to be compared
+     */
+    public int getComparedAnswers() {
+        return comparedAnswers;
+    }
+
+    public List<SimilarPairResponse> getPairs() {
+        return pairs;
+    }
+
+}
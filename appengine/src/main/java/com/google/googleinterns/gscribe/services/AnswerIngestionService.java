@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services;
+
+import com.google.googleinterns.gscribe.models.Answer;
+import com.google.googleinterns.gscribe.resources.io.exception.SubmissionQueueFullException;
+import io.dropwizard.lifecycle.Managed;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AnswerIngestionService extends Managed {
+
+    /**
+     * Queues answers of an exam instance to be saved to the database, an answer older than the stored one for the same question is dropped
+     * Queued submissions of many exam instances are written together in one transaction,
+     * a batch is flushed when it reaches the configured size or when the flush interval of its first submission elapses
+     * If complete is set the end time of the exam instance is set in the same transaction
+     * Submissions are written to the shard of their exam, one transaction per shard
+     *
+     * @param examID         ( to identify the exam, and so the shard, of the exam instance )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @param answers        ( answers of the exam instance )
+     * @param complete       ( whether this is the final submission of the exam instance )
+     * @return future completed once the transaction containing the answers is committed
+     * @throws SubmissionQueueFullException ( if queue stays full for the configured enqueue timeout )
+     */
+    CompletableFuture<Void> submit(int examID, int examInstanceID, List<Answer> answers, boolean complete) throws SubmissionQueueFullException;
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services;
+
+import com.google.googleinterns.gscribe.models.ExamInstance;
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.IOException;
+
+public interface ExamArchiveService extends Managed {
+
+    /**
+     * Reads an exam instance along with its answers from archive files
+     * Used once the exam instance is not found in the database, as the term of its exam was archived
+     *
+     * @param examID         ( to identify particular exam )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @return exam instance with answers, null if no archive holds it
+     * @throws IOException ( if an archive file could not be read )
+     */
+    ExamInstance getArchivedExamInstance(int examID, int examInstanceID) throws IOException;
+
+    /**
+     * Called before an exam instance is started, attempts of an archived exam are no longer in the database to be checked against
+     *
+     * @param examID ( to identify particular exam )
+     * @return whether the term of the exam was archived on any shard
+     */
+    boolean isArchived(int examID);
+
+}
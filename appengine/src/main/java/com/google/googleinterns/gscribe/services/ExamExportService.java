@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services;
+
+import com.google.googleinterns.gscribe.services.export.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExamExportService {
+
+    /**
+     * Writes results of every exam instance of an exam, one row per exam instance ordered by roll number, with its score and answers
+     * Rows are streamed from the database and written as they are read, so memory use does not depend on the number of exam instances
+     * Exam instances of archived terms are not in the database and are not exported
+     *
+     * @param examID ( to identify particular exam )
+     * @param format ( format of the rows )
+     * @param out    ( stream rows are written to, not closed )
+     * @throws IOException ( if writing to the stream fails )
+     */
+    void export(int examID, ExportFormat format, OutputStream out) throws IOException;
+
+}
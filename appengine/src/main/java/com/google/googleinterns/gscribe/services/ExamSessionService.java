@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services;
+
+import com.google.googleinterns.gscribe.models.ExamInstance;
+import io.dropwizard.lifecycle.Managed;
+
+public interface ExamSessionService extends Managed {
+
+    /**
+     * Registers a started exam instance and schedules its submission for start time plus exam duration plus grace period,
+     * so answers sent in the grace period are accepted before end time is set
+     *
+     * @param examInstance    ( exam instance with start time )
+     * @param durationMinutes ( duration of the exam )
+     */
+    void startSession(ExamInstance examInstance, int durationMinutes);
+
+    /**
+     * Called once an exam instance is submitted by the examinee, cancels its scheduled submission
+     *
+     * @param examInstanceID ( to identify particular exam instance )
+     */
+    void endSession(int examInstanceID);
+
+    /**
+     * @param examInstance ( exam instance with start time )
+     * @return time at which the exam instance is submitted, epoch milliseconds
+     */
+    long getDeadline(ExamInstance examInstance);
+
+    /**
+     * @param examInstance ( exam instance with start time )
+     * @return whether answers of the exam instance are still accepted, that is its deadline plus grace period is not past
+     */
+    boolean isOpen(ExamInstance examInstance);
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services;
+
+import com.google.googleinterns.gscribe.services.grading.GradingResult;
+
+public interface GradingService {
+
+    /**
+     * Scores submitted exam instances of an exam on its multiple choice questions with an answer key and stores the scores
+     * An answer scores the points of its question if it selects exactly the correct options
+     * Grading again overwrites earlier scores
+     *
+     * @param examID ( to identify particular exam )
+     * @return number of graded exam instances and questions, and score statistics
+     */
+    GradingResult grade(int examID);
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services;
+
+import com.google.googleinterns.gscribe.models.Exam;
+import com.google.googleinterns.gscribe.services.search.SearchResult;
+
+public interface QuestionSearchService {
+
+    /**
+     * Searches statements and options of questions of all exams created by the user
+     * The user's index is built from the database on first search and kept in memory
+     *
+     * @param userID ( unique user id of user, here paper setter )
+     * @param query  ( search text )
+     * @param limit  ( maximum number of hits returned )
+     * @return best matching questions with their exam ids, highest score first
+     */
+    SearchResult search(String userID, String query, int limit);
+
+    /**
+     * Called after an exam is inserted, adds its questions to the user's index if it is in memory
+     *
+     * @param userID ( unique user id of user who created the exam )
+     * @param exam   ( exam object, exam id is set on its metadata )
+     */
+    void examCreated(String userID, Exam exam);
+
+}
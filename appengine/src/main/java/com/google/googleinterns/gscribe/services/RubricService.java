@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services;
+
+import com.google.googleinterns.gscribe.resources.io.response.RubricScoresResponse;
+import com.google.googleinterns.gscribe.services.rubric.CompiledRubric;
+
+public interface RubricService {
+
+    /**
+     * Compiled rubrics are cached per question, questions of an exam do not change once it is created
+     *
+     * @param examID      ( to identify particular exam )
+     * @param questionNum ( to identify the question of the exam )
+     * @return compiled rubric of the question, null if the question is not a subjective question with a rubric
+     */
+    CompiledRubric getRubric(int examID, int questionNum);
+
+    /**
+     * Suggests a score for the answer of every submitted exam instance to a question, from the rubric of the question
+     *
+     * @param examID      ( to identify particular exam )
+     * @param questionNum ( subjective question with a rubric )
+     * @return suggested score and matched rubric terms of each answer, ordered by roll number
+     */
+    RubricScoresResponse scoreAnswers(int examID, int questionNum);
+
+}
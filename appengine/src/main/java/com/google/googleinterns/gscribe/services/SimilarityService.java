@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services;
+
+import com.google.googleinterns.gscribe.resources.io.response.SimilarityResponse;
+
+public interface SimilarityService {
+
+    /**
+     * Finds pairs of answers to a question whose word shingles are similar, to flag copied answers
+     * Signatures computed when answers were saved are banded into LSH buckets, so only answers sharing a bucket are compared
+     * and the time taken grows about linearly with the number of answers
+     *
+     * @param examID      ( to identify particular exam )
+     * @param questionNum ( question whose answers are compared )
+     * @param threshold   ( lowest estimated Jaccard similarity of pairs returned )
+     * @param limit       ( maximum number of pairs returned )
+     * @return pairs of exam instances with similar answers, most similar first
+     */
+    SimilarityResponse findSimilarAnswers(int examID, int questionNum, double threshold, int limit);
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.admission;
+
+/**
+ * Outcome of asking the admission controller to start an exam
+ * Either admitted, then it must be released once the exam start is done, or waiting with a ticket and a position in the queue
+ */
+public class Admission {
+
+    private final boolean admitted;
+    private final long ticket;
+    private final long position;
+    private final long startNanos;
+
+    private Admission(boolean admitted, long ticket, long position) {
+        this.admitted = admitted;
+        this.ticket = ticket;
+        this.position = position;
+        this.startNanos = System.nanoTime();
+    }
+
+    static Admission admitted() {
+        return new Admission(true, 0, 0);
+    }
+
+    static Admission waiting(long ticket, long position) {
+        return new Admission(false, ticket, position);
+    }
+
+    public boolean isAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * Ticket to send with the next attempt, valid only while waiting
+     */
+    public long getTicket() {
+        return ticket;
+    }
+
+    /**
+     * Number of clients ahead in the queue plus one, valid only while waiting
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.admission;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.googleinterns.gscribe.config.AdmissionConfig;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waiting room for exam starts, keeps a bounded number of starts in flight
+ * A client finding no free slot gets a ticket and polls with it, slots that free up are granted to tickets in FIFO order,
+ * a granted slot is held for the ticket till its next poll
+ * The limit adapts to latency of the admitted starts, which is dominated by database time:
+ * it grows by one every limit starts finishing under target latency and is cut by backoff ratio, at most once per target latency, when above it
+ * Tickets are held in memory, a client has to keep polling the same server
+ */
+public class AdmissionController {
+
+    private static final long EXPIRY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AdmissionConfig config;
+    private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+    private final Map<Long, Ticket> tickets = new HashMap<>();
+    private final Timer waitTimer = new Timer();
+    private final long ticketTimeoutNanos;
+    private final long targetLatencyNanos;
+    private double limit;
+    private int inFlight;
+    private int queueDepth;
+    private long nextTicket = 1;
+    private long lastBackoffNanos;
+    private long lastExpiryNanos;
+
+    public AdmissionController(AdmissionConfig config) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+        this.ticketTimeoutNanos = TimeUnit.SECONDS.toNanos(config.getTicketTimeoutSeconds());
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(config.getTargetLatencyMillis());
+        this.lastBackoffNanos = System.nanoTime();
+        this.lastExpiryNanos = lastBackoffNanos;
+    }
+
+    /**
+     * Registers queue depth, in flight starts and limit as gauges and time spent waiting as timer
+     *
+     * @param metrics ( metric registry of the application )
+     */
+    public void registerMetrics(MetricRegistry metrics) {
+        metrics.register(MetricRegistry.name(AdmissionController.class, "queue-depth"), (Gauge<Integer>) this::getQueueDepth);
+        metrics.register(MetricRegistry.name(AdmissionController.class, "in-flight"), (Gauge<Integer>) this::getInFlight);
+        metrics.register(MetricRegistry.name(AdmissionController.class, "limit"), (Gauge<Integer>) this::getLimit);
+        metrics.register(MetricRegistry.name(AdmissionController.class, "wait-time"), waitTimer);
+    }
+
+    /**
+     * Admits an exam start if a slot is free and nobody is waiting, or if the slot granted to the ticket is ready
+     * Otherwise the client is queued, or keeps its place if it sent a ticket still in the queue
+     * An unknown or expired ticket is queued again at the end
+     *
+     * @param ticket ( ticket from an earlier attempt, null on first attempt )
+     * @return admission, null if the queue is full
+     */
+    public synchronized Admission admit(Long ticket) {
+        long now = System.nanoTime();
+        expireTickets(now);
+        Ticket waiting = ticket == null ? null : tickets.get(ticket);
+        if (waiting != null) {
+            if (waiting.granted) {
+                tickets.remove(ticket);
+                waitTimer.update(now - waiting.createdNanos, TimeUnit.NANOSECONDS);
+                return Admission.admitted();
+            }
+            waiting.lastSeenNanos = now;
+            return Admission.waiting(waiting.id, waiting.id - queue.peekFirst().id + 1);
+        }
+        if (queueDepth == 0 && inFlight < (int) limit) {
+            inFlight++;
+            waitTimer.update(0, TimeUnit.NANOSECONDS);
+            return Admission.admitted();
+        }
+        if (queueDepth >= config.getMaxQueueSize()) return null;
+        waiting = new Ticket(nextTicket++, now);
+        queue.addLast(waiting);
+        queueDepth++;
+        tickets.put(waiting.id, waiting);
+        return Admission.waiting(waiting.id, waiting.id - queue.peekFirst().id + 1);
+    }
+
+    /**
+     * Called once an admitted exam start is done, whether it succeeded or not
+     * Adjusts the limit with the latency of the start and grants free slots to waiting tickets
+     *
+     * @param admission ( admission returned by admit )
+     */
+    public synchronized void release(Admission admission) {
+        if (!admission.isAdmitted()) return;
+        long now = System.nanoTime();
+        long latency = now - admission.getStartNanos();
+        if (latency > targetLatencyNanos) {
+            if (now - lastBackoffNanos > targetLatencyNanos) {
+                limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+                lastBackoffNanos = now;
+            }
+        } else {
+            limit = Math.min(config.getMaxLimit(), limit + 1 / limit);
+        }
+        inFlight--;
+        grant(now);
+    }
+
+    public synchronized int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Interval waiting clients should poll at
+     */
+    public int getPollIntervalMillis() {
+        return config.getPollIntervalMillis();
+    }
+
+    private void grant(long now) {
+        while (inFlight < (int) limit && !queue.isEmpty()) {
+            Ticket ticket = queue.pollFirst();
+            if (ticket.expired) continue;
+            queueDepth--;
+            ticket.granted = true;
+            ticket.lastSeenNanos = now;
+            inFlight++;
+        }
+    }
+
+    /**
+     * Drops waiting tickets not polled within ticket timeout and gives back slots of granted tickets not claimed within it
+     * Runs at most once a second, an expired ticket is only marked and is skipped once it reaches the head of the queue
+     */
+    private void expireTickets(long now) {
+        if (now - lastExpiryNanos < EXPIRY_INTERVAL_NANOS) return;
+        lastExpiryNanos = now;
+        Iterator<Ticket> iterator = tickets.values().iterator();
+        while (iterator.hasNext()) {
+            Ticket ticket = iterator.next();
+            if (now - ticket.lastSeenNanos <= ticketTimeoutNanos) continue;
+            iterator.remove();
+            if (ticket.granted) inFlight--;
+            else {
+                ticket.expired = true;
+                queueDepth--;
+            }
+        }
+        grant(now);
+    }
+
+    private static class Ticket {
+        private final long id;
+        private final long createdNanos;
+        private long lastSeenNanos;
+        private boolean granted;
+        private boolean expired;
+
+        Ticket(long id, long createdNanos) {
+            this.id = id;
+            this.createdNanos = createdNanos;
+            this.lastSeenNanos = createdNanos;
+        }
+    }
+}
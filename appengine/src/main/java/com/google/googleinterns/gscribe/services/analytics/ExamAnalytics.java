@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.analytics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.googleinterns.gscribe.config.AnalyticsConfig;
+import com.google.googleinterns.gscribe.dao.ExamAnalyticsDao;
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.metrics.CacheMetrics;
+import com.google.googleinterns.gscribe.models.AnalyticsSnapshot;
+import com.google.googleinterns.gscribe.models.Answer;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.resources.io.response.AnalyticsResponse;
+import com.google.googleinterns.gscribe.services.columnar.ColumnarAnswerStore;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Per question statistics of exams, maintained as submissions are committed instead of computed from all answers on every read
+ * Submissions are counted on a single background thread, which reads the saved answers of just the submitted exam instance
+ * Statistics changed since the last snapshot are saved periodically, statistics not in memory are restored from the snapshot
+ * if it counts every submitted exam instance, else they are recounted from the answers once
+ * Statistics count submissions committed through this server since they were loaded, so with several servers they can lag until reloaded
+ */
+public class ExamAnalytics implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExamAnalytics.class);
+
+    private final ShardRouter shardRouter;
+    private final QuestionsDao questionsDao;
+    private final ExamAnalyticsDao examAnalyticsDao;
+    private final AnalyticsConfig config;
+    private final LoadingCache<Integer, ExamStats> exams;
+    private ExecutorService counter;
+    private ScheduledExecutorService snapshotter;
+
+    public ExamAnalytics(ShardRouter shardRouter, QuestionsDao questionsDao, ExamAnalyticsDao examAnalyticsDao, AnalyticsConfig config,
+                         MetricRegistry metrics) {
+        this.shardRouter = shardRouter;
+        this.questionsDao = questionsDao;
+        this.examAnalyticsDao = examAnalyticsDao;
+        this.config = config;
+        this.exams = Caffeine.newBuilder()
+                .recordStats(() -> new CacheMetrics(metrics, MetricRegistry.name(ExamAnalytics.class, "exams")))
+                .expireAfterAccess(config.getIdleMinutes(), TimeUnit.MINUTES)
+                .removalListener((Integer examID, ExamStats stats, RemovalCause cause) -> {
+                    if (examID != null && stats != null && cause.wasEvicted()) saveSnapshot(examID, stats);
+                })
+                .build(this::load);
+    }
+
+    @Override
+    public void start() {
+        counter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "exam-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "exam-analytics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::saveSnapshots, config.getSnapshotIntervalSeconds(), config.getSnapshotIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Counts the queued submissions and saves every changed snapshot
+     */
+    @Override
+    public void stop() throws InterruptedException {
+        counter.shutdown();
+        counter.awaitTermination(config.getSnapshotIntervalSeconds(), TimeUnit.SECONDS);
+        snapshotter.shutdownNow();
+        saveSnapshots();
+    }
+
+    /**
+     * Called once the submission of an exam instance is committed
+     * If the queue is full the submission is not counted and statistics of the exam are dropped, so they are recounted on next use
+     *
+     * @param examID         ( to identify the exam of the exam instance )
+     * @param examInstanceID ( to identify particular exam instance )
+     */
+    public void submitted(int examID, int examInstanceID) {
+        try {
+            counter.execute(() -> count(examID, examInstanceID));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Analytics queue full, statistics of exam {} are recounted on next use", examID);
+            exams.invalidate(examID);
+        }
+    }
+
+    /**
+     * @param examID ( to identify particular exam )
+     * @return statistics of the exam, loaded or recounted if not in memory
+     */
+    public AnalyticsResponse report(int examID) {
+        return exams.get(examID).report();
+    }
+
+    private void count(int examID, int examInstanceID) {
+        try {
+            ExamStats stats = exams.get(examID);
+            if (stats.isCounted(examInstanceID)) return;
+            List<Answer> answers = shardRouter.forExam(examID).getAnswerDao().getAnswersByExamInstanceID(examID, examInstanceID);
+            stats.record(examInstanceID, answers);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Counting submission of exam instance {} failed, statistics of exam {} are recounted on next use", examInstanceID, examID, e);
+            exams.invalidate(examID);
+        }
+    }
+
+    /**
+     * Submitted exam instances are read first, so a submission committed after this is counted by its own event and one committed before is skipped
+     * A recount loads answers into a columnar store and counts them with column scans
+     *
+     * @param examID ( to identify particular exam )
+     * @return statistics of the exam from its snapshot, or recounted from answers if the snapshot misses submissions
+     */
+    private ExamStats load(int examID) {
+        Shard shard = shardRouter.forExam(examID);
+        List<Question> questions = questionsDao.getExamQuestions(examID);
+        AnalyticsSnapshot snapshot = examAnalyticsDao.getSnapshot(examID);
+        if (snapshot != null) {
+            List<Integer> submitted = shard.getExamInstanceDao().getSubmittedExamInstanceIDs(examID);
+            ExamStats stats = new ExamStats(questions, submitted.size());
+            if (snapshot.getSubmissions() == submitted.size() && stats.restore(snapshot.getSnapshot(), submitted)) return stats;
+        }
+        ColumnarAnswerStore store = ColumnarAnswerStore.load(shard, examID, questions);
+        ExamStats stats = new ExamStats(questions, store.getRows());
+        stats.recordAll(store, ForkJoinPool.commonPool());
+        LOGGER.info("Recounted statistics of exam {} from {} submissions", examID, store.getRows());
+        return stats;
+    }
+
+    private void saveSnapshots() {
+        exams.asMap().forEach(this::saveSnapshot);
+    }
+
+    private void saveSnapshot(int examID, ExamStats stats) {
+        AnalyticsSnapshot snapshot = stats.takeSnapshot(examID);
+        if (snapshot == null) return;
+        try {
+            examAnalyticsDao.upsertSnapshot(snapshot);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Saving statistics of exam {} failed", examID, e);
+            stats.markDirty();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.analytics;
+
+import com.google.googleinterns.gscribe.models.AnalyticsSnapshot;
+import com.google.googleinterns.gscribe.models.Answer;
+import com.google.googleinterns.gscribe.models.MultipleChoiceQuestion;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.models.QuestionType;
+import com.google.googleinterns.gscribe.resources.io.response.AnalyticsResponse;
+import com.google.googleinterns.gscribe.resources.io.response.QuestionAnalyticsResponse;
+import com.google.googleinterns.gscribe.services.attempt.IntHashSet;
+import com.google.googleinterns.gscribe.services.columnar.ColumnarAnswerStore;
+import com.google.googleinterns.gscribe.services.grading.OptionMask;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Statistics of one exam kept as counters and running sums, updated once per submission
+ * Per question it counts answers, selections of each option and correct answers, and sums the scores of examinees answering correctly,
+ * together with the count, sum and sum of squares of scores this gives difficulty and discrimination of every question without re-reading answers
+ * Submissions counted are remembered, so a submission seen twice is counted once
+ */
+public class ExamStats {
+
+    private static final int HISTOGRAM_BINS = 20;
+    private static final Gson GSON = new Gson();
+
+    private final int[] questionNumbers;
+    private final Map<Integer, Integer> columnOf = new HashMap<>();
+    private final List<List<String>> options = new ArrayList<>();
+    private final int[] key;
+    private final int[] points;
+    private final int maxScore;
+    private final int binWidth;
+    private final IntHashSet counted;
+    private State state;
+    private boolean dirty;
+
+    /**
+     * @param questions           ( questions of the exam )
+     * @param expectedSubmissions ( number of submissions expected, to size the set of counted submissions )
+     */
+    public ExamStats(List<Question> questions, int expectedSubmissions) {
+        List<Question> sorted = new ArrayList<>(questions);
+        sorted.sort(Comparator.comparingInt(Question::getQuestionNumber));
+        int count = sorted.size(), total = 0;
+        this.questionNumbers = new int[count];
+        this.key = new int[count];
+        this.points = new int[count];
+        for (int column = 0; column < count; column++) {
+            Question question = sorted.get(column);
+            questionNumbers[column] = question.getQuestionNumber();
+            columnOf.put(question.getQuestionNumber(), column);
+            if (question.getType().equals(QuestionType.MCQ)) {
+                MultipleChoiceQuestion multipleChoiceQuestion = (MultipleChoiceQuestion) question;
+                options.add(multipleChoiceQuestion.getOptions());
+                key[column] = multipleChoiceQuestion.getCorrectOptions();
+            } else {
+                options.add(null);
+            }
+            points[column] = question.getPoints();
+            if (key[column] > 0) total += points[column];
+        }
+        this.maxScore = total;
+        this.binWidth = Math.max(1, (maxScore + HISTOGRAM_BINS) / HISTOGRAM_BINS);
+        this.counted = new IntHashSet(expectedSubmissions);
+        this.state = new State(count, maxScore / binWidth + 1);
+        for (int column = 0; column < count; column++) {
+            if (options.get(column) != null) state.optionCounts[column] = new int[options.get(column).size()];
+        }
+    }
+
+    public synchronized boolean isCounted(int examInstanceID) {
+        return counted.contains(examInstanceID);
+    }
+
+    /**
+     * Adds one submission to the statistics, answers of questions not in the exam are ignored
+     *
+     * @param examInstanceID ( to identify the submitted exam instance )
+     * @param answers        ( saved answers of the exam instance )
+     * @return false if the submission was already counted
+     */
+    public synchronized boolean record(int examInstanceID, List<Answer> answers) {
+        if (!counted.add(examInstanceID)) return false;
+        boolean[] correct = new boolean[questionNumbers.length];
+        int score = 0;
+        for (Answer answer : answers) {
+            Integer column = columnOf.get(answer.getQuestionNum());
+            if (column == null || answer.getAnswer() == null || answer.getAnswer().trim().isEmpty()) continue;
+            state.responses[column]++;
+            if (options.get(column) == null) continue;
+            int mask = OptionMask.parseAnswer(answer.getAnswer(), options.get(column));
+            if (mask == OptionMask.INVALID) continue;
+            for (int option = 0; option < state.optionCounts[column].length; option++) {
+                if ((mask & (1 << option)) != 0) state.optionCounts[column][option]++;
+            }
+            if (key[column] > 0 && mask == key[column]) {
+                correct[column] = true;
+                score += points[column];
+            }
+        }
+        for (int column = 0; column < questionNumbers.length; column++) {
+            if (!correct[column]) continue;
+            state.correct[column]++;
+            state.correctScoreSum[column] += score;
+        }
+        state.submissions++;
+        state.scoreSum += score;
+        state.scoreSquareSum += (long) score * score;
+        state.histogram[score / binWidth]++;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Adds every submission of a columnar store, column by column instead of submission by submission
+     * Submissions already counted are not skipped, so this is only called on statistics with nothing counted yet
+     *
+     * @param store ( answers of submitted exam instances, with the same questions as the statistics )
+     * @param pool  ( fork join pool to score rows on )
+     */
+    public synchronized void recordAll(ColumnarAnswerStore store, ForkJoinPool pool) {
+        if (store.getColumns() != questionNumbers.length) throw new IllegalArgumentException("Store does not match questions of the exam");
+        int rows = store.getRows();
+        IntBuffer scores = store.score(pool, key, points);
+        for (int column = 0; column < questionNumbers.length; column++) {
+            state.responses[column] += store.countAnswered(column);
+            if (!store.isChoiceColumn(column)) continue;
+            int[] optionCounts = store.countOptions(column);
+            for (int option = 0; option < optionCounts.length; option++) state.optionCounts[column][option] += optionCounts[option];
+            if (key[column] <= 0) continue;
+            long[] correct = store.countCorrect(column, key[column], scores);
+            state.correct[column] += (int) correct[0];
+            state.correctScoreSum[column] += correct[1];
+        }
+        for (int row = 0; row < rows; row++) {
+            int score = scores.get(row);
+            counted.add(store.getExamInstanceID(row));
+            state.scoreSum += score;
+            state.scoreSquareSum += (long) score * score;
+            state.histogram[score / binWidth]++;
+        }
+        state.submissions += rows;
+        dirty = true;
+    }
+
+    /**
+     * Difficulty is the fraction of submissions answering a question correctly
+     * Discrimination is the point biserial correlation of answering a question correctly with the rest score, the score on the other questions,
+     * the rest score moments of a question follow from the score moments and its correct count and correct score sum
+     *
+     * @return statistics of the exam, computed in time linear in the number of questions
+     */
+    public synchronized AnalyticsResponse report() {
+        int n = state.submissions;
+        List<QuestionAnalyticsResponse> questions = new ArrayList<>(questionNumbers.length);
+        for (int column = 0; column < questionNumbers.length; column++) {
+            Double difficulty = null, discrimination = null;
+            if (key[column] > 0 && n > 0) {
+                int c = state.correct[column];
+                difficulty = (double) c / n;
+                if (c > 0 && c < n) {
+                    double restSum = state.scoreSum - (double) points[column] * c;
+                    double restSquareSum = state.scoreSquareSum - 2.0 * points[column] * state.correctScoreSum[column] + (double) points[column] * points[column] * c;
+                    double restVariance = restSquareSum / n - (restSum / n) * (restSum / n);
+                    if (restVariance > 1e-9) {
+                        double correctMean = (state.correctScoreSum[column] - (double) points[column] * c) / c;
+                        double incorrectMean = (state.scoreSum - (double) state.correctScoreSum[column]) / (n - c);
+                        discrimination = (correctMean - incorrectMean) / Math.sqrt(restVariance) * Math.sqrt(difficulty * (1 - difficulty));
+                    }
+                }
+            }
+            int[] optionCounts = state.optionCounts[column] == null ? null : state.optionCounts[column].clone();
+            questions.add(new QuestionAnalyticsResponse(questionNumbers[column], state.responses[column], optionCounts, difficulty, discrimination));
+        }
+        double average = n == 0 ? 0 : (double) state.scoreSum / n;
+        double variance = n == 0 ? 0 : Math.max(0, (double) state.scoreSquareSum / n - average * average);
+        return new AnalyticsResponse(n, maxScore, average, Math.sqrt(variance), binWidth, state.histogram.clone(), questions);
+    }
+
+    /**
+     * @param examID ( to identify the exam of the statistics )
+     * @return counters as JSON with the number of submissions counted, null if they did not change since the last snapshot
+     */
+    public synchronized AnalyticsSnapshot takeSnapshot(int examID) {
+        if (!dirty) return null;
+        dirty = false;
+        return new AnalyticsSnapshot(examID, state.submissions, GSON.toJson(state));
+    }
+
+    /**
+     * Called when saving a snapshot failed, so it is saved again on the next round
+     */
+    public synchronized void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Replaces the counters with a saved snapshot, which must count exactly the given submissions
+     *
+     * @param snapshot        ( counters as JSON )
+     * @param examInstanceIDs ( submissions counted in the snapshot )
+     * @return false if the snapshot does not match the questions of the exam, counters are left unchanged
+     */
+    public synchronized boolean restore(String snapshot, List<Integer> examInstanceIDs) {
+        State restored;
+        try {
+            restored = GSON.fromJson(snapshot, State.class);
+        } catch (JsonParseException e) {
+            return false;
+        }
+        if (restored == null || !restored.matches(state)) return false;
+        state = restored;
+        for (int examInstanceID : examInstanceIDs) counted.add(examInstanceID);
+        return true;
+    }
+
+    private static class State {
+        private int submissions;
+        private long scoreSum;
+        private long scoreSquareSum;
+        private int[] histogram;
+        private int[] responses;
+        private int[][] optionCounts;
+        private int[] correct;
+        private long[] correctScoreSum;
+
+        State(int questions, int bins) {
+            this.histogram = new int[bins];
+            this.responses = new int[questions];
+            this.optionCounts = new int[questions][];
+            this.correct = new int[questions];
+            this.correctScoreSum = new long[questions];
+        }
+
+        boolean matches(State other) {
+            if (histogram == null || responses == null || optionCounts == null || correct == null || correctScoreSum == null) return false;
+            if (histogram.length != other.histogram.length || responses.length != other.responses.length) return false;
+            if (optionCounts.length != other.optionCounts.length || correct.length != other.correct.length || correctScoreSum.length != other.correctScoreSum.length) return false;
+            for (int column = 0; column < optionCounts.length; column++) {
+                int length = optionCounts[column] == null ? -1 : optionCounts[column].length;
+                int otherLength = other.optionCounts[column] == null ? -1 : other.optionCounts[column].length;
+                if (length != otherLength) return false;
+            }
+            return true;
+        }
+    }
+}
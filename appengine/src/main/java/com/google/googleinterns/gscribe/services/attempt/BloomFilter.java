@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.attempt;
+
+/**
+ * Bloom filter of int values, answers "definitely absent" or "maybe present"
+ * Sized at 10 bits per expected value with 7 hash functions, about 1% false positives up to the expected count
+ * Not thread safe
+ */
+public class BloomFilter {
+
+    private static final int BITS_PER_VALUE = 10;
+    private static final int HASH_FUNCTIONS = 7;
+
+    private final long[] words;
+    private final int bitCount;
+    private final int expectedSize;
+
+    public BloomFilter(int expectedSize) {
+        this.expectedSize = expectedSize;
+        this.words = new long[Math.max(1, (expectedSize * BITS_PER_VALUE + 63) / 64)];
+        this.bitCount = words.length * 64;
+    }
+
+    public void add(int value) {
+        int hash1 = mix(value);
+        int hash2 = mix(hash1);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(int value) {
+        int hash1 = mix(value);
+        int hash2 = mix(hash1);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public int getExpectedSize() {
+        return expectedSize;
+    }
+
+    /**
+     * Finalizer of murmur3, spreads close values such as consecutive roll numbers over all bits
+     */
+    static int mix(int value) {
+        value ^= value >>> 16;
+        value *= 0x85ebca6b;
+        value ^= value >>> 13;
+        value *= 0xc2b2ae35;
+        value ^= value >>> 16;
+        return value;
+    }
+}
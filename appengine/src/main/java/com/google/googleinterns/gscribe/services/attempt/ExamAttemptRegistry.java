@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.attempt;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.metrics.CacheMetrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers roll numbers which attempted an exam, so that starting an exam does not need a database lookup per student
+ * Roll numbers of an exam are loaded from its shard when the exam is first started on this server,
+ * and every exam instance created on this server is added afterwards
+ * A Bloom filter answers most lookups, the set of roll numbers behind it settles the Bloom filter's false positives
+ * Exam instances created on other servers are not seen, the unique key on ( exam id, roll number ) stops those duplicates
+ */
+public class ExamAttemptRegistry {
+
+    private static final int MIN_EXPECTED_ATTEMPTS = 1024;
+    private static final long MAX_TRACKED_EXAMS = 1000;
+    private static final long IDLE_EXPIRY_HOURS = 12;
+
+    private final LoadingCache<Integer, ExamAttempts> exams;
+
+    public ExamAttemptRegistry(ShardRouter shardRouter, MetricRegistry metrics) {
+        this.exams = Caffeine.newBuilder()
+                .recordStats(() -> new CacheMetrics(metrics, MetricRegistry.name(ExamAttemptRegistry.class, "exams")))
+                .maximumSize(MAX_TRACKED_EXAMS)
+                .expireAfterAccess(IDLE_EXPIRY_HOURS, TimeUnit.HOURS)
+                .build(examID -> new ExamAttempts(shardRouter.forExam(examID).getExamInstanceDao().getAttemptedRollNumbers(examID)));
+    }
+
+    /**
+     * @param examID     ( to identify particular exam )
+     * @param rollNumber ( roll number of examinee )
+     * @return false if roll number has not attempted the exam as far as this server knows, true if it has
+     */
+    public boolean hasAttempted(int examID, int rollNumber) {
+        return exams.get(examID).contains(rollNumber);
+    }
+
+    /**
+     * Called once an exam instance is created, or found to exist
+     *
+     * @param examID     ( to identify particular exam )
+     * @param rollNumber ( roll number of examinee )
+     */
+    public void recordAttempt(int examID, int rollNumber) {
+        exams.get(examID).add(rollNumber);
+    }
+
+    private static class ExamAttempts {
+        private final IntHashSet rollNumbers;
+        private BloomFilter bloomFilter;
+
+        ExamAttempts(List<Integer> attempted) {
+            rollNumbers = new IntHashSet(attempted.size());
+            bloomFilter = new BloomFilter(Math.max(MIN_EXPECTED_ATTEMPTS, attempted.size() * 2));
+            for (int rollNumber : attempted) add(rollNumber);
+        }
+
+        synchronized boolean contains(int rollNumber) {
+            return bloomFilter.mightContain(rollNumber) && rollNumbers.contains(rollNumber);
+        }
+
+        /**
+         * Rebuilds the Bloom filter at twice the size once it holds more values than it was sized for
+         */
+        synchronized void add(int rollNumber) {
+            if (!rollNumbers.add(rollNumber)) return;
+            if (rollNumbers.size() > bloomFilter.getExpectedSize()) {
+                BloomFilter grown = new BloomFilter(bloomFilter.getExpectedSize() * 2);
+                rollNumbers.forEach(grown::add);
+                bloomFilter = grown;
+            } else {
+                bloomFilter.add(rollNumber);
+            }
+        }
+    }
+}
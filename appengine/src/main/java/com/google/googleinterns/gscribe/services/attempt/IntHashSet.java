@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.attempt;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Set of int values without boxing, open addressing with linear probing
+ * Kept at most half full, so probes stay short
+ * Not thread safe
+ */
+public class IntHashSet {
+
+    private static final int EMPTY = 0;
+
+    private int[] slots;
+    private int size;
+    private boolean containsEmpty;
+
+    public IntHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        this.slots = new int[capacity];
+    }
+
+    /**
+     * @return false if value was already present
+     */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (containsEmpty) return false;
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > slots.length) grow();
+        int mask = slots.length - 1;
+        for (int index = BloomFilter.mix(value) & mask; ; index = (index + 1) & mask) {
+            if (slots[index] == value) return false;
+            if (slots[index] == EMPTY) {
+                slots[index] = value;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY) return containsEmpty;
+        int mask = slots.length - 1;
+        for (int index = BloomFilter.mix(value) & mask; ; index = (index + 1) & mask) {
+            if (slots[index] == value) return true;
+            if (slots[index] == EMPTY) return false;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes every value to the consumer, in no particular order
+     */
+    public void forEach(IntConsumer consumer) {
+        if (containsEmpty) consumer.accept(EMPTY);
+        for (int value : slots) {
+            if (value != EMPTY) consumer.accept(value);
+        }
+    }
+
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        size = containsEmpty ? 1 : 0;
+        for (int value : old) {
+            if (value != EMPTY) add(value);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.columnar;
+
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.models.MultipleChoiceQuestion;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.models.QuestionType;
+import com.google.googleinterns.gscribe.services.grading.OptionMask;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.ResultIterator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Answers of the submitted exam instances of one exam, held column wise in direct buffers outside the heap
+ * Row r is the exam instance with the r-th smallest id, column c is the question with the c-th smallest question number
+ * A multiple choice cell is one byte, the option bitmask of the answer, which serves as the dictionary code of the choice as questions have at most 8 options,
+ * UNANSWERED and UNREADABLE are reserved codes no bitmask takes
+ * A subjective cell is an offset and a length into a shared text region of UTF-8 bytes
+ * Cells of a column are contiguous, so scans walk memory sequentially, and heap use does not grow with the number of exam instances
+ * Memory is released when the store is garbage collected
+ */
+public class ColumnarAnswerStore {
+
+    public static final byte UNANSWERED = 0;
+    public static final byte UNREADABLE = (byte) 0xFF;
+
+    private static final int ROWS_PER_TASK = 4096;
+    private static final int INITIAL_ROWS = 1024;
+    private static final int INITIAL_TEXT_BYTES = 64 * 1024;
+
+    private final int[] questionNumbers;
+    private final int[] choiceIndex;
+    private final int[] textIndex;
+    private final List<List<String>> options = new ArrayList<>();
+    private IntBuffer examInstanceIDs;
+    private int rows;
+    private ByteBuffer choices;
+    private IntBuffer textOffsets;
+    private IntBuffer textLengths;
+    private ByteBuffer text;
+
+    private ColumnarAnswerStore(List<Question> questions) {
+        List<Question> sorted = new ArrayList<>(questions);
+        sorted.sort(Comparator.comparingInt(Question::getQuestionNumber));
+        this.questionNumbers = new int[sorted.size()];
+        this.choiceIndex = new int[sorted.size()];
+        this.textIndex = new int[sorted.size()];
+        int choiceColumns = 0, textColumns = 0;
+        for (int column = 0; column < sorted.size(); column++) {
+            Question question = sorted.get(column);
+            questionNumbers[column] = question.getQuestionNumber();
+            if (question.getType().equals(QuestionType.MCQ)) {
+                options.add(((MultipleChoiceQuestion) question).getOptions());
+                choiceIndex[column] = choiceColumns++;
+                textIndex[column] = -1;
+            } else {
+                options.add(null);
+                choiceIndex[column] = -1;
+                textIndex[column] = textColumns++;
+            }
+        }
+        this.examInstanceIDs = allocateInts(INITIAL_ROWS);
+    }
+
+    /**
+     * Reads the submitted exam instances of the exam, then streams their answers into the columns
+     * Both queries stream rows from the shard, so neither result set is held on the heap
+     *
+     * @param shard     ( shard holding exam instances and answers of the exam )
+     * @param examID    ( to identify particular exam )
+     * @param questions ( questions of the exam )
+     * @return store holding answers of every exam instance submitted when the first query ran
+     */
+    public static ColumnarAnswerStore load(Shard shard, int examID, List<Question> questions) {
+        ColumnarAnswerStore store = new ColumnarAnswerStore(questions);
+        try (Handle handle = shard.getDbi().open()) {
+            try (ResultIterator<Integer> iterator = handle.createQuery("SELECT id from exam_instance where exam_id = :exam_id and end_time IS NOT NULL order by id")
+                    .bind("exam_id", examID)
+                    .setFetchSize(Integer.MIN_VALUE)
+                    .map((index, resultSet, context) -> resultSet.getInt("id"))
+                    .iterator()) {
+                while (iterator.hasNext()) store.addRow(iterator.next());
+            }
+            store.allocateColumns();
+            try (ResultIterator<Map<String, Object>> iterator = handle.createQuery("SELECT exam_instance_id, question_num, answer->>'$.answer' AS answer " +
+                    "FROM answers WHERE exam_id = :exam_id ORDER BY exam_id, exam_instance_id, question_num")
+                    .bind("exam_id", examID)
+                    .setFetchSize(Integer.MIN_VALUE)
+                    .iterator()) {
+                int row = 0;
+                while (iterator.hasNext()) {
+                    Map<String, Object> answer = iterator.next();
+                    int examInstanceID = ((Number) answer.get("exam_instance_id")).intValue();
+                    while (row < store.rows && store.examInstanceIDs.get(row) < examInstanceID) row++;
+                    if (row == store.rows) break;
+                    if (store.examInstanceIDs.get(row) != examInstanceID) continue;
+                    int column = Arrays.binarySearch(store.questionNumbers, ((Number) answer.get("question_num")).intValue());
+                    if (column >= 0) store.set(row, column, (String) answer.get("answer"));
+                }
+            }
+        }
+        return store;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return questionNumbers.length;
+    }
+
+    public int getExamInstanceID(int row) {
+        return examInstanceIDs.get(row);
+    }
+
+    public int getQuestionNumber(int column) {
+        return questionNumbers[column];
+    }
+
+    public boolean isChoiceColumn(int column) {
+        return choiceIndex[column] >= 0;
+    }
+
+    /**
+     * @return option bitmask selected in the cell, UNANSWERED or UNREADABLE
+     */
+    public byte getChoice(int column, int row) {
+        return choices.get(choiceIndex[column] * rows + row);
+    }
+
+    /**
+     * @return text of the cell, null if not answered
+     */
+    public String getText(int column, int row) {
+        int cell = textIndex[column] * rows + row, length = textLengths.get(cell);
+        if (length == 0) return null;
+        byte[] bytes = new byte[length];
+        ByteBuffer region = text.duplicate();
+        region.position(textOffsets.get(cell));
+        region.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Scores every row against the answer key, columns are scanned one after the other within each range of rows
+     *
+     * @param pool   ( fork join pool to run on )
+     * @param key    ( correct option bitmask of each column, 0 for columns not graded )
+     * @param points ( points of each column )
+     * @return score of each row, in a direct buffer
+     */
+    public IntBuffer score(ForkJoinPool pool, int[] key, int[] points) {
+        IntBuffer scores = allocateInts(rows);
+        pool.invoke(new ScoreTask(key, points, scores, 0, rows));
+        return scores;
+    }
+
+    /**
+     * @param column ( multiple choice column )
+     * @return number of rows selecting each option of the question
+     */
+    public int[] countOptions(int column) {
+        int[] counts = new int[options.get(column).size()];
+        int base = choiceIndex[column] * rows;
+        for (int row = 0; row < rows; row++) {
+            byte choice = choices.get(base + row);
+            if (choice == UNANSWERED || choice == UNREADABLE) continue;
+            for (int option = 0; option < counts.length; option++) {
+                if ((choice & (1 << option)) != 0) counts[option]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @param column ( any column )
+     * @return number of rows with an answer to the question, readable or not
+     */
+    public int countAnswered(int column) {
+        int answered = 0;
+        if (isChoiceColumn(column)) {
+            int base = choiceIndex[column] * rows;
+            for (int row = 0; row < rows; row++) {
+                if (choices.get(base + row) != UNANSWERED) answered++;
+            }
+        } else {
+            int base = textIndex[column] * rows;
+            for (int row = 0; row < rows; row++) {
+                if (textLengths.get(base + row) != 0) answered++;
+            }
+        }
+        return answered;
+    }
+
+    /**
+     * @param column ( multiple choice column )
+     * @param key    ( correct option bitmask of the question )
+     * @param scores ( score of each row )
+     * @return number of rows selecting exactly the key, and the sum of their scores
+     */
+    public long[] countCorrect(int column, int key, IntBuffer scores) {
+        long correct = 0, scoreSum = 0;
+        int base = choiceIndex[column] * rows;
+        for (int row = 0; row < rows; row++) {
+            if (choices.get(base + row) != key) continue;
+            correct++;
+            scoreSum += scores.get(row);
+        }
+        return new long[]{correct, scoreSum};
+    }
+
+    private void addRow(int examInstanceID) {
+        if (rows == examInstanceIDs.capacity()) {
+            IntBuffer grown = allocateInts(rows * 2);
+            examInstanceIDs.rewind();
+            grown.put(examInstanceIDs);
+            examInstanceIDs = grown;
+        }
+        examInstanceIDs.put(rows++, examInstanceID);
+    }
+
+    private void allocateColumns() {
+        int choiceColumns = 0, textColumns = 0;
+        for (int column = 0; column < questionNumbers.length; column++) {
+            if (isChoiceColumn(column)) choiceColumns++;
+            else textColumns++;
+        }
+        choices = ByteBuffer.allocateDirect(Math.max(1, choiceColumns * rows));
+        textOffsets = allocateInts(textColumns * rows);
+        textLengths = allocateInts(textColumns * rows);
+        text = ByteBuffer.allocateDirect(textColumns == 0 ? 1 : INITIAL_TEXT_BYTES);
+    }
+
+    private void set(int row, int column, String answer) {
+        if (answer == null || answer.trim().isEmpty()) return;
+        if (isChoiceColumn(column)) {
+            int mask = OptionMask.parseAnswer(answer, options.get(column));
+            choices.put(choiceIndex[column] * rows + row, mask == OptionMask.INVALID || mask > 0xFE ? UNREADABLE : (byte) mask);
+            return;
+        }
+        byte[] bytes = answer.getBytes(StandardCharsets.UTF_8);
+        if (text.remaining() < bytes.length) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(text.capacity() * 2, text.position() + bytes.length));
+            text.flip();
+            grown.put(text);
+            text = grown;
+        }
+        int cell = textIndex[column] * rows + row;
+        textOffsets.put(cell, text.position());
+        textLengths.put(cell, bytes.length);
+        text.put(bytes);
+    }
+
+    private static IntBuffer allocateInts(int count) {
+        return ByteBuffer.allocateDirect(Math.max(1, count) * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private class ScoreTask extends RecursiveAction {
+        private final int[] key;
+        private final int[] points;
+        private final IntBuffer scores;
+        private final int from;
+        private final int to;
+
+        ScoreTask(int[] key, int[] points, IntBuffer scores, int from, int to) {
+            this.key = key;
+            this.points = points;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScoreTask(key, points, scores, from, middle), new ScoreTask(key, points, scores, middle, to));
+                return;
+            }
+            for (int column = 0; column < questionNumbers.length; column++) {
+                if (key[column] <= 0 || !isChoiceColumn(column)) continue;
+                int base = choiceIndex[column] * rows;
+                byte correct = (byte) key[column];
+                for (int row = from; row < to; row++) {
+                    if (choices.get(base + row) == correct) scores.put(row, scores.get(row) + points[column]);
+                }
+            }
+        }
+    }
+}
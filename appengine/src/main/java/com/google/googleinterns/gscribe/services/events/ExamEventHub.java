@@ -0,0 +1,291 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.events;
+
+import com.google.googleinterns.gscribe.config.ExamEventsConfig;
+import com.google.googleinterns.gscribe.models.Answer;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event streams of exam instances connected to this server
+ * Streams are written with non-blocking servlet output, a small pool of writer threads drains queued events of every stream,
+ * a stream whose client is slow is left till the container reports it writable again, so no thread waits on a client
+ * Heartbeats and remaining times are skipped for a stream with events still queued, and a stream with more than
+ * maxPendingEvents queued is closed, so a stalled client holds a bounded amount of memory and reconnects
+ * Events sent:
+ * remaining - milliseconds left till the deadline, every remainingTimeSeconds
+ * autosave - question numbers and versions of answers committed by an autosave
+ * submitted - exam instance was submitted, forced if its time ran out, the stream is closed after it
+ * Events are published by the server handling the request, clients connected to another server do not receive them
+ */
+public class ExamEventHub implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExamEventHub.class);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ExamEventsConfig config;
+    private final Map<Integer, Set<EventStream>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private ScheduledExecutorService writers;
+
+    public ExamEventHub(ExamEventsConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        writers = Executors.newScheduledThreadPool(config.getWriterThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "exam-event-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        writers.scheduleAtFixedRate(this::sendHeartbeats, config.getHeartbeatSeconds(), config.getHeartbeatSeconds(), TimeUnit.SECONDS);
+        writers.scheduleAtFixedRate(this::sendRemainingTimes, config.getRemainingTimeSeconds(), config.getRemainingTimeSeconds(), TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        writers.shutdownNow();
+        for (Set<EventStream> instanceStreams : streams.values()) {
+            for (EventStream stream : instanceStreams) stream.close();
+        }
+    }
+
+    /**
+     * Called before starting async processing of a stream request, so a refused connection can still be answered normally
+     *
+     * @return whether a connection is available, if so it must be given back by open or release
+     */
+    public boolean reserveConnection() {
+        if (connections.incrementAndGet() <= config.getMaxConnections()) return true;
+        connections.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Gives back a reserved connection which was not opened
+     */
+    public void releaseConnection() {
+        connections.decrementAndGet();
+    }
+
+    /**
+     * Called by the event servlet once async processing is started, sends remaining time right away
+     *
+     * @param examInstanceID ( exam instance the stream belongs to )
+     * @param deadline       ( deadline of the exam instance in epoch millis )
+     * @param asyncContext   ( async context of the stream request, takes over its output )
+     * @throws IOException ( if output of the request can not be obtained )
+     */
+    public void open(int examInstanceID, long deadline, AsyncContext asyncContext) throws IOException {
+        EventStream stream = new EventStream(examInstanceID, deadline, asyncContext);
+        asyncContext.addListener(stream);
+        stream.out.setWriteListener(stream);
+        streams.computeIfAbsent(examInstanceID, id -> ConcurrentHashMap.newKeySet()).add(stream);
+        stream.send(remainingTime(stream));
+    }
+
+    /**
+     * Called once answers of an autosave are committed
+     *
+     * @param examInstanceID ( exam instance whose answers were saved )
+     * @param answers        ( saved answers )
+     */
+    public void autosaved(int examInstanceID, List<Answer> answers) {
+        Set<EventStream> instanceStreams = streams.get(examInstanceID);
+        if (instanceStreams == null) return;
+        JsonArray saved = new JsonArray();
+        for (Answer answer : answers) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("questionNum", answer.getQuestionNum());
+            entry.addProperty("version", answer.getVersion());
+            saved.add(entry);
+        }
+        JsonObject data = new JsonObject();
+        data.add("answers", saved);
+        byte[] event = event("autosave", data);
+        for (EventStream stream : instanceStreams) stream.send(event);
+    }
+
+    /**
+     * Called once the end time of an exam instance is committed, streams of the exam instance are closed after the event
+     *
+     * @param examInstanceID ( exam instance which was submitted )
+     * @param forced         ( whether it was submitted because its time ran out )
+     */
+    public void submitted(int examInstanceID, boolean forced) {
+        Set<EventStream> instanceStreams = streams.get(examInstanceID);
+        if (instanceStreams == null) return;
+        JsonObject data = new JsonObject();
+        data.addProperty("forced", forced);
+        byte[] event = event("submitted", data);
+        for (EventStream stream : instanceStreams) {
+            stream.closeAfterSent = true;
+            stream.send(event);
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Set<EventStream> instanceStreams : streams.values()) {
+            for (EventStream stream : instanceStreams) {
+                if (stream.pendingCount.get() == 0) stream.send(HEARTBEAT);
+            }
+        }
+    }
+
+    private void sendRemainingTimes() {
+        for (Set<EventStream> instanceStreams : streams.values()) {
+            for (EventStream stream : instanceStreams) {
+                if (stream.pendingCount.get() == 0) stream.send(remainingTime(stream));
+            }
+        }
+    }
+
+    private byte[] remainingTime(EventStream stream) {
+        JsonObject data = new JsonObject();
+        data.addProperty("remainingMillis", Math.max(0, stream.deadline - System.currentTimeMillis()));
+        return event("remaining", data);
+    }
+
+    private byte[] event(String name, JsonObject data) {
+        return ("event: " + name + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private class EventStream implements WriteListener, AsyncListener {
+        private final int examInstanceID;
+        private final long deadline;
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream out;
+        private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean closeAfterSent;
+
+        EventStream(int examInstanceID, long deadline, AsyncContext asyncContext) throws IOException {
+            this.examInstanceID = examInstanceID;
+            this.deadline = deadline;
+            this.asyncContext = asyncContext;
+            this.out = asyncContext.getResponse().getOutputStream();
+        }
+
+        void send(byte[] event) {
+            if (closed.get()) return;
+            if (pendingCount.incrementAndGet() > config.getMaxPendingEvents()) {
+                LOGGER.debug("Event stream of exam instance {} fell behind, closing it", examInstanceID);
+                close();
+                return;
+            }
+            pending.add(event);
+            try {
+                writers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        /**
+         * Writes queued events while the output accepts them, only one thread drains a stream at a time
+         * When output is not ready the container calls onWritePossible later, so draining is retried if that call raced with this one
+         */
+        private void drain() {
+            while (draining.compareAndSet(false, true)) {
+                try {
+                    while (!closed.get() && out.isReady()) {
+                        byte[] event = pending.poll();
+                        if (event == null) {
+                            if (closeAfterSent) close();
+                            break;
+                        }
+                        pendingCount.decrementAndGet();
+                        out.write(event);
+                        if (out.isReady()) out.flush();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    return;
+                } finally {
+                    draining.set(false);
+                }
+                if (closed.get() || pending.isEmpty() || !out.isReady()) return;
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            connections.decrementAndGet();
+            streams.computeIfPresent(examInstanceID, (id, instanceStreams) -> {
+                instanceStreams.remove(this);
+                return instanceStreams.isEmpty() ? null : instanceStreams;
+            });
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                LOGGER.debug("Event stream of exam instance {} already completed", examInstanceID);
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
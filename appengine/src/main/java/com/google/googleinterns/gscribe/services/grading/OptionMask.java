@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.grading;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Encodes selected options of a multiple choice question as a bitmask, bit i is set if option i is selected
+ * Single and multi select answers compare with a single int comparison against the answer key
+ */
+public final class OptionMask {
+
+    /**
+     * Mask of an answer which could not be read, never equal to an answer key
+     */
+    public static final int INVALID = -1;
+
+    private OptionMask() {
+    }
+
+    /**
+     * Parses an answer key from the sheet, option letters separated by commas or spaces, e.g. "B" or "A, C"
+     *
+     * @param key         ( answer key cell )
+     * @param optionCount ( number of options of the question )
+     * @return bitmask of correct options, INVALID if key names anything but an option letter
+     */
+    public static int parseKey(String key, int optionCount) {
+        int mask = 0;
+        for (String token : key.trim().split("[,\\s]+")) {
+            if (token.length() != 1) return INVALID;
+            int option = Character.toUpperCase(token.charAt(0)) - 'A';
+            if (option < 0 || option >= optionCount) return INVALID;
+            mask |= 1 << option;
+        }
+        return mask;
+    }
+
+    /**
+     * Parses an answer of an examinee
+     * The answer can name options by letter ( "A", "a, c" ), by number starting at 1 ( "1", "1,3" ) or be the text of one option
+     *
+     * @param answer  ( answer sent by the examinee )
+     * @param options ( options of the question )
+     * @return bitmask of selected options, INVALID if answer can not be read
+     */
+    public static int parseAnswer(String answer, List<String> options) {
+        if (answer == null) return INVALID;
+        String trimmed = answer.trim();
+        if (trimmed.isEmpty()) return INVALID;
+        int mask = 0;
+        for (String token : trimmed.split("[,\\s]+")) {
+            int option = optionOf(token, options.size());
+            if (option < 0) {
+                mask = INVALID;
+                break;
+            }
+            mask |= 1 << option;
+        }
+        if (mask != INVALID && mask != 0) return mask;
+        for (int i = 0; i < options.size(); i++) {
+            if (options.get(i).trim().equalsIgnoreCase(trimmed)) return 1 << i;
+        }
+        return INVALID;
+    }
+
+    private static int optionOf(String token, int optionCount) {
+        int option = -1;
+        if (token.length() == 1 && Character.isLetter(token.charAt(0))) {
+            option = token.toUpperCase(Locale.ROOT).charAt(0) - 'A';
+        } else if (token.length() <= 2 && token.chars().allMatch(Character::isDigit)) {
+            option = Integer.parseInt(token) - 1;
+        }
+        return option >= 0 && option < optionCount ? option : -1;
+    }
+}
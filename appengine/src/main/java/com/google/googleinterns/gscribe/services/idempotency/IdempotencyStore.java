@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.idempotency;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.googleinterns.gscribe.config.IdempotencyConfig;
+import com.google.googleinterns.gscribe.dao.IdempotencyKeyDao;
+import com.google.googleinterns.gscribe.metrics.CacheMetrics;
+import com.google.googleinterns.gscribe.models.IdempotencyKey;
+import com.google.googleinterns.gscribe.resources.io.exception.RequestInProgressException;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Results of requests sent with an idempotency key, so a retried request gets the first result without writing again
+ * Recent keys are held in a bounded in-memory cache, every key is also stored in the database for retries reaching another server
+ * A retry arriving while the first request is still running waits for it instead of running in parallel
+ * Only successful results are stored, a failed request can be retried with the same key
+ * Keys are stored on the primary while answers are written on shards, so the key is stored after the request has committed
+ * and failing to store it does not fail the request
+ */
+public class IdempotencyStore implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final int CLEANUP_CHUNK_SIZE = 1000;
+
+    private final IdempotencyKeyDao idempotencyKeyDao;
+    private final IdempotencyConfig config;
+    private final Cache<String, IdempotencyKey> recent;
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private ScheduledExecutorService cleaner;
+
+    public IdempotencyStore(IdempotencyKeyDao idempotencyKeyDao, IdempotencyConfig config, MetricRegistry metrics) {
+        this.idempotencyKeyDao = idempotencyKeyDao;
+        this.config = config;
+        this.recent = Caffeine.newBuilder()
+                .recordStats(() -> new CacheMetrics(metrics, MetricRegistry.name(IdempotencyStore.class, "keys")))
+                .maximumSize(config.getCacheSize())
+                .expireAfterWrite(config.getRetentionHours(), TimeUnit.HOURS)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-key-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::removeExpiredKeys, config.getCleanupIntervalMinutes(), config.getCleanupIntervalMinutes(), TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void stop() {
+        cleaner.shutdownNow();
+    }
+
+    /**
+     * Returns the stored result of the key if there is one, else runs the request and stores its result
+     * A key stored by another user is not used, the request is run and fails its own ownership checks
+     *
+     * @param examInstanceID ( exam instance the request is for, keys are unique per exam instance )
+     * @param userID         ( unique user id of user sending the request )
+     * @param key            ( idempotency key sent by client )
+     * @param waitMillis     ( time to wait for a request with the same key which is still running )
+     * @param request        ( runs the request, returns its response message )
+     * @return response message of the first successful request with the key
+     * @throws RequestInProgressException ( if the request with the same key does not finish within waitMillis )
+     */
+    public String execute(int examInstanceID, String userID, String key, long waitMillis, Supplier<String> request) throws RequestInProgressException {
+        String cacheKey = examInstanceID + ":" + key;
+        IdempotencyKey stored = recent.getIfPresent(cacheKey);
+        if (stored == null) {
+            stored = idempotencyKeyDao.getIdempotencyKey(examInstanceID, key);
+            if (stored != null) recent.put(cacheKey, stored);
+        }
+        if (stored != null && stored.getUserID().equals(userID)) return stored.getResponse();
+
+        CompletableFuture<String> running = new CompletableFuture<>();
+        CompletableFuture<String> first = inFlight.putIfAbsent(cacheKey, running);
+        if (first != null) return await(first, waitMillis);
+        try {
+            String response;
+            try {
+                response = request.get();
+            } catch (RuntimeException e) {
+                running.completeExceptionally(e);
+                throw e;
+            }
+            IdempotencyKey result = new IdempotencyKey(examInstanceID, key, userID, response);
+            recent.put(cacheKey, result);
+            running.complete(response);
+            try {
+                idempotencyKeyDao.insertIdempotencyKey(result);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Storing idempotency key of exam instance {} failed, retries reaching another server will run again", examInstanceID, e);
+            }
+            return response;
+        } finally {
+            inFlight.remove(cacheKey, running);
+        }
+    }
+
+    /**
+     * Waits for the request which is running with the same key, a retry fails the same way as the request it waited for
+     */
+    private String await(CompletableFuture<String> first, long waitMillis) throws RequestInProgressException {
+        try {
+            return first.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RequestInProgressException("Request with the same idempotency key is still running");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestInProgressException("Interrupted while waiting for request with the same idempotency key");
+        }
+    }
+
+    private void removeExpiredKeys() {
+        try {
+            Timestamp before = new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(config.getRetentionHours()));
+            int removed = 0, chunk;
+            do {
+                chunk = idempotencyKeyDao.deleteIdempotencyKeys(before, CLEANUP_CHUNK_SIZE);
+                removed += chunk;
+            } while (chunk == CLEANUP_CHUNK_SIZE);
+            LOGGER.info("Removed {} expired idempotency keys", removed);
+        } catch (RuntimeException e) {
+            LOGGER.error("Removing expired idempotency keys failed", e);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.impl;
+
+import com.google.googleinterns.gscribe.config.AnswerIngestionConfig;
+import com.google.googleinterns.gscribe.dao.AnswerDao;
+import com.google.googleinterns.gscribe.dao.ExamInstanceDao;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.models.Answer;
+import com.google.googleinterns.gscribe.resources.io.exception.SubmissionQueueFullException;
+import com.google.googleinterns.gscribe.services.AnswerIngestionService;
+import com.google.googleinterns.gscribe.services.analytics.ExamAnalytics;
+import com.google.googleinterns.gscribe.services.similarity.MinHash;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class AnswerIngestionServiceImpl implements AnswerIngestionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnswerIngestionServiceImpl.class);
+    private static final long POLL_MILLIS = 100;
+
+    private final ShardRouter shardRouter;
+    private final ExamAnalytics examAnalytics;
+    private final AnswerIngestionConfig config;
+    private final int batchSize;
+    private final List<ShardFlusher> flushers = new ArrayList<>();
+    private final Gson gson = new Gson();
+    private volatile boolean running;
+
+    public AnswerIngestionServiceImpl(ShardRouter shardRouter, ExamAnalytics examAnalytics, AnswerIngestionConfig config, int batchSize) {
+        this.shardRouter = shardRouter;
+        this.examAnalytics = examAnalytics;
+        this.config = config;
+        this.batchSize = batchSize;
+        for (Shard shard : shardRouter.getShards()) flushers.add(new ShardFlusher(shard, config.getQueueCapacity()));
+    }
+
+    /**
+     * Starts one flusher thread per shard, so a slow shard only delays submissions of its own exams
+     */
+    @Override
+    public void start() {
+        running = true;
+        for (ShardFlusher flusher : flushers) {
+            flusher.thread = new Thread(() -> flushLoop(flusher), "answer-ingestion-" + flusher.shard.getIndex());
+            flusher.thread.setDaemon(true);
+            flusher.thread.start();
+        }
+    }
+
+    /**
+     * Stops accepting submissions and waits for the queued ones to be written
+     */
+    @Override
+    public void stop() throws InterruptedException {
+        running = false;
+        for (ShardFlusher flusher : flushers) flusher.thread.join();
+    }
+
+    /**
+     * Queues the submission for the shard of the exam
+     * Waits at most enqueue timeout for space in the queue, so a full queue pushes back on callers instead of growing
+     * If the service was stopped while queueing, the flusher may already have exited, so the submission is taken back and rejected
+     *
+     * @param examID         ( to identify the exam of the exam instance )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @param answers        ( answers of the exam instance )
+     * @param complete       ( whether this is the final submission of the exam instance )
+     * @return future completed once the transaction containing the answers is committed
+     * @throws SubmissionQueueFullException ( if queue stays full for the configured enqueue timeout, or service is stopped )
+     */
+    @Override
+    public CompletableFuture<Void> submit(int examID, int examInstanceID, List<Answer> answers, boolean complete) throws SubmissionQueueFullException {
+        if (!running) throw new SubmissionQueueFullException("Answer ingestion is not running");
+        PendingSubmission submission = new PendingSubmission(examID, examInstanceID, answers, complete);
+        BlockingQueue<PendingSubmission> queue;
+        try {
+            queue = flushers.get(shardRouter.forExam(examID).getIndex()).queue;
+        } catch (RuntimeException e) {
+            submission.committed.completeExceptionally(e);
+            return submission.committed;
+        }
+        boolean queued;
+        try {
+            queued = queue.offer(submission, config.getEnqueueTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) throw new SubmissionQueueFullException("Too many submissions in progress");
+        if (!running && queue.remove(submission)) throw new SubmissionQueueFullException("Answer ingestion is not running");
+        return submission.committed;
+    }
+
+    /**
+     * Takes the first waiting submission of the shard and keeps collecting until the batch is full or flush interval since the first one elapses
+     * Exits once the service is stopped and the queue is drained
+     *
+     * @param flusher ( queue and shard to flush to )
+     */
+    private void flushLoop(ShardFlusher flusher) {
+        BlockingQueue<PendingSubmission> queue = flusher.queue;
+        List<PendingSubmission> batch = new ArrayList<>(config.getMaxBatchSize());
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMillis());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSubmission first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < config.getMaxBatchSize()) {
+                    queue.drainTo(batch, config.getMaxBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= config.getMaxBatchSize() || remaining <= 0) break;
+                    PendingSubmission next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(flusher.shard, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction on the shard and completes its futures, committed final submissions are passed on to exam analytics
+     * If the transaction fails each submission is retried in a transaction of its own, so one bad submission does not fail the others
+     *
+     * @param shard ( shard holding exam instances of the submissions )
+     * @param batch ( submissions to be written )
+     */
+    private void flush(Shard shard, List<PendingSubmission> batch) {
+        List<PendingSubmission> committed;
+        try {
+            write(shard, batch);
+            committed = batch;
+        } catch (RuntimeException batchFailure) {
+            LOGGER.warn("Answer batch of {} submissions failed, retrying individually", batch.size(), batchFailure);
+            committed = new ArrayList<>(batch.size());
+            for (PendingSubmission submission : batch) {
+                try {
+                    write(shard, Collections.singletonList(submission));
+                    committed.add(submission);
+                } catch (RuntimeException e) {
+                    submission.committed.completeExceptionally(e);
+                }
+            }
+        }
+        for (PendingSubmission submission : committed) committed(submission);
+    }
+
+    /**
+     * Completes the future of a committed submission, a failure in exam analytics is only logged as the answers are already saved
+     */
+    private void committed(PendingSubmission submission) {
+        submission.committed.complete(null);
+        if (!submission.complete) return;
+        try {
+            examAnalytics.submitted(submission.examID, submission.examInstanceID);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Passing submission of exam instance {} to exam analytics failed", submission.examInstanceID, e);
+        }
+    }
+
+    private void write(Shard shard, List<PendingSubmission> batch) {
+        List<Integer> examIDs = new ArrayList<>();
+        List<Integer> examInstanceIDs = new ArrayList<>();
+        List<Integer> questionNumbers = new ArrayList<>();
+        List<String> answers = new ArrayList<>();
+        List<byte[]> signatures = new ArrayList<>();
+        List<Integer> versions = new ArrayList<>();
+        List<Integer> completedExamIDs = new ArrayList<>();
+        List<Integer> completed = new ArrayList<>();
+        for (PendingSubmission submission : batch) {
+            for (Answer answer : submission.answers) {
+                examIDs.add(submission.examID);
+                examInstanceIDs.add(submission.examInstanceID);
+                questionNumbers.add(answer.getQuestionNum());
+                answers.add(gson.toJson(answer));
+                signatures.add(MinHash.encode(MinHash.signatureOf(answer.getAnswer())));
+                versions.add(answer.getVersion());
+            }
+            if (submission.complete) {
+                completedExamIDs.add(submission.examID);
+                completed.add(submission.examInstanceID);
+            }
+        }
+        shard.getDbi().inTransaction((handle, status) -> {
+            if (!answers.isEmpty())
+                handle.attach(AnswerDao.class).upsertAnswerBatch(examIDs, examInstanceIDs, questionNumbers, answers, signatures, versions, batchSize);
+            if (!completed.isEmpty()) handle.attach(ExamInstanceDao.class).updateExamInstanceEndTimes(completedExamIDs, completed);
+            return null;
+        });
+    }
+
+    private static class ShardFlusher {
+        private final Shard shard;
+        private final BlockingQueue<PendingSubmission> queue;
+        private Thread thread;
+
+        ShardFlusher(Shard shard, int queueCapacity) {
+            this.shard = shard;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+
+    private static class PendingSubmission {
+        private final int examID;
+        private final int examInstanceID;
+        private final List<Answer> answers;
+        private final boolean complete;
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        PendingSubmission(int examID, int examInstanceID, List<Answer> answers, boolean complete) {
+            this.examID = examID;
+            this.examInstanceID = examInstanceID;
+            this.answers = answers;
+            this.complete = complete;
+        }
+    }
+}
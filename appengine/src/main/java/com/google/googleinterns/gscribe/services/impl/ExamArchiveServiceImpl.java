@@ -0,0 +1,396 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.impl;
+
+import com.google.googleinterns.gscribe.config.ArchiveConfig;
+import com.google.googleinterns.gscribe.dao.ExamArchiveDao;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.models.Answer;
+import com.google.googleinterns.gscribe.models.ExamArchive;
+import com.google.googleinterns.gscribe.models.ExamInstance;
+import com.google.googleinterns.gscribe.services.ExamArchiveService;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.ResultIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps exam instances and answers of every shard range partitioned by term, a term being a calendar month
+ * Exam ids increase with creation time, so the partition of a term holds exam instances and answers of exams created in it
+ * On the first run of a term an exam id range is reserved for it and its partition is split off pmax while still empty,
+ * as splitting a partition copies its rows and blocks writes to the table. Exams created before that run fall in the
+ * range of the previous term
+ * Once a partition is older than the retained terms and every exam instance in it is submitted, it is exported
+ * to gzip compressed newline delimited JSON files and dropped
+ * Exams of an archived term can no longer be started, as their attempts are not in the database to be checked against
+ * Maintenance runs on one server at a time, guarded by a lock on the primary
+ */
+public class ExamArchiveServiceImpl implements ExamArchiveService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExamArchiveServiceImpl.class);
+    private static final String LOCK_NAME = "gscribe_partition_maintenance";
+    private static final String MAX_PARTITION = "pmax";
+    private static final String[] TABLES = {"exam_instance", "answers"};
+    private static final String[] PRIMARY_KEYS = {"id, exam_id", "exam_instance_id, question_num, exam_id"};
+    private static final DateTimeFormatter TERM_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final DBI dbi;
+    private final ExamMetadataDao examMetadataDao;
+    private final ExamArchiveDao examArchiveDao;
+    private final ShardRouter shardRouter;
+    private final ArchiveConfig config;
+    private final Gson gson = new Gson();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param dbi             ( primary database, holds the maintenance lock )
+     * @param examMetadataDao ( exam metadata on the primary, a replica may not have the latest exams )
+     * @param examArchiveDao  ( archive index on the primary )
+     * @param shardRouter     ( shards holding the partitioned tables )
+     * @param config          ( archive configuration )
+     */
+    public ExamArchiveServiceImpl(DBI dbi, ExamMetadataDao examMetadataDao, ExamArchiveDao examArchiveDao, ShardRouter shardRouter, ArchiveConfig config) {
+        this.dbi = dbi;
+        this.examMetadataDao = examMetadataDao;
+        this.examArchiveDao = examArchiveDao;
+        this.shardRouter = shardRouter;
+        this.config = config;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintainPartitions, 0, config.getMaintenanceIntervalMinutes(), TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public ExamInstance getArchivedExamInstance(int examID, int examInstanceID) throws IOException {
+        for (ExamArchive archive : examArchiveDao.getExamArchives(examID)) {
+            YearMonth term = YearMonth.of(archive.getTerm() / 100, archive.getTerm() % 100);
+            ExamInstance examInstance = null;
+            for (JsonObject row : readArchive(archiveFile(archive.getShard(), "exam_instance", term), "id", examInstanceID)) {
+                if (row.get("exam_id").getAsInt() == examID) examInstance = toExamInstance(row);
+            }
+            if (examInstance == null) continue;
+            List<Answer> answers = new ArrayList<>();
+            for (JsonObject row : readArchive(archiveFile(archive.getShard(), "answers", term), "exam_instance_id", examInstanceID)) {
+                answers.add(toAnswer(row));
+            }
+            examInstance.setAnswers(answers);
+            return examInstance;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isArchived(int examID) {
+        return !examArchiveDao.getExamArchives(examID).isEmpty();
+    }
+
+    /**
+     * Splits the partition of the current term off pmax and archives partitions older than the retained terms, on every shard
+     * Failures are logged and retried on the next run
+     */
+    private void maintainPartitions() {
+        try (Handle lock = dbi.open()) {
+            Integer acquired = lock.createQuery("SELECT GET_LOCK(:name, 0)").bind("name", LOCK_NAME).mapTo(Integer.class).first();
+            if (acquired == null || acquired != 1) return;
+            try {
+                YearMonth current = YearMonth.now();
+                int currentEndExamID = reserveTerm(current);
+                for (Shard shard : shardRouter.getShards()) {
+                    try (Handle handle = shard.getDbi().open()) {
+                        for (String table : TABLES) splitTerms(handle, table, current, currentEndExamID);
+                        archiveTermsBefore(handle, shard.getIndex(), current.minusMonths(config.getRetainTerms()));
+                    }
+                }
+            } finally {
+                lock.createQuery("SELECT RELEASE_LOCK(:name)").bind("name", LOCK_NAME).mapTo(Integer.class).first();
+            }
+        } catch (RuntimeException | IOException e) {
+            LOGGER.error("Partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * Called to find the upper bound of the current term's partition, reserving an exam id range for the term on its first run
+     * The bound is read back from the primary once its partition exists, so every shard and table splits at the same exam id
+     * On reservation the exam auto increment is raised past the previous term's range, new exams then fall in the range
+     * of the current term, which holds no rows yet when its partition is split off pmax
+     *
+     * @param current ( current term )
+     * @return exam id the partition of the current term ends below
+     */
+    private int reserveTerm(YearMonth current) {
+        int lowerBound = 0;
+        try (Handle handle = shardRouter.getShards().get(0).getDbi().open()) {
+            List<TermPartition> partitions = termPartitions(handle, TABLES[0]);
+            if (!partitions.isEmpty()) {
+                TermPartition last = partitions.get(partitions.size() - 1);
+                if (!last.term.isBefore(current)) return last.endExamID;
+                lowerBound = last.endExamID;
+            }
+        }
+        int nextExamID = examMetadataDao.getNextExamID();
+        if (nextExamID < lowerBound) {
+            try (Handle handle = dbi.open()) {
+                handle.execute("ALTER TABLE exam AUTO_INCREMENT = " + lowerBound);
+            }
+            nextExamID = lowerBound;
+        } else if (lowerBound > 0 && nextExamID > lowerBound) {
+            LOGGER.warn("Exam ids reserved for earlier terms ran out, rows of exams from id {} are moved out of pmax, consider raising archive.reservedExamIDs",
+                    lowerBound);
+        }
+        return nextExamID + config.getReservedExamIDs();
+    }
+
+    /**
+     * Splits a partition off pmax for every ended term which does not have one yet, then for the current term
+     * Ended terms get a partition only when maintenance did not run in them, or on a table without term partitions where all
+     * exams created before the current term go to the partition of the previous term. These splits move the rows of the term
+     * A term without new exams gets no partition, its exam instances fall in the partition of the next term
+     *
+     * @param handle           ( handle of the shard )
+     * @param table            ( partitioned table )
+     * @param current          ( current term )
+     * @param currentEndExamID ( upper bound reserved for the current term )
+     */
+    private void splitTerms(Handle handle, String table, YearMonth current, int currentEndExamID) {
+        List<TermPartition> partitions = termPartitions(handle, table);
+        YearMonth term = partitions.isEmpty() ? current.minusMonths(1) : partitions.get(partitions.size() - 1).term.plusMonths(1);
+        int lowerBound = partitions.isEmpty() ? 0 : partitions.get(partitions.size() - 1).endExamID;
+        for (; !term.isAfter(current); term = term.plusMonths(1)) {
+            int endExamID = term.equals(current) ? currentEndExamID :
+                    examMetadataDao.getExamIDBoundary(Timestamp.valueOf(term.plusMonths(1).atDay(1).atStartOfDay()));
+            if (endExamID <= lowerBound) continue;
+            handle.execute("ALTER TABLE " + table + " REORGANIZE PARTITION " + MAX_PARTITION + " INTO ( PARTITION " + partitionName(term) +
+                    " VALUES LESS THAN (" + endExamID + "), PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE )");
+            LOGGER.info("Partitioned {} of term {} below exam id {}", table, term, endExamID);
+            lowerBound = endExamID;
+        }
+    }
+
+    /**
+     * Exports partitions of terms before cutoff to archive files, records them in the archive index and drops them
+     * Files are written completely and synced before the partition is dropped, a failed run leaves the partition in place
+     * Archiving stops at the first partition with exam instances in progress or rostered and not started, it is retried on later runs,
+     * later partitions wait for it so archived exam id ranges stay contiguous
+     * Once recorded, exams of the partition can not be started, an exam instance started before that is caught by checking
+     * that the partition still holds exactly the exported rows, otherwise the record is removed and the partition kept
+     *
+     * @param handle ( handle of the shard )
+     * @param shard  ( index of the shard )
+     * @param cutoff ( first term kept in the database )
+     */
+    private void archiveTermsBefore(Handle handle, int shard, YearMonth cutoff) throws IOException {
+        int firstExamID = examArchiveDao.getArchivedExamIDBoundary(shard);
+        for (TermPartition partition : termPartitions(handle, "exam_instance")) {
+            if (!partition.term.isBefore(cutoff)) break;
+            if (countOpenExamInstances(handle, partition.name) > 0) {
+                LOGGER.info("Term {} of shard {} has exam instances not submitted yet, archiving waits for them", partition.term, shard);
+                break;
+            }
+            int instanceCount = export(handle, 0, partition.name, archiveFile(shard, "exam_instance", partition.term));
+            int answerCount = export(handle, 1, partition.name, archiveFile(shard, "answers", partition.term));
+            int term = partition.term.getYear() * 100 + partition.term.getMonthValue();
+            examArchiveDao.insertExamArchive(new ExamArchive(shard, term, firstExamID, partition.endExamID, instanceCount, answerCount));
+            if (countOpenExamInstances(handle, partition.name) > 0 || countRows(handle, 0, partition.name) != instanceCount
+                    || countRows(handle, 1, partition.name) != answerCount) {
+                examArchiveDao.deleteExamArchive(shard, term);
+                LOGGER.info("Term {} of shard {} changed while it was archived, archiving is retried on the next run", partition.term, shard);
+                break;
+            }
+            for (String table : TABLES) handle.execute("ALTER TABLE " + table + " DROP PARTITION " + partition.name);
+            LOGGER.info("Archived term {} of shard {}, {} exam instances and {} answers", partition.term, shard, instanceCount, answerCount);
+            firstExamID = partition.endExamID;
+        }
+    }
+
+    /**
+     * Served by the ( end_time ) index of exam_instance, counts exam instances in progress and rostered ones not started yet
+     */
+    private int countOpenExamInstances(Handle handle, String partition) {
+        return handle.createQuery("SELECT COUNT(*) FROM exam_instance PARTITION (" + partition + ") WHERE end_time IS NULL")
+                .mapTo(Integer.class)
+                .first();
+    }
+
+    /**
+     * @param table ( index of the table in TABLES )
+     */
+    private int countRows(Handle handle, int table, String partition) {
+        return handle.createQuery("SELECT COUNT(*) FROM " + TABLES[table] + " PARTITION (" + partition + ")")
+                .mapTo(Integer.class)
+                .first();
+    }
+
+    /**
+     * Streams rows of a partition into a gzip file, one JSON object per line, timestamps as epoch milliseconds and binary columns as base64
+     * Rows are written in primary key order, so both files of a term are sorted by exam instance id
+     *
+     * @param table ( index of the table in TABLES )
+     * @return number of rows written
+     */
+    private int export(Handle handle, int table, String partition, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int rows = 0;
+        try (FileOutputStream out = new FileOutputStream(temporary.toFile());
+             ResultIterator<Map<String, Object>> iterator = handle.createQuery("SELECT * FROM " + TABLES[table] + " PARTITION (" + partition + ") ORDER BY " + PRIMARY_KEYS[table])
+                     .setFetchSize(Integer.MIN_VALUE)
+                     .iterator()) {
+            GZIPOutputStream gzip = new GZIPOutputStream(out);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+            while (iterator.hasNext()) {
+                writer.write(gson.toJson(toJson(iterator.next())));
+                writer.write('\n');
+                rows++;
+            }
+            writer.flush();
+            gzip.finish();
+            out.getFD().sync();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    /**
+     * Reads an archive file one line at a time keeping only rows of the exam instance
+     * Rows are sorted by exam instance id, so reading stops at the first row past the exam instance
+     *
+     * @param file           ( archive file )
+     * @param idColumn       ( column holding the exam instance id )
+     * @param examInstanceID ( to identify particular exam instance )
+     * @return rows of the exam instance
+     */
+    private List<JsonObject> readArchive(Path file, String idColumn, int examInstanceID) throws IOException {
+        List<JsonObject> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonObject row = JsonParser.parseString(line).getAsJsonObject();
+                int id = row.get(idColumn).getAsInt();
+                if (id == examInstanceID) rows.add(row);
+                else if (id > examInstanceID) break;
+            }
+        }
+        return rows;
+    }
+
+    private JsonObject toJson(Map<String, Object> row) {
+        JsonObject json = new JsonObject();
+        row.forEach((column, value) -> {
+            if (value instanceof Timestamp) json.addProperty(column, ((Timestamp) value).getTime());
+            else if (value instanceof Number) json.addProperty(column, (Number) value);
+            else if (value instanceof byte[]) json.addProperty(column, Base64.getEncoder().encodeToString((byte[]) value));
+            else json.addProperty(column, value == null ? null : value.toString());
+        });
+        return json;
+    }
+
+    private ExamInstance toExamInstance(JsonObject row) {
+        ExamInstance examInstance = new ExamInstance(
+                row.get("id").getAsInt(),
+                row.get("exam_id").getAsInt(),
+                stringOf(row.get("user_id")),
+                row.get("student_roll_num").getAsInt(),
+                timestampOf(row.get("start_time")),
+                timestampOf(row.get("end_time"))
+        );
+        if (row.has("score") && !row.get("score").isJsonNull()) examInstance.setScore(row.get("score").getAsInt());
+        return examInstance;
+    }
+
+    private Answer toAnswer(JsonObject row) {
+        Answer answer = gson.fromJson(row.get("answer").getAsString(), Answer.class);
+        answer.setQuestionNum(row.get("question_num").getAsInt());
+        answer.setVersion(row.get("version").getAsInt());
+        return answer;
+    }
+
+    private String stringOf(JsonElement element) {
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private Timestamp timestampOf(JsonElement element) {
+        return element == null || element.isJsonNull() ? null : new Timestamp(element.getAsLong());
+    }
+
+    private List<TermPartition> termPartitions(Handle handle, String table) {
+        return handle.createQuery("SELECT partition_name, partition_description FROM information_schema.partitions " +
+                "WHERE table_schema = DATABASE() AND table_name = :table AND partition_name <> :max_partition ORDER BY partition_ordinal_position")
+                .bind("table", table)
+                .bind("max_partition", MAX_PARTITION)
+                .map((index, resultSet, context) -> new TermPartition(resultSet.getString(1), Integer.parseInt(resultSet.getString(2))))
+                .list();
+    }
+
+    private Path archiveFile(int shard, String table, YearMonth term) {
+        return Paths.get(config.getDirectory(), "shard-" + shard, table + "-" + term.format(TERM_FORMAT) + ".ndjson.gz");
+    }
+
+    private static String partitionName(YearMonth term) {
+        return "p" + term.format(TERM_FORMAT);
+    }
+
+    private static class TermPartition {
+        private final String name;
+        private final YearMonth term;
+        private final int endExamID;
+
+        TermPartition(String name, int endExamID) {
+            this.name = name;
+            this.term = YearMonth.parse(name.substring(1), TERM_FORMAT);
+            this.endExamID = endExamID;
+        }
+    }
+}
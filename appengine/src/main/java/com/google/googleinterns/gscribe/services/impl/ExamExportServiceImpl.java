@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.impl;
+
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.services.ExamExportService;
+import com.google.googleinterns.gscribe.services.export.ExportFormat;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.ResultIterator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Exports exam results with one streamed query of exam instances left joined with their answers
+ * Joined rows of one exam instance are consecutive, so only the answers of the exam instance being written are held
+ * Ordering only by roll number lets exam instances be read in order of the ( exam_id, student_roll_num ) unique key without a filesort,
+ * answers are looked up per exam instance with the ( exam_id, exam_instance_id, question_num ) index and placed by question number
+ * CSV has a column per question, cells starting with a formula character are prefixed with a quote so spreadsheets show them as text
+ * NDJSON has one object per exam instance, timestamps as epoch milliseconds as in archive files
+ */
+public class ExamExportServiceImpl implements ExamExportService {
+
+    private static final String EXPORT_QUERY = "SELECT ei.id, ei.student_roll_num, ei.student_email_id, ei.start_time, ei.end_time, ei.score, " +
+            "a.question_num, a.answer->>'$.answer' AS answer " +
+            "FROM exam_instance ei LEFT JOIN answers a ON a.exam_id = ei.exam_id AND a.exam_instance_id = ei.id " +
+            "WHERE ei.exam_id = :exam_id ORDER BY ei.student_roll_num";
+    private static final String FORMULA_PREFIXES = "=+-@";
+
+    private final ShardRouter shardRouter;
+    private final QuestionsDao questionsDao;
+    private final Gson gson = new Gson();
+
+    public ExamExportServiceImpl(ShardRouter shardRouter, QuestionsDao questionsDao) {
+        this.shardRouter = shardRouter;
+        this.questionsDao = questionsDao;
+    }
+
+    @Override
+    public void export(int examID, ExportFormat format, OutputStream out) throws IOException {
+        int[] questionNumbers = questionsDao.getExamQuestions(examID).stream().mapToInt(Question::getQuestionNumber).sorted().toArray();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writeCsvHeader(writer, questionNumbers);
+            writer.flush();
+        }
+        try (Handle handle = shardRouter.forExam(examID).getDbi().open();
+             ResultIterator<Map<String, Object>> iterator = handle.createQuery(EXPORT_QUERY)
+                     .bind("exam_id", examID)
+                     .setFetchSize(Integer.MIN_VALUE)
+                     .iterator()) {
+            Map<String, Object> instance = null;
+            Map<Integer, String> answers = new HashMap<>();
+            while (iterator.hasNext()) {
+                Map<String, Object> row = iterator.next();
+                if (instance != null && !instance.get("id").equals(row.get("id"))) {
+                    writeRow(writer, format, instance, answers, questionNumbers);
+                    answers.clear();
+                }
+                instance = row;
+                if (row.get("question_num") != null) answers.put(((Number) row.get("question_num")).intValue(), (String) row.get("answer"));
+            }
+            if (instance != null) writeRow(writer, format, instance, answers, questionNumbers);
+        }
+        writer.flush();
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, Map<String, Object> instance, Map<Integer, String> answers, int[] questionNumbers) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsvRow(writer, instance, answers, questionNumbers);
+            return;
+        }
+        JsonObject row = new JsonObject();
+        row.addProperty("examInstanceID", (Number) instance.get("id"));
+        row.addProperty("studentRollNum", (Number) instance.get("student_roll_num"));
+        row.addProperty("studentEmailID", (String) instance.get("student_email_id"));
+        row.addProperty("startTime", epochMillis(instance.get("start_time")));
+        row.addProperty("endTime", epochMillis(instance.get("end_time")));
+        row.addProperty("score", (Number) instance.get("score"));
+        JsonObject answerObject = new JsonObject();
+        for (int questionNumber : questionNumbers) {
+            if (answers.containsKey(questionNumber)) answerObject.addProperty(String.valueOf(questionNumber), answers.get(questionNumber));
+        }
+        row.add("answers", answerObject);
+        writer.write(gson.toJson(row));
+        writer.write('\n');
+    }
+
+    private void writeCsvHeader(Writer writer, int[] questionNumbers) throws IOException {
+        writer.write("exam_instance_id,student_roll_num,student_email_id,start_time,end_time,score");
+        for (int questionNumber : questionNumbers) writer.write(",q" + questionNumber);
+        writer.write("\r\n");
+    }
+
+    private void writeCsvRow(Writer writer, Map<String, Object> instance, Map<Integer, String> answers, int[] questionNumbers) throws IOException {
+        writer.write(String.valueOf(instance.get("id")));
+        writer.write(',');
+        writer.write(String.valueOf(instance.get("student_roll_num")));
+        writer.write(',');
+        writeCsvCell(writer, (String) instance.get("student_email_id"));
+        writer.write(',');
+        writeCsvCell(writer, instance.get("start_time") == null ? null : ((Timestamp) instance.get("start_time")).toInstant().toString());
+        writer.write(',');
+        writeCsvCell(writer, instance.get("end_time") == null ? null : ((Timestamp) instance.get("end_time")).toInstant().toString());
+        writer.write(',');
+        if (instance.get("score") != null) writer.write(String.valueOf(instance.get("score")));
+        for (int questionNumber : questionNumbers) {
+            writer.write(',');
+            writeCsvCell(writer, answers.get(questionNumber));
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvCell(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) return;
+        if (FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) value = "'" + value;
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private Long epochMillis(Object timestamp) {
+        return timestamp == null ? null : ((Timestamp) timestamp).getTime();
+    }
+}
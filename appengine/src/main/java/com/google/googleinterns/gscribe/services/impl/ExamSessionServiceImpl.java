@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.googleinterns.gscribe.config.ExamSessionConfig;
+import com.google.googleinterns.gscribe.dao.ExamMetadataDao;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.metrics.CacheMetrics;
+import com.google.googleinterns.gscribe.models.ExamInstance;
+import com.google.googleinterns.gscribe.models.ExamMetadata;
+import com.google.googleinterns.gscribe.resources.io.exception.SubmissionQueueFullException;
+import com.google.googleinterns.gscribe.services.AnswerIngestionService;
+import com.google.googleinterns.gscribe.services.ExamSessionService;
+import com.google.googleinterns.gscribe.services.events.ExamEventHub;
+import com.google.googleinterns.gscribe.services.session.HierarchicalTimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Registry of active exam sessions, the deadline plus grace period of each is scheduled on a hierarchical timing wheel
+ * A single ticker thread advances the wheel, expired sessions are submitted through answer ingestion with no answers,
+ * so their end times are written in the same batched transactions as other submissions
+ * On start the registry is rebuilt from exam instances without end time on every shard
+ * Setting end time keeps an earlier end time, so a session expiring on more than one server is submitted once
+ * Once a forced submission is committed, event streams of the exam instance are notified
+ */
+public class ExamSessionServiceImpl implements ExamSessionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExamSessionServiceImpl.class);
+    private static final long MILLIS_PER_MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final ShardRouter shardRouter;
+    private final AnswerIngestionService answerIngestionService;
+    private final ExamEventHub examEventHub;
+    private final ExamSessionConfig config;
+    private final LoadingCache<Integer, Integer> examDurations;
+    private final Map<Integer, ExamSession> sessions = new ConcurrentHashMap<>();
+    private final Queue<ExamSession> expired = new ConcurrentLinkedQueue<>();
+    private final HierarchicalTimingWheel<ExamSession> wheel;
+    private ScheduledExecutorService ticker;
+
+    public ExamSessionServiceImpl(ShardRouter shardRouter, ExamMetadataDao examMetadataDao, AnswerIngestionService answerIngestionService,
+                                  ExamEventHub examEventHub, ExamSessionConfig config, MetricRegistry metrics) {
+        this.shardRouter = shardRouter;
+        this.answerIngestionService = answerIngestionService;
+        this.examEventHub = examEventHub;
+        this.config = config;
+        this.examDurations = Caffeine.newBuilder()
+                .recordStats(() -> new CacheMetrics(metrics, MetricRegistry.name(ExamSessionService.class, "exam-durations")))
+                .maximumSize(10_000)
+                .build(examID -> {
+                    ExamMetadata examMetadata = examMetadataDao.getExamMetadataByExamId(examID);
+                    return examMetadata == null ? null : examMetadata.getDuration();
+                });
+        this.wheel = new HierarchicalTimingWheel<>(System.currentTimeMillis(), config.getTickMillis(), config.getWheelSize(), config.getWheelLevels());
+    }
+
+    @Override
+    public void start() {
+        int restored = 0;
+        for (Shard shard : shardRouter.getShards()) {
+            for (ExamInstance examInstance : shard.getExamInstanceDao().getActiveExamInstances()) {
+                Integer duration = examDurations.get(examInstance.getExamID());
+                if (duration == null) continue;
+                startSession(examInstance, duration);
+                restored++;
+            }
+        }
+        LOGGER.info("Restored {} active exam sessions", restored);
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "exam-session-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, config.getTickMillis(), config.getTickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    @Override
+    public void startSession(ExamInstance examInstance, int durationMinutes) {
+        long deadline = examInstance.getStartTime().getTime() + durationMinutes * MILLIS_PER_MINUTE;
+        ExamSession session = new ExamSession(examInstance.getExamID(), examInstance.getId(), deadline);
+        if (sessions.putIfAbsent(session.examInstanceID, session) != null) return;
+        examDurations.put(examInstance.getExamID(), durationMinutes);
+        session.timeout = wheel.schedule(deadline + TimeUnit.SECONDS.toMillis(config.getGracePeriodSeconds()), session);
+    }
+
+    @Override
+    public void endSession(int examInstanceID) {
+        ExamSession session = sessions.remove(examInstanceID);
+        if (session != null && session.timeout != null) wheel.cancel(session.timeout);
+    }
+
+    /**
+     * Exam instances started on another server are not in the registry, their deadline is computed from exam duration
+     */
+    @Override
+    public long getDeadline(ExamInstance examInstance) {
+        ExamSession session = sessions.get(examInstance.getId());
+        if (session != null) return session.deadline;
+        Integer duration = examDurations.get(examInstance.getExamID());
+        if (duration == null) throw new IllegalStateException("Exam " + examInstance.getExamID() + " of exam instance " + examInstance.getId() + " not found");
+        return examInstance.getStartTime().getTime() + duration * MILLIS_PER_MINUTE;
+    }
+
+    @Override
+    public boolean isOpen(ExamInstance examInstance) {
+        return System.currentTimeMillis() <= getDeadline(examInstance) + TimeUnit.SECONDS.toMillis(config.getGracePeriodSeconds());
+    }
+
+    /**
+     * Advances the wheel and submits expired sessions
+     * A session is retried on a later tick if the ingestion queue is full or its submission fails
+     */
+    private void tick() {
+        try {
+            for (ExamSession session : wheel.advance(System.currentTimeMillis())) {
+                if (sessions.remove(session.examInstanceID, session)) expired.add(session);
+            }
+            for (ExamSession session = expired.peek(); session != null; session = expired.peek()) {
+                submit(session);
+                expired.poll();
+            }
+        } catch (SubmissionQueueFullException e) {
+            LOGGER.debug("Answer ingestion queue full, expired sessions are submitted on a later tick");
+        } catch (RuntimeException e) {
+            LOGGER.error("Exam session tick failed", e);
+        }
+    }
+
+    private void submit(ExamSession session) throws SubmissionQueueFullException {
+        answerIngestionService.submit(session.examID, session.examInstanceID, Collections.emptyList(), true)
+                .whenComplete((result, failure) -> {
+                    if (failure == null) {
+                        examEventHub.submitted(session.examInstanceID, true);
+                        return;
+                    }
+                    LOGGER.warn("Submission of expired exam instance {} failed, retrying", session.examInstanceID, failure);
+                    expired.add(session);
+                });
+    }
+
+    private static class ExamSession {
+        private final int examID;
+        private final int examInstanceID;
+        private final long deadline;
+        private volatile HierarchicalTimingWheel.Timeout<ExamSession> timeout;
+
+        ExamSession(int examID, int examInstanceID, long deadline) {
+            this.examID = examID;
+            this.examInstanceID = examInstanceID;
+            this.deadline = deadline;
+        }
+    }
+}
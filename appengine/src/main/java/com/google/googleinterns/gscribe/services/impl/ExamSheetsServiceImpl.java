@@ -16,6 +16,10 @@
 
 package com.google.googleinterns.gscribe.services.impl;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.api.client.auth.oauth2.BearerToken;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
@@ -33,20 +37,35 @@ import com.google.googleinterns.gscribe.resources.io.exception.InvalidRequestExc
 import com.google.googleinterns.gscribe.resources.io.request.ExamRequest;
 import com.google.googleinterns.gscribe.services.ExamSheetsService;
 import com.google.googleinterns.gscribe.services.TokenService;
+import com.google.googleinterns.gscribe.services.grading.OptionMask;
+import com.google.googleinterns.gscribe.services.rubric.RubricParser;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ExamSheetsServiceImpl implements ExamSheetsService {
 
+    private static final int ANSWER_KEY_COLUMN = 7;
+
     private final TokenService tokenService;
     private final UserTokenDao userTokenDao;
+    private final Timer sheetsRequests;
+    private final Meter tokenRefreshes;
+    private final Histogram sheetRows;
 
-    public ExamSheetsServiceImpl(TokenService tokenService, UserTokenDao userTokenDao) {
+    /**
+     * Registers timer sheets-requests for each Sheets API call, meter token-refreshes for reads repeated after the access token expired,
+     * and histogram sheet-rows for the number of rows of each sheet read
+     */
+    public ExamSheetsServiceImpl(TokenService tokenService, UserTokenDao userTokenDao, MetricRegistry metrics) {
         this.tokenService = tokenService;
         this.userTokenDao = userTokenDao;
+        this.sheetsRequests = metrics.timer(MetricRegistry.name(ExamSheetsService.class, "sheets-requests"));
+        this.tokenRefreshes = metrics.meter(MetricRegistry.name(ExamSheetsService.class, "token-refreshes"));
+        this.sheetRows = metrics.histogram(MetricRegistry.name(ExamSheetsService.class, "sheet-rows"));
     }
 
     /**
@@ -61,7 +80,13 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
      */
     private int getNumberOfRowsFilled(Sheets service, String spreadsheetId, String sheetName) throws IOException {
         final String noOfQuestionsChecker = sheetName + "!A:A";
-        ValueRange response = service.spreadsheets().values().get(spreadsheetId, noOfQuestionsChecker).execute();
+        ValueRange response;
+        final Timer.Context context = sheetsRequests.time();
+        try {
+            response = service.spreadsheets().values().get(spreadsheetId, noOfQuestionsChecker).execute();
+        } finally {
+            context.stop();
+        }
         return response.getValues().size();
     }
 
@@ -84,9 +109,16 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
         ExamSource examSource;
         int numberOfRowsFilled;
         numberOfRowsFilled = getNumberOfRowsFilled(service, request.getSpreadsheetID(), request.getSheetName());
-        String range = request.getSheetName() + "!A1:G" + numberOfRowsFilled;
-        ValueRange response = service.spreadsheets().values().get(request.getSpreadsheetID(), range).execute();
+        String range = request.getSheetName() + "!A1:H" + numberOfRowsFilled;
+        ValueRange response;
+        final Timer.Context context = sheetsRequests.time();
+        try {
+            response = service.spreadsheets().values().get(request.getSpreadsheetID(), range).execute();
+        } finally {
+            context.stop();
+        }
         List<List<Object>> exam = response.getValues();
+        sheetRows.update(numberOfRowsFilled);
         examSource = new ExamSource(exam);
         return examSource;
     }
@@ -107,6 +139,7 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
     /**
      * reads the points of the question
      * reads the statement of question
+     * reads the rubric of the question from column H, if present
      * return subjective question object
      *
      * @param questionObject ( question instance from sheet )
@@ -116,13 +149,15 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
     private Question createSubjectiveQuestion(List<Object> questionObject, int questionNumber) {
         int points = Integer.parseInt(questionObject.get(6).toString());
         String questionStatement = questionObject.get(1).toString();
-        return new SubjectiveQuestion(questionStatement, points, questionNumber);
+        String rubric = keyCellOf(questionObject);
+        return new SubjectiveQuestion(questionStatement, points, questionNumber, rubric.isEmpty() ? Collections.emptyList() : RubricParser.parse(rubric, points));
     }
 
     /**
      * reads the points of the question
      * reads the statement of the question
      * reads the options of the question
+     * reads the answer key of the question from column H, if present
      * returns the multiple choice question object
      *
      * @param questionObject ( question instance from sheet )
@@ -134,7 +169,21 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
         String questionStatement = questionObject.get(1).toString();
         List<String> options = new ArrayList<>();
         for (int i = 2; i < 6; i++) options.add(questionObject.get(i).toString());
-        return new MultipleChoiceQuestion(questionStatement, points, questionNumber, options);
+        String answerKey = keyCellOf(questionObject);
+        int correctOptions = answerKey.isEmpty() ? 0 : OptionMask.parseKey(answerKey, options.size());
+        return new MultipleChoiceQuestion(questionStatement, points, questionNumber, options, correctOptions);
+    }
+
+    /**
+     * Column H holds the answer key of a multiple choice question or the rubric of a subjective question
+     * Sheets leaves out empty cells at the end of a row, so a question without either may have no column H
+     *
+     * @param questionObject ( question instance from sheet )
+     * @return column H cell, empty if not present
+     */
+    private String keyCellOf(List<Object> questionObject) {
+        if (questionObject.size() <= ANSWER_KEY_COLUMN) return "";
+        return questionObject.get(ANSWER_KEY_COLUMN).toString().trim();
     }
 
     /**
@@ -187,11 +236,13 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
     /**
      * check that the question has statement in column 2
      * check that the question has options in column 3-6
+     * check that the answer key in column 8, if present, names options by letter A-D
      *
      * @param question    ( a list containing question )
      * @param questionRow ( row in which this question lies )
      * @throws ExamFormatException ( if question statement is missing in column B of the row
-     *                             if question has empty options field )
+     *                             if question has empty options field,
+     *                             if answer key is invalid )
      */
     private void checkMultipleChoiceQuestion(List<Object> question, int questionRow) throws ExamFormatException {
         if (question.get(1).equals("")) throw new ExamFormatException("missing question statement B" + questionRow);
@@ -199,6 +250,9 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
             if (question.get(i).equals(""))
                 throw new ExamFormatException("missing multiple choice question option in row " + questionRow);
         }
+        String answerKey = keyCellOf(question);
+        if (!answerKey.isEmpty() && OptionMask.parseKey(answerKey, 4) == OptionMask.INVALID)
+            throw new ExamFormatException("answer key not in a proper format in H" + questionRow);
     }
 
     /**
@@ -218,6 +272,24 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
         }
     }
 
+    /**
+     * check that the rubric in column 8, if present, is a list of phrases with weights within the points of the question
+     * Called once points are validated
+     *
+     * @param question    ( a list containing question )
+     * @param questionRow ( row in which this question lies )
+     * @throws ExamFormatException ( if rubric is not in a proper format )
+     */
+    private void validateRubric(List<Object> question, int questionRow) throws ExamFormatException {
+        String rubric = keyCellOf(question);
+        if (rubric.isEmpty()) return;
+        try {
+            RubricParser.parse(rubric, Integer.parseInt(question.get(6).toString()));
+        } catch (IllegalArgumentException e) {
+            throw new ExamFormatException(e.getMessage() + " in H" + questionRow);
+        }
+    }
+
     /**
      * check that the points are in proper format
      * check that the points lie in range of 1-100
@@ -248,7 +320,8 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
      *                             if multipleChoiceQuestion verification fails,
      *                             if SubjectiveQuestion verification fails,
      *                             if question had invalid question type,
-     *                             if points verification for any question fails )
+     *                             if points verification for any question fails,
+     *                             if rubric of a subjective question is not in a proper format )
      */
     public void validateExam(ExamSource examSource) throws ExamFormatException {
         List<List<Object>> exam = examSource.getExam();
@@ -261,6 +334,7 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
             else if (currentQuestion.get(0).equals("SUBJECTIVE")) checkSubjectiveQuestion(currentQuestion, questionRow);
             else throw new ExamFormatException("Question type not identified at A" + questionRow);
             validatePoints(currentQuestion.get(6).toString(), questionRow);
+            if (currentQuestion.get(0).equals("SUBJECTIVE")) validateRubric(currentQuestion, questionRow);
         }
     }
 
@@ -287,6 +361,7 @@ public class ExamSheetsServiceImpl implements ExamSheetsService {
             examSource = getExamSheet(examRequest, user);
         } catch (GoogleJsonResponseException e) {
             if (e.getStatusCode() == 401) {
+                tokenRefreshes.mark();
                 tokenService.refreshToken(user);
                 userTokenDao.insertUserToken(user);
                 try {
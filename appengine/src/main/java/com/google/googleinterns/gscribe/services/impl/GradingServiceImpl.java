@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.impl;
+
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
+import com.google.googleinterns.gscribe.dao.sharding.Shard;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.models.MultipleChoiceQuestion;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.models.QuestionType;
+import com.google.googleinterns.gscribe.services.GradingService;
+import com.google.googleinterns.gscribe.services.columnar.ColumnarAnswerStore;
+import com.google.googleinterns.gscribe.services.grading.GradingResult;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Grades an exam in three passes
+ * Answers of submitted exam instances are streamed from the shard of the exam into a columnar store outside the heap,
+ * rows are scored in parallel on a fork join pool, and scores are written back in batched updates
+ */
+public class GradingServiceImpl implements GradingService {
+
+    private final ShardRouter shardRouter;
+    private final QuestionsDao questionsDao;
+    private final int batchSize;
+    private final ForkJoinPool pool = new ForkJoinPool();
+
+    public GradingServiceImpl(ShardRouter shardRouter, QuestionsDao questionsDao, int batchSize) {
+        this.shardRouter = shardRouter;
+        this.questionsDao = questionsDao;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public GradingResult grade(int examID) {
+        List<Question> questions = new ArrayList<>(questionsDao.getExamQuestions(examID));
+        questions.sort(Comparator.comparingInt(Question::getQuestionNumber));
+        int[] key = new int[questions.size()];
+        int[] points = new int[questions.size()];
+        int gradedQuestions = 0, maxScore = 0;
+        for (int column = 0; column < questions.size(); column++) {
+            Question question = questions.get(column);
+            if (!question.getType().equals(QuestionType.MCQ)) continue;
+            key[column] = ((MultipleChoiceQuestion) question).getCorrectOptions();
+            if (key[column] <= 0) continue;
+            points[column] = question.getPoints();
+            gradedQuestions++;
+            maxScore += points[column];
+        }
+        if (gradedQuestions == 0) return new GradingResult(0, 0, 0, 0);
+
+        Shard shard = shardRouter.forExam(examID);
+        ColumnarAnswerStore store = ColumnarAnswerStore.load(shard, examID, questions);
+        if (store.getRows() == 0) return new GradingResult(0, gradedQuestions, maxScore, 0);
+        IntBuffer scores = store.score(pool, key, points);
+
+        long total = 0;
+        List<Integer> ids = new ArrayList<>(batchSize);
+        List<Integer> scoreList = new ArrayList<>(batchSize);
+        for (int row = 0; row < store.getRows(); row++) {
+            ids.add(store.getExamInstanceID(row));
+            scoreList.add(scores.get(row));
+            total += scores.get(row);
+            if (ids.size() == batchSize || row == store.getRows() - 1) {
+                shard.getExamInstanceDao().updateScores(examID, ids, scoreList, batchSize);
+                ids.clear();
+                scoreList.clear();
+            }
+        }
+        return new GradingResult(store.getRows(), gradedQuestions, maxScore, (double) total / store.getRows());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.googleinterns.gscribe.config.SearchConfig;
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
+import com.google.googleinterns.gscribe.metrics.CacheMetrics;
+import com.google.googleinterns.gscribe.models.Exam;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.services.QuestionSearchService;
+import com.google.googleinterns.gscribe.services.search.QuestionIndex;
+import com.google.googleinterns.gscribe.services.search.SearchResult;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.ResultIterator;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class QuestionSearchServiceImpl implements QuestionSearchService {
+
+    private final DBI dbi;
+    private final LoadingCache<String, QuestionIndex> indexes;
+
+    /**
+     * Indexes are weighed by their number of questions when loaded, questions added afterwards are not weighed until the index is rebuilt
+     */
+    public QuestionSearchServiceImpl(DBI dbi, SearchConfig searchConfig, MetricRegistry metrics) {
+        this.dbi = dbi;
+        this.indexes = Caffeine.newBuilder()
+                .recordStats(() -> new CacheMetrics(metrics, MetricRegistry.name(QuestionSearchService.class, "indexes")))
+                .maximumWeight(searchConfig.getMaxIndexedQuestions())
+                .weigher((String userID, QuestionIndex index) -> index.size())
+                .expireAfterWrite(searchConfig.getRebuildMinutes(), TimeUnit.MINUTES)
+                .build(this::load);
+    }
+
+    @Override
+    public SearchResult search(String userID, String query, int limit) {
+        return indexes.get(userID).search(query, limit);
+    }
+
+    /**
+     * An index loaded after the exam was inserted already holds it, so exams already indexed are skipped
+     * An index still loading is not returned by getIfPresent and may have missed the exam, invalidating it waits for the load and drops it
+     */
+    @Override
+    public void examCreated(String userID, Exam exam) {
+        QuestionIndex index = indexes.getIfPresent(userID);
+        if (index != null) index.addAll(exam.getExamMetadata().getId(), exam.getQuestions());
+        else indexes.invalidate(userID);
+    }
+
+    /**
+     * Questions of all exams of the user are streamed from the primary through the ( created_by ) index on exam and the primary key of questions
+     */
+    private QuestionIndex load(String userID) {
+        QuestionIndex index = new QuestionIndex();
+        QuestionsDao.ExamMapper questionMapper = new QuestionsDao.ExamMapper();
+        try (Handle handle = dbi.open();
+             ResultIterator<Map.Entry<Integer, Question>> iterator = handle.createQuery("SELECT q.exam_id, q.question_num, q.question, COALESCE(c.question_data, q.question_data) AS question_data " +
+                     "FROM exam e INNER JOIN questions q ON q.exam_id = e.id LEFT JOIN question_content c ON c.hash = q.question_hash " +
+                     "WHERE e.created_by = :user_id ORDER BY q.exam_id, q.question_num")
+                     .bind("user_id", userID)
+                     .setFetchSize(Integer.MIN_VALUE)
+                     .map((i, resultSet, context) -> (Map.Entry<Integer, Question>) new AbstractMap.SimpleImmutableEntry<>(resultSet.getInt("exam_id"), questionMapper.map(i, resultSet, context)))
+                     .iterator()) {
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, Question> row = iterator.next();
+                if (row.getValue() != null) index.add(row.getKey(), row.getValue());
+            }
+        }
+        return index;
+    }
+}
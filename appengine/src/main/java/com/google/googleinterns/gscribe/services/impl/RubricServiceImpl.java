@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.googleinterns.gscribe.dao.QuestionsDao;
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.metrics.CacheMetrics;
+import com.google.googleinterns.gscribe.models.Question;
+import com.google.googleinterns.gscribe.models.QuestionType;
+import com.google.googleinterns.gscribe.models.SubjectiveQuestion;
+import com.google.googleinterns.gscribe.resources.io.response.RubricScoreResponse;
+import com.google.googleinterns.gscribe.resources.io.response.RubricScoresResponse;
+import com.google.googleinterns.gscribe.services.RubricService;
+import com.google.googleinterns.gscribe.services.rubric.CompiledRubric;
+import com.google.googleinterns.gscribe.services.rubric.RubricScore;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.ResultIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class RubricServiceImpl implements RubricService {
+
+    private static final int CACHED_RUBRICS = 10_000;
+
+    private final ShardRouter shardRouter;
+    private final QuestionsDao questionsDao;
+    private final LoadingCache<Long, CompiledRubric> rubrics;
+
+    public RubricServiceImpl(ShardRouter shardRouter, QuestionsDao questionsDao, MetricRegistry metrics) {
+        this.shardRouter = shardRouter;
+        this.questionsDao = questionsDao;
+        this.rubrics = Caffeine.newBuilder()
+                .recordStats(() -> new CacheMetrics(metrics, MetricRegistry.name(RubricService.class, "rubrics")))
+                .maximumSize(CACHED_RUBRICS)
+                .build(key -> compile((int) (key >>> 32), (int) (long) key));
+    }
+
+    @Override
+    public CompiledRubric getRubric(int examID, int questionNum) {
+        return rubrics.get(((long) examID << 32) | (questionNum & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Answers are streamed from the shard and scored one by one as they are read
+     */
+    @Override
+    public RubricScoresResponse scoreAnswers(int examID, int questionNum) {
+        CompiledRubric rubric = getRubric(examID, questionNum);
+        if (rubric == null) throw new IllegalArgumentException("Question " + questionNum + " of exam " + examID + " has no rubric");
+        List<RubricScoreResponse> answers = new ArrayList<>();
+        try (Handle handle = shardRouter.forExam(examID).getDbi().open();
+             ResultIterator<Map<String, Object>> iterator = handle.createQuery("SELECT a.exam_instance_id, ei.student_roll_num, a.answer->>'$.answer' AS answer " +
+                     "FROM answers a INNER JOIN exam_instance ei ON ei.exam_id = a.exam_id AND ei.id = a.exam_instance_id " +
+                     "WHERE a.exam_id = :exam_id AND a.question_num = :question_num AND ei.end_time IS NOT NULL ORDER BY ei.student_roll_num")
+                     .bind("exam_id", examID)
+                     .bind("question_num", questionNum)
+                     .setFetchSize(Integer.MIN_VALUE)
+                     .iterator()) {
+            while (iterator.hasNext()) {
+                Map<String, Object> row = iterator.next();
+                RubricScore score = rubric.score((String) row.get("answer"));
+                answers.add(new RubricScoreResponse(((Number) row.get("exam_instance_id")).intValue(), ((Number) row.get("student_roll_num")).intValue(),
+                        score.getSuggestedScore(), score.getMatches()));
+            }
+        }
+        return new RubricScoresResponse(questionNum, rubric.getMaxScore(), answers);
+    }
+
+    private CompiledRubric compile(int examID, int questionNum) {
+        for (Question question : questionsDao.getExamQuestions(examID)) {
+            if (question.getQuestionNumber() != questionNum || !question.getType().equals(QuestionType.SUBJECTIVE)) continue;
+            SubjectiveQuestion subjectiveQuestion = (SubjectiveQuestion) question;
+            if (subjectiveQuestion.getRubric().isEmpty()) return null;
+            return new CompiledRubric(subjectiveQuestion.getRubric(), subjectiveQuestion.getPoints());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.impl;
+
+import com.google.googleinterns.gscribe.dao.sharding.ShardRouter;
+import com.google.googleinterns.gscribe.resources.io.response.SimilarPairResponse;
+import com.google.googleinterns.gscribe.resources.io.response.SimilarityResponse;
+import com.google.googleinterns.gscribe.services.SimilarityService;
+import com.google.googleinterns.gscribe.services.similarity.LshIndex;
+import com.google.googleinterns.gscribe.services.similarity.MinHash;
+import com.google.googleinterns.gscribe.services.similarity.SimilarPair;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.ResultIterator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams signatures of the answers to one question and indexes them in an LSH index
+ * Answers saved before signatures were stored have none, their signature is computed from the answer text here
+ */
+public class SimilarityServiceImpl implements SimilarityService {
+
+    private final ShardRouter shardRouter;
+
+    public SimilarityServiceImpl(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public SimilarityResponse findSimilarAnswers(int examID, int questionNum, double threshold, int limit) {
+        LshIndex index = new LshIndex(threshold);
+        Map<Integer, Integer> rollNumbers = new HashMap<>();
+        try (Handle handle = shardRouter.forExam(examID).getDbi().open();
+             ResultIterator<Map<String, Object>> iterator = handle.createQuery("SELECT a.exam_instance_id, ei.student_roll_num, a.signature, " +
+                     "IF(a.signature IS NULL, a.answer->>'$.answer', NULL) AS answer " +
+                     "FROM answers a INNER JOIN exam_instance ei ON ei.exam_id = a.exam_id AND ei.id = a.exam_instance_id " +
+                     "WHERE a.exam_id = :exam_id AND a.question_num = :question_num")
+                     .bind("exam_id", examID)
+                     .bind("question_num", questionNum)
+                     .setFetchSize(Integer.MIN_VALUE)
+                     .iterator()) {
+            while (iterator.hasNext()) {
+                Map<String, Object> row = iterator.next();
+                int[] signature = row.get("signature") != null ? MinHash.decode((byte[]) row.get("signature")) : MinHash.signatureOf((String) row.get("answer"));
+                if (signature == null) continue;
+                int examInstanceID = ((Number) row.get("exam_instance_id")).intValue();
+                rollNumbers.put(examInstanceID, ((Number) row.get("student_roll_num")).intValue());
+                index.add(examInstanceID, signature);
+            }
+        }
+
+        List<SimilarPairResponse> pairs = new ArrayList<>();
+        for (SimilarPair pair : index.findPairs(threshold, limit)) {
+            pairs.add(new SimilarPairResponse(pair.getFirst(), rollNumbers.get(pair.getFirst()), pair.getSecond(), rollNumbers.get(pair.getSecond()), pair.getSimilarity()));
+        }
+        return new SimilarityResponse(questionNum, threshold, rollNumbers.size(), pairs);
+    }
+}
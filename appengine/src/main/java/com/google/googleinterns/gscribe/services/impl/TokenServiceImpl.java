@@ -23,6 +23,7 @@ import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.sheets.v4.SheetsScopes;
+import com.google.googleinterns.gscribe.dao.routing.ReadYourWritesTracker;
 import com.google.googleinterns.gscribe.models.User;
 import com.google.googleinterns.gscribe.resources.ExamResource;
 import com.google.googleinterns.gscribe.resources.io.exception.InvalidDatabaseDataException;
@@ -40,9 +41,16 @@ import java.util.List;
 
 public class TokenServiceImpl implements TokenService {
 
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public TokenServiceImpl(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
     /**
      * This function takes as input the IDToken passed in header for authentication
      * If the JWT clears all authentication checks then unique userID is extracted from the JWT and returned
+     * The userID is bound to the request thread as the caller for read your writes routing
      *
      * @param IDTokenString ( a JWT, web token signed by google )
      * @return userID ( unique user ID for the user included in JWT )
@@ -64,7 +72,9 @@ public class TokenServiceImpl implements TokenService {
         GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(HTTP_TRANSPORT, JSON_FACTORY).setAudience(Collections.singletonList(clientID)).build();
         GoogleIdToken idToken = verifier.verify(IDTokenString);
         if (idToken == null) throw new InvalidRequestException("Authentication failed");
-        return idToken.getPayload().getSubject();
+        String userID = idToken.getPayload().getSubject();
+        readYourWritesTracker.setCurrentCaller(userID);
+        return userID;
     }
 
     /**
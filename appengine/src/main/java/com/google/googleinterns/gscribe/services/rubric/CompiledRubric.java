@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.rubric;
+
+import com.google.googleinterns.gscribe.models.RubricTerm;
+
+import java.util.*;
+
+/**
+ * Rubric of a question compiled into one Aho-Corasick automaton, so an answer is scanned once whatever the number of terms
+ * Matching ignores case and treats any run of whitespace as one space, terms only match whole words
+ * Each term counts once towards the suggested score however often it occurs, and the score is capped at the points of the question
+ */
+public class CompiledRubric {
+
+    private static final int ROOT = 0;
+
+    private final List<RubricTerm> terms;
+    private final int maxScore;
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] failure;
+    private final int[][] outputs;
+    private final int[] termLengths;
+
+    /**
+     * Builds the trie of lower cased phrases, then sets failure links and merges outputs breadth first
+     *
+     * @param terms    ( rubric terms )
+     * @param maxScore ( points of the question )
+     */
+    public CompiledRubric(List<RubricTerm> terms, int maxScore) {
+        this.terms = terms;
+        this.maxScore = maxScore;
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> termsAt = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        termsAt.add(new ArrayList<>());
+        this.termLengths = new int[terms.size()];
+        for (int term = 0; term < terms.size(); term++) {
+            int state = ROOT;
+            char[] phrase = normalize(terms.get(term).getPhrase());
+            termLengths[term] = phrase.length;
+            for (char c : phrase) {
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    termsAt.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            termsAt.get(state).add(term);
+        }
+
+        int states = trie.size();
+        this.keys = new char[states][];
+        this.targets = new int[states][];
+        this.failure = new int[states];
+        this.outputs = new int[states][];
+        for (int state = 0; state < states; state++) {
+            Map<Character, Integer> edges = trie.get(state);
+            keys[state] = new char[edges.size()];
+            targets[state] = new int[edges.size()];
+            int edge = 0;
+            for (Map.Entry<Character, Integer> entry : edges.entrySet()) {
+                keys[state][edge] = entry.getKey();
+                targets[state][edge++] = entry.getValue();
+            }
+        }
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputs[ROOT] = new int[0];
+        for (int child : targets[ROOT]) {
+            failure[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> output = new ArrayList<>(termsAt.get(state));
+            for (int term : outputs[failure[state]]) output.add(term);
+            outputs[state] = output.stream().mapToInt(Integer::intValue).toArray();
+            for (int edge = 0; edge < keys[state].length; edge++) {
+                int child = targets[state][edge];
+                int fallback = failure[state];
+                while (fallback != ROOT && next(fallback, keys[state][edge]) < 0) fallback = failure[fallback];
+                int target = next(fallback, keys[state][edge]);
+                failure[child] = target >= 0 && target != child ? target : ROOT;
+                queue.add(child);
+            }
+        }
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * Scans the answer once, mapping offsets of the normalized text back to the answer
+     *
+     * @param answer ( answer text )
+     * @return suggested score and every whole word occurrence of a term
+     */
+    public RubricScore score(String answer) {
+        if (answer == null || answer.isEmpty()) return new RubricScore(0, Collections.emptyList());
+        char[] text = new char[answer.length()];
+        int[] origin = new int[answer.length() + 1];
+        int length = 0;
+        for (int i = 0; i < answer.length(); i++) {
+            char c = answer.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (length == 0 || text[length - 1] == ' ') continue;
+                c = ' ';
+            }
+            origin[length] = i;
+            text[length++] = Character.toLowerCase(c);
+        }
+        origin[length] = answer.length();
+
+        List<RubricMatch> matches = new ArrayList<>();
+        boolean[] found = new boolean[terms.size()];
+        int state = ROOT;
+        for (int i = 0; i < length; i++) {
+            int next;
+            while ((next = next(state, text[i])) < 0 && state != ROOT) state = failure[state];
+            state = Math.max(next, ROOT);
+            for (int term : outputs[state]) {
+                int start = i + 1 - termLengths[term];
+                if (!isBoundary(text, start - 1, length) || !isBoundary(text, i + 1, length)) continue;
+                found[term] = true;
+                matches.add(new RubricMatch(terms.get(term).getPhrase(), terms.get(term).getWeight(), origin[start], origin[i] + 1));
+            }
+        }
+        int score = 0;
+        for (int term = 0; term < found.length; term++) {
+            if (found[term]) score += terms.get(term).getWeight();
+        }
+        return new RubricScore(Math.min(score, maxScore), matches);
+    }
+
+    private boolean isBoundary(char[] text, int index, int length) {
+        return index < 0 || index >= length || !Character.isLetterOrDigit(text[index]);
+    }
+
+    private int next(int state, char c) {
+        int edge = Arrays.binarySearch(keys[state], c);
+        return edge >= 0 ? targets[state][edge] : -1;
+    }
+
+    /**
+     * Lower cases char by char as answers are, so a phrase and an answer containing it normalize alike
+     */
+    private static char[] normalize(String phrase) {
+        char[] normalized = phrase.trim().replaceAll("\\s+", " ").toCharArray();
+        for (int i = 0; i < normalized.length; i++) normalized[i] = Character.toLowerCase(normalized[i]);
+        return normalized;
+    }
+}
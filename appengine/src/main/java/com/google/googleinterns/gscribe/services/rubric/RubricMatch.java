@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.rubric;
+
+/**
+ * Occurrence of a rubric term in an answer, start and end are character offsets into the answer, end exclusive
+ */
+public class RubricMatch {
+
+    private final String phrase;
+    private final int weight;
+    private final int start;
+    private final int end;
+
+    public RubricMatch(String phrase, int weight, int start, int end) {
+        this.phrase = phrase;
+        this.weight = weight;
+        this.start = start;
+        this.end = end;
+    }
+
+    public String getPhrase() {
+        return phrase;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.rubric;
+
+import com.google.googleinterns.gscribe.models.RubricTerm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a rubric from its sheet cell, terms separated by semicolons or new lines, each a phrase and a weight, e.g. "photosynthesis=2; light energy=1"
+ */
+public final class RubricParser {
+
+    public static final int MAX_TERMS = 200;
+    public static final int MAX_PHRASE_LENGTH = 100;
+
+    private RubricParser() {
+    }
+
+    /**
+     * @param cell      ( rubric cell )
+     * @param maxWeight ( points of the question, no single term may weigh more )
+     * @return rubric terms in order of the cell
+     * @throws IllegalArgumentException ( if a term has no phrase, if a weight is not a number from 1 to maxWeight, if there are too many terms )
+     */
+    public static List<RubricTerm> parse(String cell, int maxWeight) {
+        List<RubricTerm> rubric = new ArrayList<>();
+        for (String term : cell.split("[;\\n]")) {
+            if (term.trim().isEmpty()) continue;
+            int separator = term.lastIndexOf('=');
+            if (separator < 0) throw new IllegalArgumentException("rubric term without weight: " + term.trim());
+            String phrase = term.substring(0, separator).trim().replaceAll("\\s+", " ");
+            if (phrase.isEmpty() || phrase.length() > MAX_PHRASE_LENGTH) throw new IllegalArgumentException("rubric phrase empty or too long: " + term.trim());
+            int weight;
+            try {
+                weight = Integer.parseInt(term.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("rubric weight not a number: " + term.trim());
+            }
+            if (weight < 1 || weight > maxWeight) throw new IllegalArgumentException("rubric weight not in a range of 1-" + maxWeight + ": " + term.trim());
+            rubric.add(new RubricTerm(phrase, weight));
+        }
+        if (rubric.size() > MAX_TERMS) throw new IllegalArgumentException("rubric has more than " + MAX_TERMS + " terms");
+        return rubric;
+    }
+}
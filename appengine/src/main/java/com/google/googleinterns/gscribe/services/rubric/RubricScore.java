@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.rubric;
+
+import java.util.List;
+
+/**
+ * Score suggested for an answer by a rubric, with the occurrences of rubric terms it is based on
+ */
+public class RubricScore {
+
+    private final int suggestedScore;
+    private final List<RubricMatch> matches;
+
+    public RubricScore(int suggestedScore, List<RubricMatch> matches) {
+        this.suggestedScore = suggestedScore;
+        this.matches = matches;
+    }
+
+    public int getSuggestedScore() {
+        return suggestedScore;
+    }
+
+    public List<RubricMatch> getMatches() {
+        return matches;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.search;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing a term with the term's frequency in each, documents are appended in increasing order
+ * Each posting is stored as the gap from the previous document and the frequency, both as varints,
+ * so most postings take two bytes instead of eight
+ */
+class PostingList {
+
+    private byte[] data = new byte[4];
+    private int length;
+    private int documents;
+    private int lastDocument = -1;
+
+    void add(int document, int frequency) {
+        if (document <= lastDocument) throw new IllegalArgumentException("Document " + document + " added after " + lastDocument);
+        writeVarint(document - lastDocument);
+        writeVarint(frequency);
+        lastDocument = document;
+        documents++;
+    }
+
+    /**
+     * @return number of documents containing the term
+     */
+    int getDocuments() {
+        return documents;
+    }
+
+    Reader reader() {
+        return new Reader();
+    }
+
+    private void writeVarint(int value) {
+        if (length + 5 > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    /**
+     * Decodes postings in order, next must be called before reading the first posting
+     */
+    class Reader {
+        private int position;
+        private int document = -1;
+        private int frequency;
+
+        boolean next() {
+            if (position >= length) return false;
+            document += readVarint();
+            frequency = readVarint();
+            return true;
+        }
+
+        int document() {
+            return document;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+
+}
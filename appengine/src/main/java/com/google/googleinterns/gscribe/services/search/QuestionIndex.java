@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.search;
+
+import com.google.googleinterns.gscribe.models.MultipleChoiceQuestion;
+import com.google.googleinterns.gscribe.models.Question;
+
+import java.util.*;
+
+/**
+ * Inverted index over statements and options of the questions of one user, ranked with BM25
+ * Questions are numbered in order of addition, which keeps every posting list sorted without merging
+ * Methods are synchronized, an index is only shared by the searches and exam creations of one user
+ */
+public class QuestionIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final List<Question> questions = new ArrayList<>();
+    private final Set<Integer> indexedExams = new HashSet<>();
+    private int[] examIDs = new int[16];
+    private int[] lengths = new int[16];
+    private long totalLength;
+
+    /**
+     * @param examID   ( exam the question belongs to )
+     * @param question ( question to be indexed, statement and options are indexed )
+     */
+    public synchronized void add(int examID, Question question) {
+        int document = questions.size();
+        if (document == examIDs.length) {
+            examIDs = Arrays.copyOf(examIDs, document * 2);
+            lengths = Arrays.copyOf(lengths, document * 2);
+        }
+
+        List<String> tokens = Tokenizer.tokens(question.getStatement());
+        if (question instanceof MultipleChoiceQuestion && ((MultipleChoiceQuestion) question).getOptions() != null) {
+            for (String option : ((MultipleChoiceQuestion) question).getOptions()) tokens.addAll(Tokenizer.tokens(option));
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) frequencies.merge(token, 1, Integer::sum);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new PostingList()).add(document, entry.getValue());
+        }
+
+        questions.add(question);
+        indexedExams.add(examID);
+        examIDs[document] = examID;
+        lengths[document] = tokens.size();
+        totalLength += tokens.size();
+    }
+
+    /**
+     * Adds questions of an exam unless the index already holds questions of that exam
+     *
+     * @param examID    ( exam the questions belong to )
+     * @param questions ( questions of the exam )
+     * @return false if questions of the exam were already indexed
+     */
+    public synchronized boolean addAll(int examID, List<Question> questions) {
+        if (indexedExams.contains(examID)) return false;
+        for (Question question : questions) add(examID, question);
+        return true;
+    }
+
+    public synchronized int size() {
+        return questions.size();
+    }
+
+    /**
+     * Scores every question containing any word of the query with BM25 and keeps the best limit of them in a heap
+     * Only posting lists of the query words are read and scores are kept only for matched questions,
+     * so the cost depends on how common the words are, not on the size of the index
+     *
+     * @param query ( search text, words are matched exactly after lower casing )
+     * @param limit ( maximum number of hits returned )
+     * @return hits ordered by score, highest first
+     */
+    public synchronized SearchResult search(String query, int limit) {
+        int count = questions.size();
+        if (count == 0) return new SearchResult(Collections.emptyList(), 0);
+        double averageLength = Math.max(1, (double) totalLength / count);
+
+        Map<Integer, Float> scores = new HashMap<>();
+        for (String term : new LinkedHashSet<>(Tokenizer.tokens(query))) {
+            PostingList list = postings.get(term);
+            if (list == null) continue;
+            int documents = list.getDocuments();
+            double idf = Math.log(1 + (count - documents + 0.5) / (documents + 0.5));
+            PostingList.Reader reader = list.reader();
+            while (reader.next()) {
+                int document = reader.document();
+                int frequency = reader.frequency();
+                double norm = K1 * (1 - B + B * lengths[document] / averageLength);
+                scores.merge(document, (float) (idf * frequency * (K1 + 1) / (frequency + norm)), Float::sum);
+            }
+        }
+
+        PriorityQueue<Map.Entry<Integer, Float>> best = new PriorityQueue<>(Math.max(1, limit), Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Float> score : scores.entrySet()) {
+            if (best.size() == limit && score.getValue() <= best.peek().getValue()) continue;
+            best.add(score);
+            if (best.size() > limit) best.poll();
+        }
+        SearchHit[] hits = new SearchHit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            Map.Entry<Integer, Float> score = best.poll();
+            hits[i] = new SearchHit(examIDs[score.getKey()], questions.get(score.getKey()), score.getValue());
+        }
+        return new SearchResult(Arrays.asList(hits), scores.size());
+    }
+
+}
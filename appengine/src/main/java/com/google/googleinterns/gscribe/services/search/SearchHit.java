@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.search;
+
+import com.google.googleinterns.gscribe.models.Question;
+
+public class SearchHit {
+
+    private final int examID;
+    private final Question question;
+    private final double score;
+
+    public SearchHit(int examID, Question question, double score) {
+        this.examID = examID;
+        this.question = question;
+        this.score = score;
+    }
+
+    public int getExamID() {
+        return examID;
+    }
+
+    public Question getQuestion() {
+        return question;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+}
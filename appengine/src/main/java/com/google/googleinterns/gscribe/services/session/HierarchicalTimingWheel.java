@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.session;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel, schedules and cancels timeouts in constant time whatever their number
+ * Level 0 has wheelSize slots of one tick each, every next level has wheelSize slots each spanning a full turn of the level below
+ * A timeout is kept in the lowest level whose turn reaches its expiry, and moves down a level
+ * whenever the wheel reaches its slot, till it expires from level 0
+ * Timeouts further than the top level reaches wait in its last slot and are placed again when it comes round
+ * Thread safe, time is advanced by a single caller
+ *
+ * @param <T> ( payload of a timeout )
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long startMillis;
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] ticksPerSlot;
+    private final List<List<Set<Timeout<T>>>> levels;
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long startMillis, long tickMillis, int wheelSize, int levelCount) {
+        this.startMillis = startMillis;
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.ticksPerSlot = new long[levelCount];
+        this.levels = new ArrayList<>(levelCount);
+        long span = 1;
+        for (int level = 0; level < levelCount; level++) {
+            ticksPerSlot[level] = span;
+            span *= wheelSize;
+            List<Set<Timeout<T>>> slots = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) slots.add(new HashSet<>());
+            levels.add(slots);
+        }
+    }
+
+    /**
+     * Schedules a timeout, one already due expires on the next advance
+     *
+     * @param deadlineMillis ( time at which the timeout expires, epoch milliseconds )
+     * @param payload        ( returned by advance once the timeout expires )
+     * @return timeout, to cancel it
+     */
+    public synchronized Timeout<T> schedule(long deadlineMillis, T payload) {
+        long expiryTick = Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis);
+        Timeout<T> timeout = new Timeout<>(expiryTick, payload);
+        place(timeout, currentTick + 1);
+        return timeout;
+    }
+
+    /**
+     * @param timeout ( timeout returned by schedule )
+     * @return false if timeout already expired or was cancelled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.slot == null) return false;
+        timeout.slot.remove(timeout);
+        timeout.slot = null;
+        return true;
+    }
+
+    /**
+     * Moves the wheel tick by tick up to the given time, cascading higher level slots as they are reached
+     *
+     * @param nowMillis ( current time, epoch milliseconds )
+     * @return payloads of timeouts expired on the way
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = ticksPerSlot.length - 1; level > 0; level--) {
+                if (currentTick % ticksPerSlot[level] != 0) continue;
+                Set<Timeout<T>> slot = slotOf(level, currentTick);
+                List<Timeout<T>> cascaded = new ArrayList<>(slot);
+                slot.clear();
+                for (Timeout<T> timeout : cascaded) place(timeout, currentTick);
+            }
+            Set<Timeout<T>> due = slotOf(0, currentTick);
+            for (Timeout<T> timeout : due) {
+                timeout.slot = null;
+                expired.add(timeout.payload);
+            }
+            due.clear();
+        }
+        return expired;
+    }
+
+    /**
+     * Puts timeout in the lowest level whose current turn reaches its expiry tick
+     *
+     * @param timeout ( timeout to place )
+     * @param minTick ( earliest tick the timeout can be placed at, ticks before it have been processed )
+     */
+    private void place(Timeout<T> timeout, long minTick) {
+        long tick = Math.max(timeout.expiryTick, minTick);
+        for (int level = 0; level < ticksPerSlot.length; level++) {
+            if (tick / ticksPerSlot[level] - currentTick / ticksPerSlot[level] < wheelSize) {
+                add(slotOf(level, tick), timeout);
+                return;
+            }
+        }
+        int top = ticksPerSlot.length - 1;
+        add(slotOf(top, currentTick + (wheelSize - 1) * ticksPerSlot[top]), timeout);
+    }
+
+    private void add(Set<Timeout<T>> slot, Timeout<T> timeout) {
+        slot.add(timeout);
+        timeout.slot = slot;
+    }
+
+    private Set<Timeout<T>> slotOf(int level, long tick) {
+        return levels.get(level).get((int) ((tick / ticksPerSlot[level]) % wheelSize));
+    }
+
+    public static class Timeout<T> {
+        private final long expiryTick;
+        private final T payload;
+        private Set<Timeout<T>> slot;
+
+        private Timeout(long expiryTick, T payload) {
+            this.expiryTick = expiryTick;
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.similarity;
+
+import java.util.*;
+
+/**
+ * Locality sensitive hashing over MinHash signatures, signatures are cut into bands and two items sharing any band hash are candidates
+ * Two items of Jaccard similarity s share a band with probability 1 - ( 1 - s^r )^b for b bands of r rows,
+ * the band count is chosen so items at the threshold are candidates with probability at least RECALL
+ * Items with identical signatures are grouped before banding, so many copies of one answer do not fill buckets quadratically
+ */
+public class LshIndex {
+
+    private static final double RECALL = 0.99;
+
+    private final int bands;
+    private final int rows;
+    private final Map<Signature, List<Integer>> groups = new LinkedHashMap<>();
+
+    /**
+     * @param threshold ( lowest similarity of pairs to be found )
+     */
+    public LshIndex(double threshold) {
+        int rows = 1;
+        for (int candidate = 2; candidate <= MinHash.HASHES; candidate *= 2) {
+            int bands = MinHash.HASHES / candidate;
+            if (1 - Math.pow(1 - Math.pow(threshold, candidate), bands) < RECALL) break;
+            rows = candidate;
+        }
+        this.rows = rows;
+        this.bands = MinHash.HASHES / rows;
+    }
+
+    public void add(int id, int[] signature) {
+        groups.computeIfAbsent(new Signature(signature), key -> new ArrayList<>()).add(id);
+    }
+
+    /**
+     * Pairs within a group of identical signatures come first with similarity 1, then candidates of distinct signatures
+     * sharing a band whose estimated similarity is at least the threshold
+     *
+     * @param threshold ( lowest similarity of pairs to be returned )
+     * @param limit     ( maximum number of pairs returned )
+     * @return pairs ordered by similarity, highest first
+     */
+    public List<SimilarPair> findPairs(double threshold, int limit) {
+        List<SimilarPair> pairs = new ArrayList<>();
+        List<Signature> distinct = new ArrayList<>(groups.keySet());
+        for (Signature signature : distinct) {
+            List<Integer> members = groups.get(signature);
+            for (int i = 0; i < members.size() && pairs.size() < limit; i++) {
+                for (int j = i + 1; j < members.size() && pairs.size() < limit; j++) pairs.add(new SimilarPair(members.get(i), members.get(j), 1));
+            }
+        }
+
+        Set<Long> compared = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int index = 0; index < distinct.size(); index++) {
+                buckets.computeIfAbsent(bandHash(distinct.get(index).hashes, band), key -> new ArrayList<>()).add(index);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        int first = bucket.get(i), second = bucket.get(j);
+                        if (!compared.add(((long) first << 32) | second)) continue;
+                        double similarity = MinHash.similarity(distinct.get(first).hashes, distinct.get(second).hashes);
+                        if (similarity < threshold) continue;
+                        for (int firstID : groups.get(distinct.get(first))) {
+                            for (int secondID : groups.get(distinct.get(second))) pairs.add(new SimilarPair(firstID, secondID, similarity));
+                        }
+                    }
+                }
+            }
+        }
+        pairs.sort(Comparator.comparingDouble(SimilarPair::getSimilarity).reversed());
+        return pairs.size() > limit ? new ArrayList<>(pairs.subList(0, limit)) : pairs;
+    }
+
+    private long bandHash(int[] signature, int band) {
+        long hash = band;
+        for (int row = band * rows; row < (band + 1) * rows; row++) hash = MinHash.mix(hash ^ signature[row]);
+        return hash;
+    }
+
+    private static class Signature {
+        private final int[] hashes;
+        private final int hashCode;
+
+        Signature(int[] hashes) {
+            this.hashes = hashes;
+            this.hashCode = Arrays.hashCode(hashes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Signature && Arrays.equals(hashes, ((Signature) other).hashes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
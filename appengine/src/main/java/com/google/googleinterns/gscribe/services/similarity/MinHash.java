@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.similarity;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * MinHash signatures of answer texts, for estimating Jaccard similarity of their word shingles
+ * Text is lower cased and split into words on anything but letters and digits, every run of SHINGLE_WORDS words is a shingle
+ * Each of the HASHES hash functions mixes the shingle hash with a fixed seed, the signature keeps the minimum of each
+ * Signatures are stored with answers, so seeds and hashing must not change without recomputing stored signatures
+ */
+public final class MinHash {
+
+    public static final int HASHES = 128;
+    public static final int SHINGLE_WORDS = 3;
+    public static final int SIGNATURE_BYTES = HASHES * Integer.BYTES;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        for (int i = 0; i < HASHES; i++) SEEDS[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+    }
+
+    private MinHash() {
+    }
+
+    /**
+     * @param text ( answer text )
+     * @return signature of the text, null if the text has fewer than SHINGLE_WORDS words, as such short answers match by chance
+     */
+    public static int[] signatureOf(String text) {
+        if (text == null) return null;
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        int start = words.length > 0 && words[0].isEmpty() ? 1 : 0;
+        if (words.length - start < SHINGLE_WORDS) return null;
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int first = start; first + SHINGLE_WORDS <= words.length; first++) {
+            long shingle = FNV_OFFSET;
+            for (int word = first; word < first + SHINGLE_WORDS; word++) {
+                String value = words[word];
+                for (int i = 0; i < value.length(); i++) shingle = (shingle ^ value.charAt(i)) * FNV_PRIME;
+                shingle = (shingle ^ ' ') * FNV_PRIME;
+            }
+            for (int i = 0; i < HASHES; i++) {
+                int hash = (int) (mix(shingle ^ SEEDS[i]) >>> 33);
+                if (hash < signature[i]) signature[i] = hash;
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * @return fraction of hash functions whose minimum agrees, an estimate of the Jaccard similarity of the shingle sets
+     */
+    public static double similarity(int[] signature, int[] other) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (signature[i] == other[i]) equal++;
+        }
+        return (double) equal / HASHES;
+    }
+
+    public static byte[] encode(int[] signature) {
+        if (signature == null) return null;
+        ByteBuffer buffer = ByteBuffer.allocate(SIGNATURE_BYTES);
+        for (int hash : signature) buffer.putInt(hash);
+        return buffer.array();
+    }
+
+    /**
+     * @return decoded signature, null if the bytes are not a signature
+     */
+    public static int[] decode(byte[] bytes) {
+        if (bytes == null || bytes.length != SIGNATURE_BYTES) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) signature[i] = buffer.getInt();
+        return signature;
+    }
+
+    /**
+     * Finalizer of SplitMix64
+     */
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.googleinterns.gscribe.services.similarity;
+
+/**
+ * Two items whose estimated similarity reached the threshold
+ */
+public class SimilarPair {
+
+    private final int first;
+    private final int second;
+    private final double similarity;
+
+    public SimilarPair(int first, int second, double similarity) {
+        this.first = first;
+        this.second = second;
+        this.similarity = similarity;
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+}
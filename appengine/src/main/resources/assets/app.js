@@ -120,9 +120,9 @@ function submitSheet() {
 
 }
 
-function fillExamsTable(data) {
+function fillExamsTable(data, append) {
 
-    $('#examsList').empty();
+    if (!append) $('#examsList').empty();
     let exams = data.examsList;
     for (var i = 0; i < exams.length; i++) {
         var examRow = '<tr>' +
@@ -133,6 +133,13 @@ function fillExamsTable(data) {
             '</tr>';
         $('#examsList').append(examRow);
     }
+    if (data.nextCursor) {
+        $('#moreExams').off('click').on('click', function () {
+            fetchExams(data.nextCursor);
+        }).show();
+    } else {
+        $('#moreExams').hide();
+    }
 }
 
 function getExam(examID) {
@@ -152,9 +159,11 @@ function getExam(examID) {
     });
 }
 
-function fetchExams() {
+function fetchExams(cursor) {
 
     let IDToken = gapi.auth2.getAuthInstance().currentUser.get().getAuthResponse().id_token;
+    let url = "/api/exam/all";
+    if (cursor) url += "?cursor=" + encodeURIComponent(cursor);
     jQuery.ajax({
         headers: {
             'Accept': 'application/json',
@@ -162,9 +171,9 @@ function fetchExams() {
             'authorization-code': IDToken
         },
         'type': 'GET',
-        'url': "/api/exam/all",
+        'url': url,
         'success': function (data) {
-            fillExamsTable(data);
+            fillExamsTable(data, !!cursor);
         }
     });
 
@@ -40,12 +40,18 @@ DROP TABLE IF EXISTS `answers`;
 /*!40101 SET @saved_cs_client     = @@character_set_client */;
 /*!50503 SET character_set_client = utf8mb4 */;
 CREATE TABLE `answers` (
+  `exam_id` int NOT NULL,
   `exam_instance_id` int NOT NULL,
+  `question_num` int NOT NULL,
   `answer` json NOT NULL,
-  `timestamp` timestamp NULL DEFAULT CURRENT_TIMESTAMP,
-  PRIMARY KEY (`exam_instance_id`),
-  CONSTRAINT `answersDB_to_examinstanceDB_examinstanceid` FOREIGN KEY (`exam_instance_id`) REFERENCES `exam_instance` (`id`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+  `version` int NOT NULL DEFAULT '0',
+  `timestamp` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  `signature` varbinary(512) DEFAULT NULL,
+  PRIMARY KEY (`exam_instance_id`,`question_num`,`exam_id`),
+  KEY `answers_exam_id_instance_id_question_num_idx` (`exam_id`,`exam_instance_id`,`question_num`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+/*!50100 PARTITION BY RANGE (`exam_id`)
+(PARTITION pmax VALUES LESS THAN MAXVALUE ENGINE = InnoDB) */;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
 --
@@ -62,11 +68,48 @@ CREATE TABLE `exam` (
   `duration` int NOT NULL,
   `created_on` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`),
-  KEY `exam_db_to_user_db_id_idx` (`created_by`),
+  KEY `exam_created_by_created_on_id_idx` (`created_by`,`created_on`,`id`),
+  KEY `exam_created_on_idx` (`created_on`),
   CONSTRAINT `examDB_to_userDB_id` FOREIGN KEY (`created_by`) REFERENCES `user` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `exam_analytics`
+--
+
+DROP TABLE IF EXISTS `exam_analytics`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `exam_analytics` (
+  `exam_id` int NOT NULL,
+  `submissions` int NOT NULL,
+  `snapshot` mediumtext NOT NULL,
+  `updated_on` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`exam_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `exam_archive`
+--
+
+DROP TABLE IF EXISTS `exam_archive`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `exam_archive` (
+  `shard` int NOT NULL,
+  `term` int NOT NULL,
+  `first_exam_id` int NOT NULL,
+  `end_exam_id` int NOT NULL,
+  `instance_count` int NOT NULL,
+  `answer_count` int NOT NULL,
+  `archived_on` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`shard`,`term`),
+  KEY `exam_archive_end_exam_id_idx` (`end_exam_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `exam_instance`
 --
@@ -75,15 +118,79 @@ DROP TABLE IF EXISTS `exam_instance`;
 /*!40101 SET @saved_cs_client     = @@character_set_client */;
 /*!50503 SET character_set_client = utf8mb4 */;
 CREATE TABLE `exam_instance` (
-  `id` int NOT NULL,
+  `id` int NOT NULL AUTO_INCREMENT,
   `exam_id` int NOT NULL,
-  `student_email_id` varchar(300) NOT NULL,
+  `user_id` varchar(300) DEFAULT NULL,
+  `student_email_id` varchar(300) DEFAULT NULL,
   `student_roll_num` int NOT NULL,
-  `start_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `start_time` timestamp NULL DEFAULT NULL,
   `end_time` timestamp NULL DEFAULT NULL,
-  PRIMARY KEY (`id`),
-  KEY `examtakenDB_to_examDB_examID_idx` (`exam_id`),
-  CONSTRAINT `examinstanceDB_to_examDB_exam_id` FOREIGN KEY (`exam_id`) REFERENCES `exam` (`id`)
+  `score` int DEFAULT NULL,
+  PRIMARY KEY (`id`,`exam_id`),
+  UNIQUE KEY `exam_instance_exam_id_roll_num_uq` (`exam_id`,`student_roll_num`),
+  KEY `exam_instance_end_time_idx` (`end_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+/*!50100 PARTITION BY RANGE (`exam_id`)
+(PARTITION pmax VALUES LESS THAN MAXVALUE ENGINE = InnoDB) */;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `exam_shard`
+--
+
+DROP TABLE IF EXISTS `exam_shard`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `exam_shard` (
+  `exam_id` int NOT NULL,
+  `shard` int NOT NULL,
+  PRIMARY KEY (`exam_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `id_sequence`
+--
+
+DROP TABLE IF EXISTS `id_sequence`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `id_sequence` (
+  `name` varchar(64) NOT NULL,
+  `next_id` bigint NOT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `idempotency_key`
+--
+
+DROP TABLE IF EXISTS `idempotency_key`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `idempotency_key` (
+  `exam_instance_id` int NOT NULL,
+  `idempotency_key` varchar(64) NOT NULL,
+  `user_id` varchar(300) NOT NULL,
+  `response` varchar(1000) NOT NULL,
+  `created_on` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`exam_instance_id`,`idempotency_key`),
+  KEY `idempotency_key_created_on_idx` (`created_on`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `question_content`
+--
+
+DROP TABLE IF EXISTS `question_content`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `question_content` (
+  `hash` binary(32) NOT NULL,
+  `question_data` blob NOT NULL,
+  PRIMARY KEY (`hash`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -97,12 +204,39 @@ DROP TABLE IF EXISTS `questions`;
 CREATE TABLE `questions` (
   `exam_id` int NOT NULL,
   `question_num` int NOT NULL,
-  `question` json NOT NULL,
+  `question` json DEFAULT NULL,
+  `question_data` blob DEFAULT NULL,
+  `question_hash` binary(32) DEFAULT NULL,
   PRIMARY KEY (`exam_id`,`question_num`),
   CONSTRAINT `questionDB_to_examDB_examID` FOREIGN KEY (`exam_id`) REFERENCES `exam` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `schema_version`
+--
+
+DROP TABLE IF EXISTS `schema_version`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `schema_version` (
+  `version` int NOT NULL,
+  `description` varchar(200) NOT NULL,
+  `applied_on` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`version`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `schema_version`
+--
+
+LOCK TABLES `schema_version` WRITE;
+/*!40000 ALTER TABLE `schema_version` DISABLE KEYS */;
+INSERT INTO `schema_version` (`version`, `description`) VALUES (1,'baseline schema'),(2,'binary question encoding'),(3,'keyset index for exam listing'),(4,'one versioned answer row per question'),(5,'exam instance keys'),(6,'exam shard map'),(7,'term partitions of exam instances and answers'),(8,'active exam instance lookup'),(9,'exam roster'),(10,'id sequences'),(11,'idempotency keys'),(12,'auto grading'),(13,'exam analytics snapshots'),(14,'MinHash signatures of answers'),(15,'content addressed questions'),(16,'place existing exams on a shard');
+/*!40000 ALTER TABLE `schema_version` ENABLE KEYS */;
+UNLOCK TABLES;
+
 --
 -- Table structure for table `user`
 --
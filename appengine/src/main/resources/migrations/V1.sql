@@ -0,0 +1,64 @@
+-- /*
+--  * Copyright 2020 Google LLC
+--  *
+--  * Licensed under the Apache License, Version 2.0 (the "License");
+--  * you may not use this file except in compliance with the License.
+--  * You may obtain a copy of the License at
+--  *
+--  * https://www.apache.org/licenses/LICENSE-2.0
+--  *
+--  * Unless required by applicable law or agreed to in writing, software
+--  * distributed under the License is distributed on an "AS IS" BASIS,
+--  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--  * See the License for the specific language governing permissions and
+--  * limitations under the License.
+--  */
+
+-- Migration: baseline schema
+
+CREATE TABLE IF NOT EXISTS `user` (
+  `id` varchar(300) NOT NULL,
+  `access_token` varchar(2048) NOT NULL,
+  `refresh_token` varchar(512) NOT NULL,
+  `timestamp` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `exam` (
+  `id` int NOT NULL AUTO_INCREMENT,
+  `created_by` varchar(300) NOT NULL,
+  `spreadsheet_id` varchar(100) NOT NULL,
+  `duration` int NOT NULL,
+  `created_on` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `exam_db_to_user_db_id_idx` (`created_by`),
+  CONSTRAINT `examDB_to_userDB_id` FOREIGN KEY (`created_by`) REFERENCES `user` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `exam_instance` (
+  `id` int NOT NULL,
+  `exam_id` int NOT NULL,
+  `student_email_id` varchar(300) NOT NULL,
+  `student_roll_num` int NOT NULL,
+  `start_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `end_time` timestamp NULL DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `examtakenDB_to_examDB_examID_idx` (`exam_id`),
+  CONSTRAINT `examinstanceDB_to_examDB_exam_id` FOREIGN KEY (`exam_id`) REFERENCES `exam` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `answers` (
+  `exam_instance_id` int NOT NULL,
+  `answer` json NOT NULL,
+  `timestamp` timestamp NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`exam_instance_id`),
+  CONSTRAINT `answersDB_to_examinstanceDB_examinstanceid` FOREIGN KEY (`exam_instance_id`) REFERENCES `exam_instance` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `questions` (
+  `exam_id` int NOT NULL,
+  `question_num` int NOT NULL,
+  `question` json NOT NULL,
+  PRIMARY KEY (`exam_id`,`question_num`),
+  CONSTRAINT `questionDB_to_examDB_examID` FOREIGN KEY (`exam_id`) REFERENCES `exam` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
@@ -0,0 +1,26 @@
+-- /*
+--  * Copyright 2020 Google LLC
+--  *
+--  * Licensed under the Apache License, Version 2.0 (the "License");
+--  * you may not use this file except in compliance with the License.
+--  * You may obtain a copy of the License at
+--  *
+--  * https://www.apache.org/licenses/LICENSE-2.0
+--  *
+--  * Unless required by applicable law or agreed to in writing, software
+--  * distributed under the License is distributed on an "AS IS" BASIS,
+--  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--  * See the License for the specific language governing permissions and
+--  * limitations under the License.
+--  */
+
+-- Migration: id sequences
+
+-- blocks of ids are reserved from here, exam instance ids are no longer generated by the database
+CREATE TABLE IF NOT EXISTS `id_sequence` (
+  `name` varchar(64) NOT NULL,
+  `next_id` bigint NOT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `id_sequence` (`name`, `next_id`) SELECT 'exam_instance', COALESCE(MAX(`id`), 0) + 1 FROM `exam_instance`;
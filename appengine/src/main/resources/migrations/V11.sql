@@ -0,0 +1,27 @@
+-- /*
+--  * Copyright 2020 Google LLC
+--  *
+--  * Licensed under the Apache License, Version 2.0 (the "License");
+--  * you may not use this file except in compliance with the License.
+--  * You may obtain a copy of the License at
+--  *
+--  * https://www.apache.org/licenses/LICENSE-2.0
+--  *
+--  * Unless required by applicable law or agreed to in writing, software
+--  * distributed under the License is distributed on an "AS IS" BASIS,
+--  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--  * See the License for the specific language governing permissions and
+--  * limitations under the License.
+--  */
+
+-- Migration: idempotency keys
+
+CREATE TABLE IF NOT EXISTS `idempotency_key` (
+  `exam_instance_id` int NOT NULL,
+  `idempotency_key` varchar(64) NOT NULL,
+  `user_id` varchar(300) NOT NULL,
+  `response` varchar(1000) NOT NULL,
+  `created_on` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`exam_instance_id`,`idempotency_key`),
+  KEY `idempotency_key_created_on_idx` (`created_on`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
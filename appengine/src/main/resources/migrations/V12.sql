@@ -0,0 +1,22 @@
+-- /*
+--  * Copyright 2020 Google LLC
+--  *
+--  * Licensed under the Apache License, Version 2.0 (the "License");
+--  * you may not use this file except in compliance with the License.
+--  * You may obtain a copy of the License at
+--  *
+--  * https://www.apache.org/licenses/LICENSE-2.0
+--  *
+--  * Unless required by applicable law or agreed to in writing, software
+--  * distributed under the License is distributed on an "AS IS" BASIS,
+--  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--  * See the License for the specific language governing permissions and
+--  * limitations under the License.
+--  */
+
+-- Migration: auto grading
+
+ALTER TABLE `exam_instance` ADD COLUMN `score` int DEFAULT NULL;
+
+-- grading reads all answers of an exam ordered by exam instance and question
+ALTER TABLE `answers` ADD KEY `answers_exam_id_instance_id_question_num_idx` (`exam_id`,`exam_instance_id`,`question_num`);
@@ -0,0 +1,31 @@
+-- /*
+--  * Copyright 2020 Google LLC
+--  *
+--  * Licensed under the Apache License, Version 2.0 (the "License");
+--  * you may not use this file except in compliance with the License.
+--  * You may obtain a copy of the License at
+--  *
+--  * https://www.apache.org/licenses/LICENSE-2.0
+--  *
+--  * Unless required by applicable law or agreed to in writing, software
+--  * distributed under the License is distributed on an "AS IS" BASIS,
+--  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--  * See the License for the specific language governing permissions and
+--  * limitations under the License.
+--  */
+
+-- Migration: content addressed questions
+
+CREATE TABLE `question_content` (
+  `hash` binary(32) NOT NULL,
+  `question_data` blob NOT NULL,
+  PRIMARY KEY (`hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+ALTER TABLE `questions` ADD COLUMN `question_hash` binary(32) DEFAULT NULL;
+
+-- encoded questions move to question_content, questions rows are left as links to them
+INSERT INTO `question_content` ( `hash`, `question_data` )
+  SELECT UNHEX(SHA2(`question_data`, 256)), `question_data` FROM `questions` WHERE `question_data` IS NOT NULL
+  ON DUPLICATE KEY UPDATE `hash` = `hash`;
+UPDATE `questions` SET `question_hash` = UNHEX(SHA2(`question_data`, 256)), `question_data` = NULL WHERE `question_data` IS NOT NULL;
@@ -0,0 +1,23 @@
+-- /*
+--  * Copyright 2020 Google LLC
+--  *
+--  * Licensed under the Apache License, Version 2.0 (the "License");
+--  * you may not use this file except in compliance with the License.
+--  * You may obtain a copy of the License at
+--  *
+--  * https://www.apache.org/licenses/LICENSE-2.0
+--  *
+--  * Unless required by applicable law or agreed to in writing, software
+--  * distributed under the License is distributed on an "AS IS" BASIS,
+--  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--  * See the License for the specific language governing permissions and
+--  * limitations under the License.
+--  */
+
+-- Migration: one versioned answer row per question
+
+ALTER TABLE `answers` ADD COLUMN `question_num` int NOT NULL DEFAULT '0' AFTER `exam_instance_id`,
+  ADD COLUMN `version` int NOT NULL DEFAULT '0' AFTER `answer`,
+  MODIFY `timestamp` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+UPDATE `answers` SET `question_num` = COALESCE(`answer`->>'$.questionNum', 0);
+ALTER TABLE `answers` DROP PRIMARY KEY, ADD PRIMARY KEY (`exam_instance_id`,`question_num`);
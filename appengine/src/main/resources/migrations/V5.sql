@@ -0,0 +1,25 @@
+-- /*
+--  * Copyright 2020 Google LLC
+--  *
+--  * Licensed under the Apache License, Version 2.0 (the "License");
+--  * you may not use this file except in compliance with the License.
+--  * You may obtain a copy of the License at
+--  *
+--  * https://www.apache.org/licenses/LICENSE-2.0
+--  *
+--  * Unless required by applicable law or agreed to in writing, software
+--  * distributed under the License is distributed on an "AS IS" BASIS,
+--  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--  * See the License for the specific language governing permissions and
+--  * limitations under the License.
+--  */
+
+-- Migration: exam instance keys
+
+ALTER TABLE `answers` DROP FOREIGN KEY `answersDB_to_examinstanceDB_examinstanceid`;
+ALTER TABLE `exam_instance` MODIFY `id` int NOT NULL AUTO_INCREMENT,
+  MODIFY `student_email_id` varchar(300) NULL,
+  ADD COLUMN `user_id` varchar(300) NULL AFTER `exam_id`,
+  ADD UNIQUE KEY `exam_instance_exam_id_roll_num_uq` (`exam_id`,`student_roll_num`);
+ALTER TABLE `exam_instance` DROP KEY `examtakenDB_to_examDB_examID_idx`;
+ALTER TABLE `answers` ADD CONSTRAINT `answersDB_to_examinstanceDB_examinstanceid` FOREIGN KEY (`exam_instance_id`) REFERENCES `exam_instance` (`id`);
@@ -0,0 +1,42 @@
+-- /*
+--  * Copyright 2020 Google LLC
+--  *
+--  * Licensed under the Apache License, Version 2.0 (the "License");
+--  * you may not use this file except in compliance with the License.
+--  * You may obtain a copy of the License at
+--  *
+--  * https://www.apache.org/licenses/LICENSE-2.0
+--  *
+--  * Unless required by applicable law or agreed to in writing, software
+--  * distributed under the License is distributed on an "AS IS" BASIS,
+--  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--  * See the License for the specific language governing permissions and
+--  * limitations under the License.
+--  */
+
+-- Migration: term partitions of exam instances and answers
+
+-- partitioned tables can not have foreign keys, and every unique key has to contain the partitioning column
+ALTER TABLE `answers` DROP FOREIGN KEY `answersDB_to_examinstanceDB_examinstanceid`;
+ALTER TABLE `answers` ADD COLUMN `exam_id` int NOT NULL DEFAULT 0 FIRST;
+UPDATE `answers` INNER JOIN `exam_instance` ON `exam_instance`.`id` = `answers`.`exam_instance_id` SET `answers`.`exam_id` = `exam_instance`.`exam_id`;
+ALTER TABLE `answers` ALTER `exam_id` DROP DEFAULT, DROP PRIMARY KEY, ADD PRIMARY KEY (`exam_instance_id`,`question_num`,`exam_id`);
+ALTER TABLE `exam_instance` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`,`exam_id`);
+
+-- all rows start in pmax, partition maintenance splits a partition off pmax for every term that ends
+ALTER TABLE `exam_instance` PARTITION BY RANGE (`exam_id`) (PARTITION `pmax` VALUES LESS THAN MAXVALUE);
+ALTER TABLE `answers` PARTITION BY RANGE (`exam_id`) (PARTITION `pmax` VALUES LESS THAN MAXVALUE);
+
+ALTER TABLE `exam` ADD KEY `exam_created_on_idx` (`created_on`);
+
+CREATE TABLE IF NOT EXISTS `exam_archive` (
+  `shard` int NOT NULL,
+  `term` int NOT NULL,
+  `first_exam_id` int NOT NULL,
+  `end_exam_id` int NOT NULL,
+  `instance_count` int NOT NULL,
+  `answer_count` int NOT NULL,
+  `archived_on` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`shard`,`term`),
+  KEY `exam_archive_end_exam_id_idx` (`end_exam_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;